@@ -0,0 +1,213 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop load generator with the request mixes of notes.js ("notes") and notes-crud.js
+ * ("crud"), for hosts without k6. Every connection is a virtual thread sending its next request
+ * once the previous response arrived; latencies are reported per request name like the k6 summary.
+ * <p>
+ * Usage: java load-test/LoadDriver.java notes|crud CONNECTIONS SECONDS [BASE_URL]
+ */
+public class LoadDriver {
+
+    private static final String[] TAGS = {"BUSINESS", "PERSONAL", "IMPORTANT"};
+    private static final Pattern ID = Pattern.compile("\"id\"\\s*:\\s*\"([^\"]+)\"");
+    // a response slower than this counts as failed, so a stalled server cannot stall the run
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+    private final String baseUrl;
+    private final boolean crud;
+    private final List<String> ids = new ArrayList<>();
+    private final AtomicLong iterations = new AtomicLong();
+
+    LoadDriver(String scenario, String baseUrl) {
+        this.crud = scenario.equals("crud");
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String scenario = args[0];
+        int connections = Integer.parseInt(args[1]);
+        int seconds = Integer.parseInt(args[2]);
+        LoadDriver driver = new LoadDriver(scenario, args.length > 3 ? args[3] : "http://localhost:8080");
+        driver.setup();
+        driver.run(connections, seconds);
+    }
+
+    private void setup() throws Exception {
+        for (int i = 0; i < 200; i++) {
+            HttpResponse<String> response = client.send(post("/api/notes", note(i)), HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = ID.matcher(response.body());
+            if (response.statusCode() == 201 && matcher.find()) {
+                ids.add(matcher.group(1));
+            }
+        }
+        if (ids.isEmpty()) {
+            throw new IllegalStateException("setup could not create any note");
+        }
+    }
+
+    private void run(int connections, int seconds) throws Exception {
+        long end = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Recorder> recorders = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < connections; c++) {
+            Recorder recorder = new Recorder();
+            recorders.add(recorder);
+            threads.add(Thread.ofVirtual().start(() -> {
+                while (System.nanoTime() < end) {
+                    iteration(recorder);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        report(recorders, connections, seconds);
+    }
+
+    private void iteration(Recorder recorder) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String id = ids.get(random.nextInt(ids.size()));
+        double roll = random.nextDouble();
+        String name;
+        HttpRequest request;
+        if (crud) {
+            if (roll < 0.5) {
+                name = "get";
+                request = get("/api/notes/" + id);
+            } else {
+                name = "create";
+                request = post("/api/notes", note(iterations.incrementAndGet()));
+            }
+        } else if (roll < 0.4) {
+            name = "list";
+            request = get("/api/notes?tag=" + TAGS[random.nextInt(TAGS.length)] + "&page=0&size=10");
+        } else if (roll < 0.75) {
+            name = "get";
+            request = get("/api/notes/" + id);
+        } else if (roll < 0.95) {
+            name = "stats";
+            request = get("/api/notes/" + id + "/stats");
+        } else {
+            name = "update";
+            request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/notes/" + id))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(
+                            "{\"title\":\"updated\",\"text\":\"updated note text\",\"tags\":[\"BUSINESS\"]}"))
+                    .build();
+        }
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            int status = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .orTimeout(REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS)
+                    .join()
+                    .statusCode();
+            ok = status >= 200 && status < 300;
+        } catch (Exception ex) {
+            ok = false;
+        }
+        recorder.record(name, System.nanoTime() - start, ok);
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private String note(long i) {
+        String text = crud ? "note is just a note" : "note is just a note and a load test note";
+        String tag = crud ? "BUSINESS" : TAGS[(int) (i % TAGS.length)];
+        return "{\"title\":\"load " + i + "\",\"text\":\"" + text + "\",\"tags\":[\"" + tag + "\"]}";
+    }
+
+    private static void report(List<Recorder> recorders, int connections, int seconds) {
+        Map<String, long[]> byName = new TreeMap<>();
+        long failed = 0;
+        for (Recorder recorder : recorders) {
+            failed += recorder.failed;
+            recorder.latencies.forEach((name, values) -> byName.merge(name, values.toArray(), LoadDriver::concat));
+        }
+        long[] all = byName.values().stream().reduce(new long[0], LoadDriver::concat);
+        System.out.printf("connections=%d duration=%ds requests=%d throughput=%.1f req/s failed=%d (%.2f%%)%n",
+                connections, seconds, all.length, all.length / (double) seconds, failed, 100.0 * failed / Math.max(1, all.length));
+        System.out.println(summary("all", all));
+        byName.forEach((name, values) -> System.out.println(summary(name, values)));
+    }
+
+    private static String summary(String name, long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        double avg = Arrays.stream(sorted).average().orElse(0);
+        return String.format("  %-7s n=%-7d avg=%8.2fms p50=%8.2fms p95=%8.2fms p99=%8.2fms max=%8.2fms",
+                name, sorted.length, avg / 1e6, percentile(sorted, 50), percentile(sorted, 95),
+                percentile(sorted, 99), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static long[] concat(long[] a, long[] b) {
+        long[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+
+    // per connection, so recording needs no synchronization
+    private static final class Recorder {
+        private final Map<String, LongList> latencies = new TreeMap<>();
+        private long failed;
+
+        void record(String name, long nanos, boolean ok) {
+            latencies.computeIfAbsent(name, n -> new LongList()).add(nanos);
+            if (!ok) {
+                failed++;
+            }
+        }
+    }
+
+    private static final class LongList {
+        private long[] values = new long[256];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
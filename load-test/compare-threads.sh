@@ -0,0 +1,34 @@
+#!/bin/sh
+# Runs notes-crud.js against the servlet stack on platform threads and with the virtual profile,
+# one after the other against the same MongoDB, and keeps both summaries. Without k6 the same
+# mix is run by LoadDriver.java. Each variant gets a WARMUP long run first that is not kept.
+# Usage: load-test/compare-threads.sh [VUS] [DURATION] [WARMUP]   (requires a built jar and MongoDB)
+set -e
+
+VUS=${1:-1000}
+DURATION=${2:-60s}
+WARMUP=${3:-20s}
+JAR=$(ls target/*.jar | grep -v original | head -n 1)
+OUT=load-test/results
+mkdir -p "$OUT"
+
+load() {
+    if command -v k6 > /dev/null; then
+        k6 run -e VUS="$VUS" -e DURATION="$1" --summary-export "$2.json" load-test/notes-crud.js
+    else
+        java load-test/LoadDriver.java crud "$VUS" "${1%s}"
+    fi
+}
+
+for NAME in platform virtual; do
+    if [ "$NAME" = virtual ]; then PROFILE=--spring.profiles.include=virtual; else PROFILE=; fi
+    java -jar "$JAR" $PROFILE > "$OUT/$NAME.log" 2>&1 &
+    APP_PID=$!
+    until curl -sf "http://localhost:8080/api/notes?size=1" > /dev/null; do sleep 1; done
+
+    load "$WARMUP" "$OUT/$NAME-warmup" > /dev/null
+    load "$DURATION" "$OUT/$NAME" | tee "$OUT/$NAME.txt"
+
+    kill "$APP_PID"
+    wait "$APP_PID" || true
+done
@@ -0,0 +1,33 @@
+#!/bin/sh
+# Runs notes.js against the servlet (default) and the reactive variant of the application,
+# one after the other against the same MongoDB, and keeps both summaries. Without k6 the same
+# mix is run by LoadDriver.java. Each variant gets a WARMUP long run first that is not kept.
+# Usage: load-test/compare.sh [VUS] [DURATION] [WARMUP]   (requires a built jar and MongoDB)
+set -e
+
+VUS=${1:-200}
+DURATION=${2:-60s}
+WARMUP=${3:-20s}
+JAR=$(ls target/*.jar | grep -v original | head -n 1)
+OUT=load-test/results
+mkdir -p "$OUT"
+
+load() {
+    if command -v k6 > /dev/null; then
+        k6 run -e VUS="$VUS" -e DURATION="$1" --summary-export "$2.json" load-test/notes.js
+    else
+        java load-test/LoadDriver.java notes "$VUS" "${1%s}"
+    fi
+}
+
+for PROFILE in default reactive; do
+    java -jar "$JAR" --spring.profiles.active="$PROFILE" > "$OUT/$PROFILE.log" 2>&1 &
+    APP_PID=$!
+    until curl -sf "http://localhost:8080/api/notes?size=1" > /dev/null; do sleep 1; done
+
+    load "$WARMUP" "$OUT/$PROFILE-warmup" > /dev/null
+    load "$DURATION" "$OUT/$PROFILE" | tee "$OUT/$PROFILE.txt"
+
+    kill "$APP_PID"
+    wait "$APP_PID" || true
+done
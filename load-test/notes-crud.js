@@ -0,0 +1,39 @@
+// k6 load script for GET /api/notes/{id} and POST /api/notes, half of each.
+// Tune with BASE_URL, VUS and DURATION.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const JSON_HEADERS = { 'Content-Type': 'application/json' };
+
+export const options = {
+    vus: Number(__ENV.VUS || 1000),
+    duration: __ENV.DURATION || '60s',
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+function note(i) {
+    return JSON.stringify({ title: `load ${i}`, text: 'note is just a note', tags: ['BUSINESS'] });
+}
+
+export function setup() {
+    const ids = [];
+    for (let i = 0; i < 200; i++) {
+        const res = http.post(`${BASE_URL}/api/notes`, note(i), { headers: JSON_HEADERS });
+        if (res.status === 201) {
+            ids.push(res.json('id'));
+        }
+    }
+    return { ids };
+}
+
+export default function (data) {
+    let res;
+    if (Math.random() < 0.5) {
+        const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+        res = http.get(`${BASE_URL}/api/notes/${id}`, { tags: { name: 'get' } });
+    } else {
+        res = http.post(`${BASE_URL}/api/notes`, note(__ITER), { headers: JSON_HEADERS, tags: { name: 'create' } });
+    }
+    check(res, { 'status is 2xx': (r) => r.status >= 200 && r.status < 300 });
+}
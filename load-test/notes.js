@@ -0,0 +1,47 @@
+// k6 load script for the notes API: a read-heavy mix of list, get-by-id and stats calls
+// with a small share of writes. Tune with BASE_URL, VUS and DURATION.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TAGS = ['BUSINESS', 'PERSONAL', 'IMPORTANT'];
+
+export const options = {
+    vus: Number(__ENV.VUS || 200),
+    duration: __ENV.DURATION || '60s',
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function setup() {
+    const ids = [];
+    for (let i = 0; i < 200; i++) {
+        const res = http.post(`${BASE_URL}/api/notes`, JSON.stringify({
+            title: `load ${i}`,
+            text: 'note is just a note and a load test note',
+            tags: [TAGS[i % TAGS.length]],
+        }), { headers: { 'Content-Type': 'application/json' } });
+        if (res.status === 201) {
+            ids.push(res.json('id'));
+        }
+    }
+    return { ids };
+}
+
+export default function (data) {
+    const id = data.ids[Math.floor(Math.random() * data.ids.length)];
+    const roll = Math.random();
+    let res;
+    if (roll < 0.4) {
+        res = http.get(`${BASE_URL}/api/notes?tag=${TAGS[Math.floor(Math.random() * TAGS.length)]}&page=0&size=10`,
+            { tags: { name: 'list' } });
+    } else if (roll < 0.75) {
+        res = http.get(`${BASE_URL}/api/notes/${id}`, { tags: { name: 'get' } });
+    } else if (roll < 0.95) {
+        res = http.get(`${BASE_URL}/api/notes/${id}/stats`, { tags: { name: 'stats' } });
+    } else {
+        res = http.put(`${BASE_URL}/api/notes/${id}`, JSON.stringify({
+            title: 'updated', text: 'updated note text', tags: ['BUSINESS'],
+        }), { headers: { 'Content-Type': 'application/json' }, tags: { name: 'update' } });
+    }
+    check(res, { 'status is 2xx': (r) => r.status >= 200 && r.status < 300 });
+}
@@ -0,0 +1,42 @@
+#!/bin/sh
+# Measures time from launching the JVM to the first successful GET /api/notes, RUNS times each for
+# the executable jar as it used to be run, and for the extracted jar with Spring AOT, without and
+# with the CDS archive.
+# Usage: load-test/startup.sh [RUNS] [PROFILES]
+#   (requires mvn -Pfaststart package -Dfaststart.profiles=PROFILES, and MongoDB unless PROFILES is inmemory)
+set -e
+
+RUNS=${1:-5}
+PROFILES=${2:-default}
+DIR=target/faststart
+JAR=$(cd "$DIR" && ls *.jar | head -n 1)
+OUT=$(pwd)/load-test/results
+mkdir -p "$OUT"
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+: > "$OUT/startup.txt"
+for MODE in jar aot aot-cds; do
+    case $MODE in
+        jar) FLAGS="" RUN_JAR="../$JAR" ;;
+        aot) FLAGS="-Dspring.aot.enabled=true" RUN_JAR="$JAR" ;;
+        aot-cds) FLAGS="-Dspring.aot.enabled=true -XX:SharedArchiveFile=app.jsa" RUN_JAR="$JAR" ;;
+    esac
+    TOTAL=0
+    for RUN in $(seq "$RUNS"); do
+        START=$(now_ms)
+        # the archive refers to the jar relative to the directory it was trained in
+        (cd "$DIR" && exec java $FLAGS -Dspring.profiles.active="$PROFILES" -jar "$RUN_JAR") > "$OUT/startup-$MODE.log" 2>&1 &
+        APP_PID=$!
+        until curl -sf "http://localhost:8080/api/notes?size=1" > /dev/null; do sleep 0.02; done
+        ELAPSED=$(($(now_ms) - START))
+        TOTAL=$((TOTAL + ELAPSED))
+        echo "$MODE run $RUN: ${ELAPSED} ms"
+
+        kill "$APP_PID"
+        wait "$APP_PID" || true
+    done
+    echo "$MODE: $((TOTAL / RUNS)) ms to first successful request, mean of $RUNS" | tee -a "$OUT/startup.txt"
+done
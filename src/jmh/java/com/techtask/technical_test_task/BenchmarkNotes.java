@@ -0,0 +1,53 @@
+package com.techtask.technical_test_task;
+
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic note content shared by the benchmarks, so results of different runs and
+ * benchmarks compare the same inputs.
+ */
+public final class BenchmarkNotes {
+
+    private static final String[] VOCABULARY = {
+            "the", "note", "meeting", "budget", "Project", "deadline", "is", "a", "and", "to",
+            "review", "client", "call", "tomorrow", "IMPORTANT", "draft", "report", "of", "in", "team"
+    };
+
+    private BenchmarkNotes() {
+    }
+
+    /**
+     * Text of exactly {@code length} characters, words of a small vocabulary with some punctuation.
+     */
+    public static String text(int length, long seed) {
+        Random random = new Random(seed);
+        StringBuilder builder = new StringBuilder(length + 16);
+        while (builder.length() < length) {
+            builder.append(VOCABULARY[random.nextInt(VOCABULARY.length)]);
+            int punctuation = random.nextInt(10);
+            builder.append(punctuation == 0 ? ", " : punctuation == 1 ? ". " : " ");
+        }
+        return builder.substring(0, length);
+    }
+
+    /**
+     * A valid note as stored, with id, version and one or two tags.
+     */
+    public static Note note(int index, int textLength) {
+        Tag[] tags = Tag.values();
+        return Note.builder()
+                .id(String.format("%024x", index))
+                .title("Note " + index + " " + text(40, index))
+                .text(text(textLength, index))
+                .createDate(LocalDateTime.of(2024, 1, 1, 9, 0).plusMinutes(index))
+                .tags(index % 3 == 0 ? List.of(tags[index % tags.length])
+                        : List.of(tags[index % tags.length], tags[(index + 1) % tags.length]))
+                .version((long) index % 5)
+                .build();
+    }
+}
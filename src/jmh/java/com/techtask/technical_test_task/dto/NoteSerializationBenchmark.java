@@ -0,0 +1,67 @@
+package com.techtask.technical_test_task.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techtask.technical_test_task.BenchmarkNotes;
+import com.techtask.technical_test_task.model.Note;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the response bodies of {@code GET /api/notes/{id}} and
+ * {@code GET /api/notes}, and deserialization of a request body, with the object mapper
+ * configuration Spring Boot applies by default.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class NoteSerializationBenchmark {
+
+    @Param({"200", "1000", "5000"})
+    private int textLength;
+
+    @Param({"20"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Note note;
+    private String noteJson;
+    private Page<NoteDTO> page;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        note = BenchmarkNotes.note(1, textLength);
+        noteJson = objectMapper.writeValueAsString(note);
+
+        List<NoteDTO> summaries = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Note pageNote = BenchmarkNotes.note(i, textLength);
+            summaries.add(new NoteDTO(pageNote.getId(), pageNote.getTitle(), pageNote.getCreateDate()));
+        }
+        page = new PageImpl<>(summaries, PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "createDate")), 1000);
+    }
+
+    @Benchmark
+    public byte[] writeNote() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(note);
+    }
+
+    @Benchmark
+    public Note readNote() throws JsonProcessingException {
+        return objectMapper.readValue(noteJson, Note.class);
+    }
+
+    @Benchmark
+    public byte[] writeSummaryPage() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,78 @@
+package com.techtask.technical_test_task.dto;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.techtask.technical_test_task.BenchmarkNotes;
+import com.techtask.technical_test_task.model.Note;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding cost of the negotiated body formats, JSON, CBOR and Smile, for a full
+ * note and a page of summaries, with the mappers configured as in {@code BinaryFormatConverters}.
+ * The body sizes of each format are in the README table.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class NoteWireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"200", "5000"})
+    private int textLength;
+
+    @Param({"20"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private Note note;
+    private byte[] noteBytes;
+    private Page<NoteDTO> page;
+
+    @Setup
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        objectMapper = Jackson2ObjectMapperBuilder.json().factory(factory).build();
+        note = BenchmarkNotes.note(1, textLength);
+        noteBytes = objectMapper.writeValueAsBytes(note);
+
+        List<NoteDTO> summaries = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Note pageNote = BenchmarkNotes.note(i, textLength);
+            summaries.add(new NoteDTO(pageNote.getId(), pageNote.getTitle(), pageNote.getCreateDate()));
+        }
+        page = new PageImpl<>(summaries, PageRequest.of(0, pageSize, Sort.by(Sort.Direction.DESC, "createDate")), 1000);
+    }
+
+    @Benchmark
+    public byte[] writeNote() throws IOException {
+        return objectMapper.writeValueAsBytes(note);
+    }
+
+    @Benchmark
+    public Note readNote() throws IOException {
+        return objectMapper.readValue(noteBytes, Note.class);
+    }
+
+    @Benchmark
+    public byte[] writeSummaryPage() throws IOException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,90 @@
+package com.techtask.technical_test_task.model;
+
+import com.techtask.technical_test_task.BenchmarkNotes;
+import com.techtask.technical_test_task.dto.NoteDTO;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping between stored documents and {@link Note}/{@link NoteDTO} as done by the repositories
+ * for every listing page and write, one page of {@code pageSize} notes per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class NoteMappingBenchmark {
+
+    @Param({"200", "1000", "5000"})
+    private int textLength;
+
+    @Param({"20"})
+    private int pageSize;
+
+    private MappingMongoConverter converter;
+    private List<Note> notes;
+    private List<Document> documents;
+    private List<Document> summaryDocuments;
+
+    @Setup
+    public void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+
+        notes = new ArrayList<>(pageSize);
+        documents = new ArrayList<>(pageSize);
+        summaryDocuments = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            Note note = BenchmarkNotes.note(i, textLength);
+            Document document = new Document();
+            converter.write(note, document);
+            notes.add(note);
+            documents.add(document);
+            // what the summary projections fetch: id, title and createDate only
+            summaryDocuments.add(new Document("_id", document.get("_id"))
+                    .append("title", document.get("title"))
+                    .append("createDate", document.get("createDate")));
+        }
+    }
+
+    @Benchmark
+    public List<NoteDTO> readSummaryPage() {
+        List<NoteDTO> page = new ArrayList<>(pageSize);
+        for (Document document : summaryDocuments) {
+            page.add(converter.read(NoteDTO.class, document));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public List<Note> readNotePage() {
+        List<Note> page = new ArrayList<>(pageSize);
+        for (Document document : documents) {
+            page.add(converter.read(Note.class, document));
+        }
+        return page;
+    }
+
+    @Benchmark
+    public List<Document> writeNotePage() {
+        List<Document> page = new ArrayList<>(pageSize);
+        for (Note note : notes) {
+            Document document = new Document();
+            converter.write(note, document);
+            page.add(document);
+        }
+        return page;
+    }
+}
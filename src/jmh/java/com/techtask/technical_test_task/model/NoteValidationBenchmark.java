@@ -0,0 +1,56 @@
+package com.techtask.technical_test_task.model;
+
+import com.techtask.technical_test_task.BenchmarkNotes;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bean Validation of {@link Note} as run for every created or updated note, valid and
+ * with every constraint violated.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class NoteValidationBenchmark {
+
+    @Param({"200", "1000", "5000"})
+    private int textLength;
+
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private Note valid;
+    private Note invalid;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        valid = BenchmarkNotes.note(1, textLength);
+        invalid = BenchmarkNotes.note(2, textLength);
+        invalid.setTitle(" ");
+        invalid.setText(BenchmarkNotes.text(textLength + 5000, 2));
+        invalid.setTags(List.of(Tag.BUSINESS, Tag.PERSONAL, Tag.IMPORTANT, Tag.BUSINESS));
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Note>> validNote() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<Note>> invalidNote() {
+        return validator.validate(invalid);
+    }
+}
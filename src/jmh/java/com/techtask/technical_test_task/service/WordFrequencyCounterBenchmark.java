@@ -0,0 +1,46 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.BenchmarkNotes;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.NoteStats;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link WordFrequencyCounter} with the original stream/regex pipeline of
+ * {@code NoteService.countStat}, and measures building the stored {@link NoteStats} on writes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class WordFrequencyCounterBenchmark {
+
+    @Param({"200", "1000", "5000"})
+    private int textLength;
+
+    private String text;
+    private Note note;
+
+    @Setup
+    public void setUp() {
+        text = BenchmarkNotes.text(textLength, textLength);
+        note = BenchmarkNotes.note(1, textLength);
+    }
+
+    @Benchmark
+    public Map<String, Long> streamPipeline() {
+        return WordFrequencyCounter.countWithHashMap(text);
+    }
+
+    @Benchmark
+    public Map<String, Long> singlePassCounter() {
+        return WordFrequencyCounter.count(text);
+    }
+
+    @Benchmark
+    public NoteStats buildStats() {
+        return NoteService.buildStats(note);
+    }
+}
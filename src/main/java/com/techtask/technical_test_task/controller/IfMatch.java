@@ -0,0 +1,47 @@
+package com.techtask.technical_test_task.controller;
+
+import com.techtask.technical_test_task.exception.InvalidNoteRequestException;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+/**
+ * The {@code If-Match} header of a note update: absent, {@code *} for "the note must exist", or a
+ * single strong entity tag carrying the note version, e.g. {@code "3"}, or the tag a GET returned
+ * for one representation of it, e.g. {@code "3-json"}. If-Match compares entity tags strongly, so
+ * a weak tag never matches and fails the precondition.
+ *
+ * @param any     {@code *} was sent, an update of a missing note fails the precondition
+ * @param version the version the update applies to, {@code null} for any version
+ */
+record IfMatch(boolean any, Long version) {
+
+    static final IfMatch NONE = new IfMatch(false, null);
+
+    static IfMatch parse(String header) {
+        if (header == null || header.isBlank()) {
+            return NONE;
+        }
+        String tag = header.trim();
+        if (tag.equals("*")) {
+            return new IfMatch(true, null);
+        }
+        if (tag.startsWith("W/")) {
+            throw new OptimisticLockingFailureException("Weak entity tag " + tag + " cannot match If-Match");
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        int representation = tag.indexOf('-');
+        if (representation > 0) {
+            tag = tag.substring(0, representation);
+        }
+        try {
+            return new IfMatch(false, Long.parseLong(tag));
+        } catch (NumberFormatException ex) {
+            throw new InvalidNoteRequestException("If-Match must be a single note version, e.g. \"3\" or \"3-json\"");
+        }
+    }
+
+    OptimisticLockingFailureException missing(String id) {
+        return new OptimisticLockingFailureException("Note " + id + " does not exist");
+    }
+}
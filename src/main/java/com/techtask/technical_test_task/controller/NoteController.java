@@ -1,29 +1,72 @@
 package com.techtask.technical_test_task.controller;
 
+import com.techtask.technical_test_task.dto.BulkResult;
+import com.techtask.technical_test_task.dto.CursorPage;
 import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.dto.SlicePage;
+import com.techtask.technical_test_task.dto.TagFacets;
+import com.techtask.technical_test_task.dto.WordCount;
 import com.techtask.technical_test_task.model.Note;
 import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.model.TagMatch;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.techtask.technical_test_task.service.NoteCache;
+import com.techtask.technical_test_task.service.NoteIngestQueue;
 import com.techtask.technical_test_task.service.NoteService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import org.springframework.data.domain.Page;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/notes")
 @Validated
+@Profile("!reactive")
 public class NoteController {
 
+    private static final int EXPORT_FLUSH_EVERY = 100;
+    // headers that select the representation of a tagged note or stats response
+    private static final String VARY = HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING;
+    // formats of a note or stats response, in the order they win when Accept ranks them equally
+    private static final Map<MediaType, String> REPRESENTATIONS = new LinkedHashMap<>();
+    private static final String GZIP = "-gz";
+
+    static {
+        REPRESENTATIONS.put(MediaType.APPLICATION_JSON, "json");
+        REPRESENTATIONS.put(MediaType.APPLICATION_CBOR, "cbor");
+        REPRESENTATIONS.put(new MediaType("application", "x-jackson-smile"), "smile");
+    }
+
     private final NoteService noteService;
+    private final NoteIngestQueue noteIngestQueue;
+    private final ObjectMapper objectMapper;
 
-    public NoteController(NoteService noteService) {
+    public NoteController(NoteService noteService, NoteIngestQueue noteIngestQueue, ObjectMapper objectMapper) {
         this.noteService = noteService;
+        this.noteIngestQueue = noteIngestQueue;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -31,22 +74,97 @@ public class NoteController {
         Note createdNote = noteService.createNote(note);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdNote);
     }
-//  this endpoint was created only for testing purposes during development of API
-    @GetMapping("/all")
-    public List<Note> getAllNotes(){
-        return noteService.getAllNotes();
+//  write-behind create: 202 with the id once queued, the note is readable after its batch is stored
+    @PostMapping("/async")
+    public ResponseEntity<Map<String, String>> createNoteAsync(@Valid @RequestBody Note note) {
+        String id = noteIngestQueue.submit(note);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/notes/" + id))
+                .body(Map.of("id", id));
+    }
+//  bulk endpoints validate every item on its own and report per-item results
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResult> createNotes(@RequestBody List<Note> notes) {
+        return ResponseEntity.ok(noteService.createNotes(notes));
     }
 
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkResult> updateNotes(@RequestBody List<Note> notes) {
+        return ResponseEntity.ok(noteService.updateNotes(notes));
+    }
+
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<BulkResult> deleteNotes(@RequestBody List<String> ids) {
+        return ResponseEntity.ok(noteService.deleteNotes(ids));
+    }
+
+//  one JSON note per line, written while the database cursor is read so memory use stays flat
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportNotes(
+            @RequestParam(required = false) Tag tag,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            // a client disconnect fails the next write, which closes the cursor below
+            try (Stream<Note> notes = noteService.exportNotes(tag, from, to);
+                 JsonGenerator generator = writer.createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                int written = 0;
+                for (Iterator<Note> it = notes.iterator(); it.hasNext(); ) {
+                    writer.writeValue(generator, it.next());
+                    generator.writeRaw('\n');
+                    if (++written % EXPORT_FLUSH_EVERY == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+//  the entity tag is the note version and the representation, e.g. "3-json", "3-json-gz" or "3-cbor";
+//  If-None-Match is checked against the version alone, so a 304 neither loads the text nor serializes the note
     @GetMapping("/{id}")
-    public ResponseEntity<Note> getNoteById(@PathVariable String id) {
+    public ResponseEntity<?> getNoteById(@PathVariable String id, WebRequest request) {
 //        return noteService.getNoteById(id)
 //                .map(ResponseEntity::ok)
 //                .orElseGet(()->ResponseEntity.notFound().build());
-        Note note = noteService.getNoteById(id);
-        return ResponseEntity.ok(note);
+        MediaType type = responseType(request);
+        boolean gzip = MediaType.APPLICATION_JSON.equals(type) && acceptsGzip(request);
+        // whether a JSON note is sent compressed depends on its size, either coding of the version is current
+        List<String> representations = gzip ? List.of(representation(type) + GZIP, representation(type)) : representations(type);
+        Optional<ResponseEntity<Object>> notModified = notModified(id, request, representations);
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
+        if (!MediaType.APPLICATION_JSON.equals(type)) {
+            Note note = noteService.getNoteById(id);
+            return tagged(note.getVersion(), type, representations).body(note);
+        }
+        // JSON is written from the bytes cached for this version of the note
+        NoteCache.EncodedNote encoded = noteService.getEncodedNote(id, this::encode);
+        if (encoded.gzip() != null && gzip) {
+            return tagged(encoded.version(), type, representations)
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(encoded.gzip());
+        }
+        return tagged(encoded.version(), type, representations(type)).body(encoded.body());
     }
 
-    @GetMapping
+//  e.g. ?fields=title,createDate for clients that don't need the text
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getNoteFields(@PathVariable String id,
+                                                             @RequestParam Set<String> fields) {
+        return ResponseEntity.ok(noteService.getNoteFields(id, fields));
+    }
+
+//  tags, mode=slice and cursor each pick their own listing and tags replaces tag; the param
+//  conditions keep the listings apart, so a request combining them matches none and gets a 400
+    @GetMapping(params = {"!tags", "mode!=slice", "!cursor"})
     public ResponseEntity<Page<NoteDTO>> getNotes(
             @RequestParam(required = false)  Tag tag,
             @RequestParam(defaultValue = "0") @Min(0) int page,
@@ -55,18 +173,187 @@ public class NoteController {
         return ResponseEntity.ok(notes);
     }
 
+//  multi-tag filter: notes with all (default) or any of the comma separated tags
+    @GetMapping(params = {"tags", "!tag", "mode!=slice", "!cursor"})
+    public ResponseEntity<Page<NoteDTO>> getNotesByTags(
+            @RequestParam Set<Tag> tags,
+            @RequestParam(defaultValue = "all") String match,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "5") @Min(1) @Max(10) int size) {
+        return ResponseEntity.ok(noteService.getNotes(tags, TagMatch.from(match), page, size));
+    }
+
+//  same pages without a total count, only tells whether there is a next page
+    @GetMapping(params = {"mode=slice", "!tags", "!cursor"})
+    public ResponseEntity<SlicePage<NoteDTO>> getNotesSlice(
+            @RequestParam(required = false) Tag tag,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "5") @Min(1) @Max(10) int size) {
+        return ResponseEntity.ok(noteService.getNotesSlice(tag, page, size));
+    }
+
+//  keyset pagination, start with an empty cursor and pass the returned "next" token
+    @GetMapping(params = {"cursor", "!tags", "mode!=slice"})
+    public ResponseEntity<CursorPage<NoteDTO>> getNotesByCursor(
+            @RequestParam(required = false) Tag tag,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "5") @Min(1) @Max(10) int size) {
+        return ResponseEntity.ok(noteService.getNotes(tag, cursor, size));
+    }
+
+//  full-text search over note text, words are ANDed unless separated by OR
+    @GetMapping("/search")
+    public ResponseEntity<Page<NoteDTO>> searchNotes(
+            @RequestParam @NotBlank(message = "Search query cannot be empty") String q,
+            @RequestParam(required = false) Tag tag,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "5") @Min(1) @Max(10) int size) {
+        return ResponseEntity.ok(noteService.searchNotes(q, tag, page, size));
+    }
+
+//  corpus-wide word statistics, approximate: counts come from fixed-size sketches
+    @GetMapping("/stats/top-words")
+    public ResponseEntity<List<WordCount>> getTopWords(
+            @RequestParam(required = false) Tag tag,
+            @RequestParam(defaultValue = "10") @Min(1) int k) {
+        return ResponseEntity.ok(noteService.getTopWords(tag, k));
+    }
+
+    @GetMapping("/stats/distinct-words")
+    public ResponseEntity<Map<String, Long>> getDistinctWords(@RequestParam(required = false) Tag tag) {
+        return ResponseEntity.ok(Map.of("distinctWords", noteService.getDistinctWords(tag)));
+    }
+
+//  number of notes overall, without tags and per tag
+    @GetMapping("/facets")
+    public ResponseEntity<TagFacets> getFacets() {
+        return ResponseEntity.ok(noteService.getFacets());
+    }
+
+//  stats are rewritten with every version of the note and share its entity tag
     @GetMapping("/{id}/stats")
-    public ResponseEntity<Map<String, Long>> getNoteStats(@PathVariable String id) {
-        return noteService.countStat(id)
-                .map(ResponseEntity::ok)
+    public ResponseEntity<Map<String, Long>> getNoteStats(@PathVariable String id, WebRequest request) {
+        MediaType type = responseType(request);
+        List<String> representations = representations(type);
+        Optional<ResponseEntity<Map<String, Long>>> notModified = notModified(id, request, representations);
+        if (notModified.isPresent()) {
+            return notModified.get();
+        }
+        // tagged with the version the counts were computed from, not with a separately read one
+        return noteService.getStats(id)
+                .map(stats -> tagged(stats.getNoteVersion(), type, representations).body(stats.getWordCounts()))
                 .orElse(ResponseEntity.notFound().build());
     }
 
+//  304 with the tag and Vary of the 200 it stands for, when If-None-Match holds the tag of the
+//  current version in one of the representations this request can be sent
+    private <T> Optional<ResponseEntity<T>> notModified(String id, WebRequest request, List<String> representations) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null || representations.isEmpty()) {
+            return Optional.empty();
+        }
+        Long version = noteService.getNoteVersion(id).orElse(null);
+        if (version == null) {
+            return Optional.empty();
+        }
+        for (String representation : representations) {
+            String eTag = eTag(version, representation);
+            if (matchesIfNoneMatch(ifNoneMatch, eTag)) {
+                return Optional.of(ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .eTag(eTag)
+                        .header(HttpHeaders.VARY, VARY)
+                        .build());
+            }
+        }
+        return Optional.empty();
+    }
+
+//  If-None-Match compares weakly: W/ prefixes are ignored, * matches any current tag
+    private static boolean matchesIfNoneMatch(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private byte[] encode(Note note) {
+        try {
+            return objectMapper.writeValueAsBytes(note);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+//  JSON, CBOR or Smile, whichever the Accept header lists first; JSON without Accept, null when
+//  none of them is acceptable and the converters answer 406
+    private static MediaType responseType(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return MediaType.APPLICATION_JSON;
+        }
+        List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+        MimeTypeUtils.sortBySpecificity(mediaTypes);
+        return mediaTypes.stream()
+                .filter(mediaType -> !"0".equals(mediaType.getParameter("q")))
+                .flatMap(mediaType -> REPRESENTATIONS.keySet().stream().filter(mediaType::includes))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static String representation(MediaType type) {
+        return REPRESENTATIONS.get(type);
+    }
+
+    private static List<String> representations(MediaType type) {
+        return type == null ? List.of() : List.of(representation(type));
+    }
+
+    private static boolean acceptsGzip(WebRequest request) {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+//  200 for one representation of a note version, the first of representations; the content type is
+//  fixed here so the converters send the format the tag names
+    private static ResponseEntity.BodyBuilder tagged(Long version, MediaType type, List<String> representations) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(HttpHeaders.VARY, VARY);
+        if (type == null) {
+            return response;
+        }
+        response.contentType(type);
+        return version == null ? response : response.eTag(eTag(version, representations.get(0)));
+    }
+
+    private static String eTag(long version, String representation) {
+        return "\"" + version + "-" + representation + "\"";
+    }
+
     @PutMapping("/{id}")
-    public ResponseEntity<Note> updateNote(@PathVariable String id, @Valid @RequestBody Note note){
-        return noteService.updateNote(id, note)
-                .map(ResponseEntity::ok)
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<Note> updateNote(@PathVariable String id, @Valid @RequestBody Note note,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        IfMatch precondition = IfMatch.parse(ifMatch);
+        try {
+            return noteService.updateNote(id, note, precondition.version())
+                    .map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (NoSuchElementException ex) {
+            throw precondition.any() ? precondition.missing(id) : ex;
+        }
     }
 
     @DeleteMapping("/{id}")
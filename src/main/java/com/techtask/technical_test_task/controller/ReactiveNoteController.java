@@ -0,0 +1,134 @@
+package com.techtask.technical_test_task.controller;
+
+import com.techtask.technical_test_task.dto.BulkResult;
+import com.techtask.technical_test_task.dto.CursorPage;
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.dto.SlicePage;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.service.ReactiveNoteService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * WebFlux variant of {@link NoteController} for the "reactive" profile, same paths and responses.
+ */
+@RestController
+@RequestMapping("/api/notes")
+@Validated
+@Profile("reactive")
+public class ReactiveNoteController {
+
+    private final ReactiveNoteService noteService;
+
+    public ReactiveNoteController(ReactiveNoteService noteService) {
+        this.noteService = noteService;
+    }
+
+    @PostMapping
+    public Mono<ResponseEntity<Note>> createNote(@Valid @RequestBody Note note) {
+        return noteService.createNote(note)
+                .map(createdNote -> ResponseEntity.status(HttpStatus.CREATED).body(createdNote));
+    }
+
+    @PostMapping("/bulk")
+    public Mono<ResponseEntity<BulkResult>> createNotes(@RequestBody List<Note> notes) {
+        return noteService.createNotes(notes).map(ResponseEntity::ok);
+    }
+
+    @PutMapping("/bulk")
+    public Mono<ResponseEntity<BulkResult>> updateNotes(@RequestBody List<Note> notes) {
+        return noteService.updateNotes(notes).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/bulk/delete")
+    public Mono<ResponseEntity<BulkResult>> deleteNotes(@RequestBody List<String> ids) {
+        return noteService.deleteNotes(ids).map(ResponseEntity::ok);
+    }
+
+//  one JSON note per line, written as the database cursor is read and only as fast as the client reads
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Note> exportNotes(
+            @RequestParam(required = false) Tag tag,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return noteService.exportNotes(tag, from, to);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<Note>> getNoteById(@PathVariable String id) {
+        return noteService.getNoteById(id).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public Mono<ResponseEntity<Map<String, Object>>> getNoteFields(@PathVariable String id,
+                                                                   @RequestParam Set<String> fields) {
+        return noteService.getNoteFields(id, fields).map(ResponseEntity::ok);
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<Page<NoteDTO>>> getNotes(
+            @RequestParam(required = false) Tag tag,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "5") @Min(1) @Max(10) int size) {
+        return noteService.getNotes(tag, page, size).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(params = "mode=slice")
+    public Mono<ResponseEntity<SlicePage<NoteDTO>>> getNotesSlice(
+            @RequestParam(required = false) Tag tag,
+            @RequestParam(defaultValue = "0") @Min(0) int page,
+            @RequestParam(defaultValue = "5") @Min(1) @Max(10) int size) {
+        return noteService.getNotesSlice(tag, page, size).map(ResponseEntity::ok);
+    }
+
+    @GetMapping(params = "cursor")
+    public Mono<ResponseEntity<CursorPage<NoteDTO>>> getNotesByCursor(
+            @RequestParam(required = false) Tag tag,
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "5") @Min(1) @Max(10) int size) {
+        return noteService.getNotes(tag, cursor, size).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/{id}/stats")
+    public Mono<ResponseEntity<Map<String, Long>>> getNoteStats(@PathVariable String id) {
+        return noteService.countStat(id)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Note>> updateNote(@PathVariable String id, @Valid @RequestBody Note note,
+                                                 @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        IfMatch precondition = IfMatch.parse(ifMatch);
+        return noteService.updateNote(id, note, precondition.version())
+                .onErrorMap(NoSuchElementException.class, ex -> precondition.any() ? precondition.missing(id) : ex)
+                .map(ResponseEntity::ok);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteNote(@PathVariable String id) {
+        return noteService.deleteNote(id)
+                .map(deleted -> deleted
+                        ? ResponseEntity.noContent().<Void>build()
+                        : ResponseEntity.notFound().<Void>build());
+    }
+}
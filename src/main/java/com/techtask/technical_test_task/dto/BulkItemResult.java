@@ -0,0 +1,26 @@
+package com.techtask.technical_test_task.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Outcome of one item of a bulk request, {@code index} is its position in the request body.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkItemResult {
+
+    private final int index;
+    private final String id;
+    private final BulkItemStatus status;
+    private final Map<String, String> errors;
+
+    public BulkItemResult(int index, String id, BulkItemStatus status, Map<String, String> errors) {
+        this.index = index;
+        this.id = id;
+        this.status = status;
+        this.errors = errors;
+    }
+}
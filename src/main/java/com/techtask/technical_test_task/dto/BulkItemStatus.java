@@ -0,0 +1,6 @@
+package com.techtask.technical_test_task.dto;
+
+public enum BulkItemStatus {
+    CREATED, UPDATED, DELETED, INVALID, NOT_FOUND, FAILED;
+
+}
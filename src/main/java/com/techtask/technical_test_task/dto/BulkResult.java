@@ -0,0 +1,23 @@
+package com.techtask.technical_test_task.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkResult {
+
+    private final List<BulkItemResult> items;
+    private final long succeeded;
+    private final long failed;
+
+    public BulkResult(List<BulkItemResult> items) {
+        this.items = items;
+        this.succeeded = items.stream()
+                .filter(item -> item.getStatus() == BulkItemStatus.CREATED
+                        || item.getStatus() == BulkItemStatus.UPDATED
+                        || item.getStatus() == BulkItemStatus.DELETED)
+                .count();
+        this.failed = items.size() - succeeded;
+    }
+}
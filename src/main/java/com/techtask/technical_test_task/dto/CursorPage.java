@@ -0,0 +1,21 @@
+package com.techtask.technical_test_task.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code next} is an opaque token for the following
+ * page, {@code null} when there are no more results.
+ */
+@Data
+public class CursorPage<T> {
+
+    private final List<T> content;
+    private final String next;
+
+    public CursorPage(List<T> content, String next) {
+        this.content = content;
+        this.next = next;
+    }
+}
@@ -0,0 +1,24 @@
+package com.techtask.technical_test_task.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One page of a listing without a total count, {@code hasNext} tells whether another page exists.
+ */
+@Data
+public class SlicePage<T> {
+
+    private final List<T> content;
+    private final int page;
+    private final int size;
+    private final boolean hasNext;
+
+    public SlicePage(List<T> content, int page, int size, boolean hasNext) {
+        this.content = content;
+        this.page = page;
+        this.size = size;
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,24 @@
+package com.techtask.technical_test_task.dto;
+
+import com.techtask.technical_test_task.model.Tag;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * Number of notes per {@link Tag}, without any tag and overall. A note with several tags is
+ * counted under each of them.
+ */
+@Data
+public class TagFacets {
+
+    private final long total;
+    private final long untagged;
+    private final Map<Tag, Long> tags;
+
+    public TagFacets(long total, long untagged, Map<Tag, Long> tags) {
+        this.total = total;
+        this.untagged = untagged;
+        this.tags = tags;
+    }
+}
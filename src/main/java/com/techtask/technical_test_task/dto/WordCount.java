@@ -0,0 +1,18 @@
+package com.techtask.technical_test_task.dto;
+
+import lombok.Data;
+
+/**
+ * A word with its (estimated) number of occurrences.
+ */
+@Data
+public class WordCount {
+
+    private final String word;
+    private final long count;
+
+    public WordCount(String word, long count) {
+        this.word = word;
+        this.count = count;
+    }
+}
@@ -1,12 +1,19 @@
 package com.techtask.technical_test_task.exception;
 
 import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.ConstraintViolationException;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.UnsatisfiedServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
@@ -15,10 +22,18 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 
 @RestControllerAdvice
+@Profile("!reactive")
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleMethodArgumentNotValid(MethodArgumentNotValidException ex) {
+        countError(HttpStatus.BAD_REQUEST, ex);
         Map<String, String> errors = new HashMap<>();
         ex.getBindingResult().getFieldErrors().forEach(error ->
                 errors.put(error.getField(), error.getDefaultMessage())
@@ -28,21 +43,58 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(ConstraintViolationException.class)
     public ResponseEntity<Map<String, String>> handleConstraintViolation(ConstraintViolationException ex) {
+        countError(HttpStatus.BAD_REQUEST, ex);
         String message = ex.getConstraintViolations().iterator().next().getMessage();
         return ResponseEntity.badRequest()
                 .body(Map.of("error", message));
     }
 
 
+    @ExceptionHandler(InvalidNoteRequestException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidNoteRequest(InvalidNoteRequestException ex) {
+        countError(HttpStatus.BAD_REQUEST, ex);
+        String message = ex.getMessage() != null ? ex.getMessage() : "Bad Request";
+        return ResponseEntity.badRequest().body(Map.of("error", message));
+    }
+
+    // list parameters that select different listings, e.g. tags with cursor
+    @ExceptionHandler(UnsatisfiedServletRequestParameterException.class)
+    public ResponseEntity<Map<String, String>> handleUnsatisfiedParameters(UnsatisfiedServletRequestParameterException ex) {
+        countError(HttpStatus.BAD_REQUEST, ex);
+        return ResponseEntity.badRequest()
+                .body(Map.of("error", "Query parameters " + ex.getActualParams().keySet() + " cannot be combined"));
+    }
+
     @ExceptionHandler(NoSuchElementException.class)
     public ResponseEntity<Map<String, String>> handleNotFoundException(NoSuchElementException ex) {
+        countError(HttpStatus.NOT_FOUND, ex);
         Map<String, String> error = new HashMap<>();
         error.put("error", "Note not found");
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        countError(HttpStatus.PRECONDITION_FAILED, ex);
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(Map.of("error", "Note was modified by another request"));
+    }
+
+    // a client supplied id that is taken already; the database message is not passed on
+    @ExceptionHandler(DuplicateKeyException.class)
+    public ResponseEntity<Map<String, String>> handleDuplicateKey(DuplicateKeyException ex) {
+        countError(HttpStatus.CONFLICT, ex);
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Note already exists"));
+    }
+
+    @ExceptionHandler(TransientDataAccessResourceException.class)
+    public ResponseEntity<Map<String, String>> handleTransientDataAccess(TransientDataAccessResourceException ex) {
+        countError(HttpStatus.SERVICE_UNAVAILABLE, ex);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Map.of("error", "Service busy, retry later"));
+    }
+
     @ExceptionHandler(HttpMessageNotReadableException.class)
     public ResponseEntity<Map<String, String>> handleHttpMessageNotReadable(HttpMessageNotReadableException ex) {
+        countError(HttpStatus.BAD_REQUEST, ex);
         String errorMessage = "Bad Request: Check the format of your request data.";
         Throwable cause = ex.getCause();
 
@@ -59,11 +111,20 @@ public class GlobalExceptionHandler {
 
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, String>> handleGeneralException(Exception ex) {
+        countError(HttpStatus.INTERNAL_SERVER_ERROR, ex);
         Map<String, String> error = Map.of(
                 "error", "Internal Server Error",
                 "details", ex.getMessage() != null ? ex.getMessage() : "No details available."
         );
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
-}
 
+    private void countError(HttpStatus status, Exception ex) {
+        Counter.builder("notes.errors")
+                .description("Error responses by status and exception")
+                .tag("status", String.valueOf(status.value()))
+                .tag("exception", ex.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+}
@@ -0,0 +1,16 @@
+package com.techtask.technical_test_task.exception;
+
+/**
+ * A request the client has to change before it can succeed, answered with 400 and the message.
+ * Other {@link IllegalArgumentException}s are programming errors and are not shown to clients.
+ */
+public class InvalidNoteRequestException extends IllegalArgumentException {
+
+    public InvalidNoteRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidNoteRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
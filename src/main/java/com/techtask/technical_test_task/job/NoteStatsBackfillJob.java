@@ -0,0 +1,99 @@
+package com.techtask.technical_test_task.job;
+
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.NoteStats;
+import com.techtask.technical_test_task.repository.NoteRepository;
+import com.techtask.technical_test_task.repository.NoteStatsRepository;
+import com.techtask.technical_test_task.service.WordFrequencyCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Materializes {@link NoteStats} for notes stored before stats were computed on write.
+ * Runs once in the background after startup; notes that already have stats are skipped.
+ */
+@Component
+@ConditionalOnProperty(name = "notes.stats.backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class NoteStatsBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteStatsBackfillJob.class);
+
+    private final NoteRepository noteRepository;
+    private final NoteStatsRepository noteStatsRepository;
+    private final int batchSize;
+
+    public NoteStatsBackfillJob(NoteRepository noteRepository,
+                                NoteStatsRepository noteStatsRepository,
+                                @Value("${notes.stats.backfill.batch-size:500}") int batchSize) {
+        this.noteRepository = noteRepository;
+        this.noteStatsRepository = noteStatsRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            int created = backfill();
+            log.info("Note stats backfill finished, {} notes updated", created);
+        } catch (RuntimeException ex) {
+            log.warn("Note stats backfill failed, stats will be computed on first read", ex);
+        }
+    }
+
+    public int backfill() {
+        int created = 0;
+        List<Note> batch = new ArrayList<>(batchSize);
+        try (Stream<Note> notes = noteRepository.streamAllBy()) {
+            Iterator<Note> iterator = notes.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize || !iterator.hasNext()) {
+                    created += backfillBatch(batch);
+                    batch.clear();
+                }
+            }
+        }
+        return created;
+    }
+
+    private int backfillBatch(List<Note> notes) {
+        Set<String> materialized = new HashSet<>();
+        noteStatsRepository.findAllById(notes.stream().map(Note::getId).collect(Collectors.toList()))
+                .forEach(stats -> materialized.add(stats.getId()));
+
+        List<NoteStats> missing = notes.stream()
+                .filter(note -> !materialized.contains(note.getId()))
+                .map(note -> NoteStats.builder()
+                        .id(note.getId())
+                        .wordCounts(WordFrequencyCounter.count(note.getText()))
+                        .noteVersion(note.getVersion())
+                        .updateDate(LocalDateTime.now())
+                        .build())
+                .collect(Collectors.toList());
+        // a note updated since it was streamed already has stats of its newer version
+        noteStatsRepository.saveAllIfNewer(missing);
+        if (missing.isEmpty()) {
+            return 0;
+        }
+
+        // a note deleted since it was streamed had its stats removed before they were written
+        Set<String> orphaned = missing.stream().map(NoteStats::getId).collect(Collectors.toSet());
+        noteRepository.findTagsByIds(orphaned).forEach(note -> orphaned.remove(note.getId()));
+        if (!orphaned.isEmpty()) {
+            noteStatsRepository.deleteAllById(orphaned);
+        }
+        return missing.size() - orphaned.size();
+    }
+}
@@ -0,0 +1,36 @@
+package com.techtask.technical_test_task.job;
+
+import com.techtask.technical_test_task.model.TagCounts;
+import com.techtask.technical_test_task.service.NoteCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Recomputes the stored {@link TagCounts} from the notes with one aggregation, correcting
+ * increments that were lost, for example when an instance stopped before applying them.
+ */
+@Component
+@ConditionalOnProperty(name = "notes.counts.reconcile.enabled", havingValue = "true", matchIfMissing = true)
+public class TagCountsReconcileJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TagCountsReconcileJob.class);
+
+    private final NoteCounter noteCounter;
+
+    public TagCountsReconcileJob(NoteCounter noteCounter) {
+        this.noteCounter = noteCounter;
+    }
+
+    @Scheduled(initialDelayString = "${notes.counts.reconcile-interval:1h}", fixedDelayString = "${notes.counts.reconcile-interval:1h}")
+    public void reconcile() {
+        try {
+            noteCounter.reconcile();
+            log.info("Note counts reconciled");
+        } catch (RuntimeException ex) {
+            log.warn("Note counts reconcile failed, keeping the incrementally maintained counts", ex);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.techtask.technical_test_task.job;
+
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.repository.NoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stores {@link Note#getTagMask()} on notes written before the field existed, so multi-tag
+ * filters see them. Runs once in the background after startup as a single server-side update.
+ */
+@Component
+@ConditionalOnProperty(name = "notes.tag-mask.backfill.enabled", havingValue = "true", matchIfMissing = true)
+public class TagMaskBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(TagMaskBackfillJob.class);
+
+    private final NoteRepository noteRepository;
+
+    public TagMaskBackfillJob(NoteRepository noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            long updated = noteRepository.backfillTagMasks();
+            log.info("Tag mask backfill finished, {} notes updated", updated);
+        } catch (RuntimeException ex) {
+            log.warn("Tag mask backfill failed, older notes are missing from multi-tag filters", ex);
+        }
+    }
+}
@@ -1,18 +1,26 @@
 package com.techtask.technical_test_task.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.AccessType;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "notes")
+// keyset pagination: newest first, _id breaks ties between equal createDate values
+@CompoundIndex(name = "createDate_id", def = "{'createDate': -1, '_id': -1}")
+@CompoundIndex(name = "tags_createDate_id", def = "{'tags': 1, 'createDate': -1, '_id': -1}")
+@CompoundIndex(name = "tagMask_createDate", def = "{'tagMask': 1, 'createDate': -1}")
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
@@ -34,4 +42,19 @@ public class Note {
 
     @Size(max = 3, message = "Cannot have more than 3 tags")
     private List<Tag> tags;
+
+    // bumped by every update, exposed for If-Match on PUT
+    @Version
+    private Long version;
+
+    // stored next to tags so multi-tag filters are a $in on one indexed integer, see TagMatch
+    @JsonIgnore
+    @AccessType(AccessType.Type.PROPERTY)
+    public int getTagMask() {
+        return Tag.mask(tags);
+    }
+
+    public void setTagMask(int tagMask) {
+        // derived from tags, the stored value is only read by queries
+    }
 }
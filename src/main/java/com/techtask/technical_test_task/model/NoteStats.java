@@ -0,0 +1,35 @@
+package com.techtask.technical_test_task.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Word statistics of a note, materialized on every write so {@code GET /api/notes/{id}/stats}
+ * is a single lookup by id. Shares the id of the note it belongs to and records the version of
+ * the note the counts were computed from, stats of a newer version are never replaced.
+ */
+@Document(collection = "note_stats")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class NoteStats {
+
+    @Id
+    private String id;
+
+    // ordered by descending count, as returned by the stats endpoint
+    private Map<String, Long> wordCounts;
+
+    // null for stats of notes stored before notes were versioned
+    private Long noteVersion;
+
+    private LocalDateTime updateDate;
+}
@@ -1,6 +1,25 @@
 package com.techtask.technical_test_task.model;
 
+import java.util.Collection;
+import java.util.Objects;
+
 public enum Tag {
+    // the bit of a tag is its position, stored in Note.tagMask: only ever append new tags
     BUSINESS, PERSONAL, IMPORTANT;
 
+    public int bit() {
+        return 1 << ordinal();
+    }
+
+    public static int mask(Collection<Tag> tags) {
+        int mask = 0;
+        if (tags != null) {
+            for (Tag tag : tags) {
+                if (tag != null) {
+                    mask |= tag.bit();
+                }
+            }
+        }
+        return mask;
+    }
 }
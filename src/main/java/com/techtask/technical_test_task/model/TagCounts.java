@@ -0,0 +1,33 @@
+package com.techtask.technical_test_task.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Map;
+
+/**
+ * Note totals shared by all instances: overall, without any tag and per {@link Tag} name.
+ * A single document, moved with {@code $inc} on every write and recomputed by the reconcile job.
+ */
+@Document(collection = "note_counters")
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+public class TagCounts {
+
+    public static final String ID = "tags";
+
+    @Id
+    private String id;
+
+    private long total;
+
+    private long untagged;
+
+    private Map<String, Long> tags;
+}
@@ -0,0 +1,37 @@
+package com.techtask.technical_test_task.model;
+
+import com.techtask.technical_test_task.exception.InvalidNoteRequestException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How a multi-tag filter matches {@link Note#getTagMask()}: notes carrying all of the requested
+ * tags, or at least one of them. With few tags every matching mask can be listed, so the filter
+ * is an equality {@code $in} on the mask instead of a bitwise operator the index cannot serve.
+ */
+public enum TagMatch {
+    ALL, ANY;
+
+    public static TagMatch from(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidNoteRequestException("Invalid value '" + value + "' for match. Must be one of: [all, any]");
+        }
+    }
+
+    /**
+     * Every tag mask that satisfies this match for the {@code requested} tag mask.
+     */
+    public List<Integer> masks(int requested) {
+        List<Integer> masks = new ArrayList<>();
+        for (int mask = 0; mask < 1 << Tag.values().length; mask++) {
+            if (this == ALL ? (mask & requested) == requested : (mask & requested) != 0) {
+                masks.add(mask);
+            }
+        }
+        return masks;
+    }
+}
@@ -0,0 +1,136 @@
+package com.techtask.technical_test_task.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.util.function.SingletonSupplier;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Caps concurrent blocking repository calls at the MongoDB connection pool size.
+ * <p>
+ * With virtual threads (the {@code virtual} profile) every request gets its own thread, so
+ * thousands of them can reach the driver at once and pile up in its pool wait queue. A fair
+ * semaphore in front of the repositories parks them cheaply instead and fails with a 503 after
+ * {@code notes.mongo.acquire-timeout}. Cursor-backed {@link Stream} results hold their permit
+ * until the stream is closed. Permits are re-entrant per thread: a call made while the thread
+ * already holds one, such as a lookup per batch read from a stream, runs on that permit instead
+ * of waiting for another, so a thread never waits on permits it holds itself. Time spent waiting
+ * for a permit is recorded as {@code notes.mongo.permit.wait}.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!inmemory")
+public class MongoConcurrencyLimiter {
+
+    @Bean
+    MongoClientSettingsBuilderCustomizer notesMongoPoolSize(@Value("${notes.mongo.max-pool-size:100}") int maxPoolSize) {
+        return settings -> settings.applyToConnectionPoolSettings(pool -> pool.maxSize(maxPoolSize));
+    }
+
+    @Bean
+    static BeanPostProcessor notesRepositoryLimiter(
+            @Value("${notes.mongo.max-pool-size:100}") int maxPoolSize,
+            @Value("${notes.mongo.acquire-timeout:5s}") Duration acquireTimeout,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        // resolved on the first repository call, a post-processor must not initialize the registry early
+        Supplier<Timer> waitTimer = SingletonSupplier.of(() -> Timer.builder("notes.mongo.permit.wait")
+                .description("Time blocking repository calls wait for a MongoDB connection permit")
+                .register(meterRegistry.getObject()));
+        MethodInterceptor limiter = new RepositoryPermitInterceptor(new Semaphore(maxPoolSize, true), acquireTimeout, waitTimer);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof Repository<?, ?>) || bean instanceof ReactiveCrudRepository<?, ?>) {
+                    return bean;
+                }
+                if (bean instanceof Advised advised && !advised.isFrozen()) {
+                    advised.addAdvice(0, limiter);
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.addAdvice(limiter);
+                return proxyFactory.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+
+    static class RepositoryPermitInterceptor implements MethodInterceptor {
+
+        private final Semaphore permits;
+        private final long acquireTimeoutNanos;
+        private final Supplier<Timer> waitTimer;
+        // calls and open streams of the current thread that run on its permit
+        private final ThreadLocal<AtomicInteger> holds = ThreadLocal.withInitial(AtomicInteger::new);
+
+        RepositoryPermitInterceptor(Semaphore permits, Duration acquireTimeout, Supplier<Timer> waitTimer) {
+            this.permits = permits;
+            this.acquireTimeoutNanos = acquireTimeout.toNanos();
+            this.waitTimer = waitTimer;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            if (invocation.getMethod().getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            AtomicInteger held = holds.get();
+            if (held.get() == 0) {
+                acquire();
+            }
+            held.incrementAndGet();
+            boolean release = true;
+            try {
+                Object result = invocation.proceed();
+                if (result instanceof Stream<?> stream) {
+                    release = false;
+                    // the count of the opening thread, even when another thread closes the stream
+                    return stream.onClose(() -> release(held));
+                }
+                return result;
+            } finally {
+                if (release) {
+                    release(held);
+                }
+            }
+        }
+
+        private void release(AtomicInteger held) {
+            if (held.decrementAndGet() == 0) {
+                permits.release();
+            }
+        }
+
+        private void acquire() {
+            long start = System.nanoTime();
+            try {
+                boolean acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+                waitTimer.get().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (!acquired) {
+                    throw new TransientDataAccessResourceException("Timed out waiting for a MongoDB connection");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new TransientDataAccessResourceException("Interrupted while waiting for a MongoDB connection", e);
+            }
+        }
+    }
+}
@@ -1,16 +1,45 @@
 package com.techtask.technical_test_task.repository;
 
+import com.techtask.technical_test_task.dto.NoteDTO;
 import com.techtask.technical_test_task.model.Note;
 import com.techtask.technical_test_task.model.Tag;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface NoteRepository extends MongoRepository<Note, String> {
+public interface NoteRepository extends MongoRepository<Note, String>, NoteRepositoryCustom {
     Page<Note> findByTags(Tag tag, Pageable pageable);
 
+    // DTO projections, Mongo only returns _id, title and createDate
+    Page<NoteDTO> findSummariesBy(Pageable pageable);
+
+    Page<NoteDTO> findSummariesByTags(Tag tag, Pageable pageable);
+
+    List<NoteDTO> findSummariesByIdIn(Collection<String> ids);
+
+    // multi-tag filters, masks come from TagMatch
+    Page<NoteDTO> findSummariesByTagMaskIn(Collection<Integer> tagMasks, Pageable pageable);
+
+    // no count query, one extra row is read to know whether there is a next slice
+    Slice<NoteDTO> findSliceBy(Pageable pageable);
+
+    Slice<NoteDTO> findSliceByTags(Tag tag, Pageable pageable);
+
+    long countByTags(Tag tag);
+
+    Optional<Note> findFirstByOrderByCreateDateAsc();
+
+    Optional<Note> findFirstByOrderByCreateDateDesc();
+
+    // cursor-backed, the caller must close the stream
+    Stream<Note> streamAllBy();
+
 }
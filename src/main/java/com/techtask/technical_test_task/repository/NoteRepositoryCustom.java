@@ -0,0 +1,83 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Queries of {@link NoteRepository} that are not expressible as derived queries.
+ */
+public interface NoteRepositoryCustom {
+
+    /**
+     * Keyset page ordered by {@code createDate DESC, _id DESC}: notes strictly after the given
+     * position, or from the newest note when {@code createDate} is {@code null}.
+     */
+    List<NoteDTO> findSummariesAfter(Tag tag, LocalDateTime createDate, String id, int limit);
+
+    /**
+     * Loads a note with only the given fields populated, {@code id} is always included.
+     */
+    Optional<Note> findByIdWithFields(String id, Collection<String> fields);
+
+    /**
+     * Cursor over notes matching the optional filters, fetched {@code batchSize} documents
+     * at a time. The caller must close the stream.
+     */
+    Stream<Note> streamNotes(Tag tag, LocalDateTime from, LocalDateTime to, int batchSize);
+
+    /**
+     * Notes with the given ids, only {@code id} and {@code tags} are populated.
+     */
+    List<Note> findTagsByIds(Collection<String> ids);
+
+    /**
+     * Sets title, text and tags of the note and bumps its version in one atomic find-and-modify.
+     * With a non-null {@code expectedVersion} only that version of the note is updated.
+     *
+     * @return the note as it was before the update, empty when no note matched
+     */
+    Optional<Note> findAndUpdate(String id, Long expectedVersion, Note note);
+
+    /**
+     * Deletes the note in one atomic find-and-remove.
+     *
+     * @return the deleted note with only {@code id}, {@code tags} and {@code text} populated
+     */
+    Optional<Note> findAndRemoveById(String id);
+
+    /**
+     * Stores {@code tagMask} on notes written before it existed.
+     *
+     * @return number of notes updated
+     */
+    long backfillTagMasks();
+
+    /**
+     * Inserts all notes in one unordered bulk write.
+     *
+     * @return error message by position in {@code notes} for the inserts that failed
+     */
+    Map<Integer, String> insertUnordered(List<Note> notes);
+
+    /**
+     * Sets title, text and tags of every note by id in one unordered bulk write.
+     *
+     * @return error message by position in {@code notes} for the updates that failed
+     */
+    Map<Integer, String> updateUnordered(List<Note> notes);
+
+    /**
+     * Deletes the notes with the given ids in one unordered bulk write.
+     *
+     * @return error message by position in {@code ids} for the deletes that failed
+     */
+    Map<Integer, String> deleteUnordered(List<String> ids);
+}
@@ -0,0 +1,206 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+class NoteRepositoryImpl implements NoteRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public NoteRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<NoteDTO> findSummariesAfter(Tag tag, LocalDateTime createDate, String id, int limit) {
+        // projecting into NoteDTO only fetches id, title and createDate
+        return mongoTemplate.query(Note.class)
+                .as(NoteDTO.class)
+                .matching(summariesAfter(tag, createDate, id, limit))
+                .all();
+    }
+
+    @Override
+    public Optional<Note> findByIdWithFields(String id, Collection<String> fields) {
+        return mongoTemplate.query(Note.class)
+                .matching(byIdWithFields(id, fields))
+                .one();
+    }
+
+    @Override
+    public Stream<Note> streamNotes(Tag tag, LocalDateTime from, LocalDateTime to, int batchSize) {
+        return mongoTemplate.stream(export(tag, from, to, batchSize), Note.class);
+    }
+
+    @Override
+    public List<Note> findTagsByIds(Collection<String> ids) {
+        return mongoTemplate.find(tagsByIds(ids), Note.class);
+    }
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<Note> notes) {
+        return execute(bulkOps().insert(notes));
+    }
+
+    @Override
+    public Optional<Note> findAndUpdate(String id, Long expectedVersion, Note note) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        // the previous state carries the old tags, the new state is fully known from it
+        return Optional.ofNullable(mongoTemplate.findAndModify(
+                new Query(criteria),
+                contentUpdate(note),
+                FindAndModifyOptions.options().returnNew(false),
+                Note.class));
+    }
+
+    @Override
+    public Optional<Note> findAndRemoveById(String id) {
+        Query query = new Query(Criteria.where("id").is(id));
+        query.fields().include("tags", "text");
+        return Optional.ofNullable(mongoTemplate.findAndRemove(query, Note.class));
+    }
+
+    @Override
+    public Map<Integer, String> updateUnordered(List<Note> notes) {
+        BulkOperations operations = bulkOps();
+        for (Note note : notes) {
+            operations.updateOne(
+                    new Query(Criteria.where("id").is(note.getId())),
+                    contentUpdate(note));
+        }
+        return execute(operations);
+    }
+
+    @Override
+    public Map<Integer, String> deleteUnordered(List<String> ids) {
+        BulkOperations operations = bulkOps();
+        for (String id : ids) {
+            operations.remove(new Query(Criteria.where("id").is(id)));
+        }
+        return execute(operations);
+    }
+
+    @Override
+    public long backfillTagMasks() {
+        // server side, in one pass: tagMask = sum of the bits of the tags the note carries
+        List<Object> bits = new ArrayList<>();
+        for (Tag tag : Tag.values()) {
+            bits.add(new Document("$cond", List.of(
+                    new Document("$in", List.of(tag.name(), new Document("$ifNull", List.of("$tags", List.of())))),
+                    tag.bit(),
+                    0)));
+        }
+        AggregationUpdate update = AggregationUpdate.update()
+                .set("tagMask").toValue((AggregationExpression) context -> new Document("$sum", bits));
+        return mongoTemplate.updateMulti(new Query(Criteria.where("tagMask").exists(false)), update, Note.class)
+                .getModifiedCount();
+    }
+
+    static Query summariesAfter(Tag tag, LocalDateTime createDate, String id, int limit) {
+        Criteria criteria = new Criteria();
+        if (tag != null) {
+            criteria.and("tags").is(tag);
+        }
+        if (createDate != null) {
+            // range predicate on the (createDate, _id) index instead of skip
+            criteria.orOperator(
+                    Criteria.where("createDate").lt(createDate),
+                    Criteria.where("createDate").is(createDate).and("_id").lt(toObjectId(id)));
+        }
+        return new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "createDate", "_id"))
+                .limit(limit);
+    }
+
+    static Query byIdWithFields(String id, Collection<String> fields) {
+        Query query = new Query(Criteria.where("id").is(id));
+        query.fields().include(fields.toArray(String[]::new));
+        return query;
+    }
+
+    static Query export(Tag tag, LocalDateTime from, LocalDateTime to, int batchSize) {
+        Criteria criteria = new Criteria();
+        if (tag != null) {
+            criteria.and("tags").is(tag);
+        }
+        if (from != null || to != null) {
+            Criteria createDate = criteria.and("createDate");
+            if (from != null) {
+                createDate.gte(from);
+            }
+            if (to != null) {
+                createDate.lt(to);
+            }
+        }
+        return new Query(criteria).cursorBatchSize(batchSize);
+    }
+
+    static Query tagsByIds(Collection<String> ids) {
+        Query query = new Query(Criteria.where("id").in(ids));
+        query.fields().include("tags");
+        return query;
+    }
+
+    // error message by position of the failed writes
+    static Map<Integer, String> failures(List<BulkWriteError> errors) {
+        Map<Integer, String> failures = new HashMap<>();
+        for (BulkWriteError error : errors) {
+            failures.put(error.getIndex(), error.getMessage());
+        }
+        return failures;
+    }
+
+    // user editable fields, every change moves the version on
+    static Update contentUpdate(Note note) {
+        return new Update()
+                .set("title", note.getTitle())
+                .set("text", note.getText())
+                .set("tags", note.getTags())
+                .set("tagMask", note.getTagMask())
+                .inc("version", 1);
+    }
+
+    private BulkOperations bulkOps() {
+        // unordered: the server carries on after a failed item
+        return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+    }
+
+    private static Map<Integer, String> execute(BulkOperations operations) {
+        try {
+            operations.execute();
+            return Map.of();
+        } catch (BulkOperationException ex) {
+            return failures(ex.getErrors());
+        }
+    }
+
+    private static Object toObjectId(String id) {
+        return ObjectId.isValid(id) ? new ObjectId(id) : id;
+    }
+}
@@ -0,0 +1,25 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.model.NoteStats;
+
+import java.util.List;
+
+/**
+ * Writes of {@link NoteStats} that keep the stats of the newest note version, whatever order
+ * concurrent writers finish in.
+ */
+public interface NoteStatsRepositoryCustom {
+
+    /**
+     * Stores {@code stats} unless the stored stats were computed from the same or a newer version
+     * of the note, in one conditional upsert.
+     *
+     * @return whether {@code stats} were stored
+     */
+    boolean saveIfNewer(NoteStats stats);
+
+    /**
+     * {@link #saveIfNewer} for every element, in one unordered bulk write.
+     */
+    void saveAllIfNewer(List<NoteStats> stats);
+}
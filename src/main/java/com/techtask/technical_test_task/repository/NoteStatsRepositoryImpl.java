@@ -0,0 +1,76 @@
+package com.techtask.technical_test_task.repository;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.result.UpdateResult;
+import com.techtask.technical_test_task.model.NoteStats;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+
+class NoteStatsRepositoryImpl implements NoteStatsRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public NoteStatsRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean saveIfNewer(NoteStats stats) {
+        try {
+            UpdateResult result = mongoTemplate.upsert(olderThan(stats), statsUpdate(stats), NoteStats.class);
+            return result.getMatchedCount() > 0 || result.getUpsertedId() != null;
+        } catch (DuplicateKeyException ex) {
+            // stats of the same or a newer version exist, so the upsert tried to insert a second document
+            return false;
+        }
+    }
+
+    @Override
+    public void saveAllIfNewer(List<NoteStats> stats) {
+        if (stats.isEmpty()) {
+            return;
+        }
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NoteStats.class);
+        for (NoteStats item : stats) {
+            operations.upsert(olderThan(item), statsUpdate(item));
+        }
+        try {
+            operations.execute();
+        } catch (BulkOperationException ex) {
+            if (!onlyDuplicateKeys(ex.getErrors())) {
+                throw ex;
+            }
+        }
+    }
+
+    // upserts that found stats of the same or a newer version
+    static boolean onlyDuplicateKeys(List<BulkWriteError> errors) {
+        return errors.stream().allMatch(error -> ErrorCategory.fromErrorCode(error.getCode()) == ErrorCategory.DUPLICATE_KEY);
+    }
+
+    // the stored stats of this note, if computed from an older version or before versioning
+    static Query olderThan(NoteStats stats) {
+        Criteria criteria = Criteria.where("id").is(stats.getId());
+        if (stats.getNoteVersion() == null) {
+            return new Query(criteria.and("noteVersion").is(null));
+        }
+        return new Query(criteria.orOperator(
+                Criteria.where("noteVersion").lt(stats.getNoteVersion()),
+                Criteria.where("noteVersion").is(null)));
+    }
+
+    static Update statsUpdate(NoteStats stats) {
+        return new Update()
+                .set("wordCounts", stats.getWordCounts())
+                .set("noteVersion", stats.getNoteVersion())
+                .set("updateDate", stats.getUpdateDate());
+    }
+}
@@ -0,0 +1,23 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Non-blocking counterpart of {@link NoteRepository} used by the "reactive" profile.
+ */
+@Repository
+public interface ReactiveNoteRepository extends ReactiveMongoRepository<Note, String>, ReactiveNoteRepositoryCustom {
+
+    Flux<NoteDTO> findSummariesBy(Pageable pageable);
+
+    Flux<NoteDTO> findSummariesByTags(Tag tag, Pageable pageable);
+
+    Mono<Long> countByTags(Tag tag);
+}
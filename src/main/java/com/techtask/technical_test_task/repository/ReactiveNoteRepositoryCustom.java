@@ -0,0 +1,68 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Queries of {@link ReactiveNoteRepository} that are not expressible as derived queries.
+ */
+public interface ReactiveNoteRepositoryCustom {
+
+    /**
+     * Same as {@link NoteRepositoryCustom#findSummariesAfter}.
+     */
+    Flux<NoteDTO> findSummariesAfter(Tag tag, LocalDateTime createDate, String id, int limit);
+
+    /**
+     * Up to {@code limit} summaries, newest first, skipping the first {@code offset}.
+     */
+    Flux<NoteDTO> findSummaries(Tag tag, long offset, int limit);
+
+    /**
+     * Same as {@link NoteRepositoryCustom#findByIdWithFields}.
+     */
+    Mono<Note> findByIdWithFields(String id, Collection<String> fields);
+
+    /**
+     * Same as {@link NoteRepositoryCustom#streamNotes}, cancelling the subscription closes the cursor.
+     */
+    Flux<Note> streamNotes(Tag tag, LocalDateTime from, LocalDateTime to, int batchSize);
+
+    /**
+     * Same as {@link NoteRepositoryCustom#findTagsByIds}.
+     */
+    Flux<Note> findTagsByIds(Collection<String> ids);
+
+    /**
+     * Same as {@link NoteRepositoryCustom#findAndUpdate}.
+     */
+    Mono<Note> findAndUpdate(String id, Long expectedVersion, Note note);
+
+    /**
+     * Same as {@link NoteRepositoryCustom#findAndRemoveById}.
+     */
+    Mono<Note> findAndRemoveById(String id);
+
+    /**
+     * Same as {@link NoteRepositoryCustom#insertUnordered}.
+     */
+    Mono<Map<Integer, String>> insertUnordered(List<Note> notes);
+
+    /**
+     * Same as {@link NoteRepositoryCustom#updateUnordered}.
+     */
+    Mono<Map<Integer, String>> updateUnordered(List<Note> notes);
+
+    /**
+     * Same as {@link NoteRepositoryCustom#deleteUnordered}.
+     */
+    Mono<Map<Integer, String>> deleteUnordered(List<String> ids);
+}
@@ -0,0 +1,133 @@
+package com.techtask.technical_test_task.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+class ReactiveNoteRepositoryImpl implements ReactiveNoteRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactiveNoteRepositoryImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Flux<NoteDTO> findSummariesAfter(Tag tag, LocalDateTime createDate, String id, int limit) {
+        return mongoTemplate.query(Note.class)
+                .as(NoteDTO.class)
+                .matching(NoteRepositoryImpl.summariesAfter(tag, createDate, id, limit))
+                .all();
+    }
+
+    @Override
+    public Flux<NoteDTO> findSummaries(Tag tag, long offset, int limit) {
+        Query query = new Query(tag == null ? new Criteria() : Criteria.where("tags").is(tag))
+                .with(Sort.by(Sort.Direction.DESC, "createDate"))
+                .skip(offset)
+                .limit(limit);
+        return mongoTemplate.query(Note.class)
+                .as(NoteDTO.class)
+                .matching(query)
+                .all();
+    }
+
+    @Override
+    public Mono<Note> findByIdWithFields(String id, Collection<String> fields) {
+        return mongoTemplate.query(Note.class)
+                .matching(NoteRepositoryImpl.byIdWithFields(id, fields))
+                .one();
+    }
+
+    @Override
+    public Flux<Note> streamNotes(Tag tag, LocalDateTime from, LocalDateTime to, int batchSize) {
+        return mongoTemplate.find(NoteRepositoryImpl.export(tag, from, to, batchSize), Note.class);
+    }
+
+    @Override
+    public Flux<Note> findTagsByIds(Collection<String> ids) {
+        return mongoTemplate.find(NoteRepositoryImpl.tagsByIds(ids), Note.class);
+    }
+
+    @Override
+    public Mono<Note> findAndUpdate(String id, Long expectedVersion, Note note) {
+        Criteria criteria = Criteria.where("id").is(id);
+        if (expectedVersion != null) {
+            criteria.and("version").is(expectedVersion);
+        }
+        return mongoTemplate.findAndModify(
+                new Query(criteria),
+                NoteRepositoryImpl.contentUpdate(note),
+                FindAndModifyOptions.options().returnNew(false),
+                Note.class);
+    }
+
+    @Override
+    public Mono<Note> findAndRemoveById(String id) {
+        Query query = new Query(Criteria.where("id").is(id));
+        query.fields().include("tags", "text");
+        return mongoTemplate.findAndRemove(query, Note.class);
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> insertUnordered(List<Note> notes) {
+        return execute(bulkOps().insert(notes));
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> updateUnordered(List<Note> notes) {
+        ReactiveBulkOperations operations = bulkOps();
+        for (Note note : notes) {
+            operations.updateOne(
+                    new Query(Criteria.where("id").is(note.getId())),
+                    NoteRepositoryImpl.contentUpdate(note));
+        }
+        return execute(operations);
+    }
+
+    @Override
+    public Mono<Map<Integer, String>> deleteUnordered(List<String> ids) {
+        ReactiveBulkOperations operations = bulkOps();
+        for (String id : ids) {
+            operations.remove(new Query(Criteria.where("id").is(id)));
+        }
+        return execute(operations);
+    }
+
+    private ReactiveBulkOperations bulkOps() {
+        return mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Note.class);
+    }
+
+    // failed items come back as a translated exception, a duplicate key one when any item hit a unique index
+    private static Mono<Map<Integer, String>> execute(ReactiveBulkOperations operations) {
+        return operations.execute()
+                .<Map<Integer, String>>thenReturn(Map.of())
+                .onErrorResume(ex -> {
+                    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+                        if (cause instanceof BulkOperationException bulk) {
+                            return Mono.just(NoteRepositoryImpl.failures(bulk.getErrors()));
+                        }
+                        if (cause instanceof MongoBulkWriteException bulk) {
+                            return Mono.just(NoteRepositoryImpl.failures(bulk.getWriteErrors()));
+                        }
+                    }
+                    return Mono.error(ex);
+                });
+    }
+}
@@ -0,0 +1,10 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.model.NoteStats;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ReactiveNoteStatsRepository extends ReactiveMongoRepository<NoteStats, String>, ReactiveNoteStatsRepositoryCustom {
+
+}
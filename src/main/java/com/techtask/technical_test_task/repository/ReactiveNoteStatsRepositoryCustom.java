@@ -0,0 +1,25 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.model.NoteStats;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link NoteStatsRepositoryCustom}.
+ */
+public interface ReactiveNoteStatsRepositoryCustom {
+
+    /**
+     * Stores {@code stats} unless the stored stats were computed from the same or a newer version
+     * of the note.
+     *
+     * @return whether {@code stats} were stored
+     */
+    Mono<Boolean> saveIfNewer(NoteStats stats);
+
+    /**
+     * {@link #saveIfNewer} for every element, in one unordered bulk write.
+     */
+    Mono<Void> saveAllIfNewer(List<NoteStats> stats);
+}
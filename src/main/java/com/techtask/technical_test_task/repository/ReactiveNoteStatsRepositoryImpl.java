@@ -0,0 +1,52 @@
+package com.techtask.technical_test_task.repository;
+
+import com.mongodb.MongoBulkWriteException;
+import com.techtask.technical_test_task.model.NoteStats;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+class ReactiveNoteStatsRepositoryImpl implements ReactiveNoteStatsRepositoryCustom {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    public ReactiveNoteStatsRepositoryImpl(ReactiveMongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Mono<Boolean> saveIfNewer(NoteStats stats) {
+        return mongoTemplate.upsert(NoteStatsRepositoryImpl.olderThan(stats), NoteStatsRepositoryImpl.statsUpdate(stats), NoteStats.class)
+                .map(result -> result.getMatchedCount() > 0 || result.getUpsertedId() != null)
+                .onErrorReturn(DuplicateKeyException.class, false);
+    }
+
+    @Override
+    public Mono<Void> saveAllIfNewer(List<NoteStats> stats) {
+        if (stats.isEmpty()) {
+            return Mono.empty();
+        }
+        ReactiveBulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, NoteStats.class);
+        for (NoteStats item : stats) {
+            operations.upsert(NoteStatsRepositoryImpl.olderThan(item), NoteStatsRepositoryImpl.statsUpdate(item));
+        }
+        return operations.execute()
+                .then()
+                .onErrorResume(ex -> {
+                    for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+                        if (cause instanceof BulkOperationException bulk) {
+                            return NoteStatsRepositoryImpl.onlyDuplicateKeys(bulk.getErrors()) ? Mono.empty() : Mono.error(ex);
+                        }
+                        if (cause instanceof MongoBulkWriteException bulk) {
+                            return NoteStatsRepositoryImpl.onlyDuplicateKeys(bulk.getWriteErrors()) ? Mono.empty() : Mono.error(ex);
+                        }
+                    }
+                    return Mono.error(ex);
+                });
+    }
+}
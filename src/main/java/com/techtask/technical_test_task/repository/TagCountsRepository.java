@@ -0,0 +1,10 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.model.TagCounts;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface TagCountsRepository extends MongoRepository<TagCounts, String>, TagCountsRepositoryCustom {
+
+}
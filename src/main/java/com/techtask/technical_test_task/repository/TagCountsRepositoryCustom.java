@@ -0,0 +1,22 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.model.TagCounts;
+
+/**
+ * Atomic updates and recomputation of the {@link TagCounts} document.
+ */
+public interface TagCountsRepositoryCustom {
+
+    /**
+     * Adds every count of {@code delta} to the stored document in one {@code $inc}, creating it
+     * when missing.
+     */
+    void increment(TagCounts delta);
+
+    /**
+     * Counts the stored notes with an aggregation over the {@code notes} collection.
+     *
+     * @return the counts, without id
+     */
+    TagCounts countFromNotes();
+}
@@ -0,0 +1,66 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.model.TagCounts;
+import org.bson.Document;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+class TagCountsRepositoryImpl implements TagCountsRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public TagCountsRepositoryImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void increment(TagCounts delta) {
+        Update update = new Update()
+                .inc("total", delta.getTotal())
+                .inc("untagged", delta.getUntagged());
+        delta.getTags().forEach((tag, count) -> update.inc("tags." + tag, count));
+        mongoTemplate.upsert(new Query(Criteria.where("id").is(TagCounts.ID)), update, TagCounts.class);
+    }
+
+    @Override
+    public TagCounts countFromNotes() {
+        // one group per distinct tag set, at most a few dozen rows whatever the number of notes
+        AggregationExpression distinctTags = context -> new Document("$setUnion",
+                List.of(new Document("$ifNull", List.of("$tags", List.of())), List.of()));
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.project().and(distinctTags).as("tags"),
+                Aggregation.group("tags").count().as("notes"));
+
+        long total = 0;
+        long untagged = 0;
+        Map<String, Long> perTag = new HashMap<>();
+        for (Tag tag : Tag.values()) {
+            perTag.put(tag.name(), 0L);
+        }
+        for (Document group : mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Note.class), Document.class)) {
+            long notes = ((Number) group.get("notes")).longValue();
+            total += notes;
+            boolean tagged = false;
+            for (Object tag : group.getList("_id", Object.class, List.of())) {
+                if (tag instanceof String name && perTag.containsKey(name)) {
+                    perTag.merge(name, notes, Long::sum);
+                    tagged = true;
+                }
+            }
+            if (!tagged) {
+                untagged += notes;
+            }
+        }
+        return TagCounts.builder().total(total).untagged(untagged).tags(perTag).build();
+    }
+}
@@ -0,0 +1,581 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.model.TagCounts;
+import com.techtask.technical_test_task.repository.NoteRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.*;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * {@link NoteRepository} held in memory, for running the web and service layers without MongoDB.
+ * <p>
+ * Notes live in slots of an array; the {@code (createDate, _id)} index and one index per
+ * {@link Tag} are sorted {@code int} arrays of slot numbers. A page is a window of positions in
+ * one of them, read in O(page size) whatever the offset, and keyset pages and date ranges start
+ * at a binary search. New notes carry the latest createDate and are appended; inserting in the
+ * middle, deleting or moving a note between tag indexes shifts the tail of the arrays.
+ * Multi-tag filters scan the createDate index. Versions follow Spring Data: saves with a stale
+ * version fail with {@link OptimisticLockingFailureException}.
+ */
+@Repository
+@Profile("inmemory & !logstore")
+class InMemoryNoteRepository extends InMemoryRepository<Note> implements NoteRepository {
+
+    private static final Comparator<Note> BY_CREATE_DATE = Comparator
+            .comparing(Note::getCreateDate, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(Note::getId, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+
+    private static final Set<String> SORTABLE = Set.of("createDate", "id", "_id");
+
+    private Note[] slots = new Note[64];
+    private int usedSlots;
+    private int[] freeSlots = new int[16];
+    private int freeCount;
+    private final Map<String, Integer> slotById = new HashMap<>();
+    private final SortedSlots byCreateDate = new SortedSlots();
+    private final Map<Tag, SortedSlots> byTag = new EnumMap<>(Tag.class);
+
+    InMemoryNoteRepository() {
+        for (Tag tag : Tag.values()) {
+            byTag.put(tag, new SortedSlots());
+        }
+    }
+
+    @Override
+    public Page<Note> findAll(Pageable pageable) {
+        return page(byCreateDate, pageable, this::copy);
+    }
+
+    @Override
+    public Page<Note> findByTags(Tag tag, Pageable pageable) {
+        return page(byTag.get(tag), pageable, this::copy);
+    }
+
+    @Override
+    public Page<NoteDTO> findSummariesBy(Pageable pageable) {
+        return page(byCreateDate, pageable, InMemoryNoteRepository::summary);
+    }
+
+    @Override
+    public Page<NoteDTO> findSummariesByTags(Tag tag, Pageable pageable) {
+        return page(byTag.get(tag), pageable, InMemoryNoteRepository::summary);
+    }
+
+    @Override
+    public List<NoteDTO> findSummariesByIdIn(Collection<String> ids) {
+        lock.readLock().lock();
+        try {
+            List<NoteDTO> summaries = new ArrayList<>();
+            for (String id : new LinkedHashSet<>(ids)) {
+                Note note = entities.get(id);
+                if (note != null) {
+                    summaries.add(summary(note));
+                }
+            }
+            return summaries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Page<NoteDTO> findSummariesByTagMaskIn(Collection<Integer> tagMasks, Pageable pageable) {
+        Set<Integer> masks = new HashSet<>(tagMasks);
+        boolean descending = descending(pageable.getSort());
+        lock.readLock().lock();
+        try {
+            List<NoteDTO> content = new ArrayList<>();
+            long matched = 0;
+            for (int i = 0; i < byCreateDate.size; i++) {
+                Note note = byCreateDate.get(descending ? byCreateDate.size - 1 - i : i);
+                if (!masks.contains(note.getTagMask())) {
+                    continue;
+                }
+                if (pageable.isUnpaged() || (matched >= pageable.getOffset() && content.size() < pageable.getPageSize())) {
+                    content.add(summary(note));
+                }
+                matched++;
+            }
+            return new PageImpl<>(content, pageable, matched);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Slice<NoteDTO> findSliceBy(Pageable pageable) {
+        return slice(byCreateDate, pageable);
+    }
+
+    @Override
+    public Slice<NoteDTO> findSliceByTags(Tag tag, Pageable pageable) {
+        return slice(byTag.get(tag), pageable);
+    }
+
+    @Override
+    public long countByTags(Tag tag) {
+        lock.readLock().lock();
+        try {
+            return byTag.get(tag).size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Note> findFirstByOrderByCreateDateAsc() {
+        lock.readLock().lock();
+        try {
+            return byCreateDate.size == 0 ? Optional.empty() : Optional.of(copy(byCreateDate.get(0)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Note> findFirstByOrderByCreateDateDesc() {
+        lock.readLock().lock();
+        try {
+            return byCreateDate.size == 0 ? Optional.empty() : Optional.of(copy(byCreateDate.get(byCreateDate.size - 1)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<Note> streamAllBy() {
+        return findAll().stream();
+    }
+
+    @Override
+    public List<NoteDTO> findSummariesAfter(Tag tag, LocalDateTime createDate, String id, int limit) {
+        SortedSlots index = tag == null ? byCreateDate : byTag.get(tag);
+        lock.readLock().lock();
+        try {
+            int position = index.size - 1;
+            if (createDate != null) {
+                int found = index.search(probe(createDate, id));
+                // strictly after the cursor in descending order
+                position = (found >= 0 ? found : -found - 1) - 1;
+            }
+            List<NoteDTO> summaries = new ArrayList<>(Math.min(limit, position + 1));
+            for (; position >= 0 && summaries.size() < limit; position--) {
+                summaries.add(summary(index.get(position)));
+            }
+            return summaries;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Note> findByIdWithFields(String id, Collection<String> fields) {
+        lock.readLock().lock();
+        try {
+            Note note = entities.get(id);
+            if (note == null) {
+                return Optional.empty();
+            }
+            Note projected = new Note();
+            projected.setId(note.getId());
+            if (fields.contains("title")) {
+                projected.setTitle(note.getTitle());
+            }
+            if (fields.contains("createDate")) {
+                projected.setCreateDate(note.getCreateDate());
+            }
+            if (fields.contains("text")) {
+                projected.setText(note.getText());
+            }
+            if (fields.contains("tags")) {
+                projected.setTags(copyTags(note.getTags()));
+            }
+            if (fields.contains("version")) {
+                projected.setVersion(note.getVersion());
+            }
+            return Optional.of(projected);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<Note> streamNotes(Tag tag, LocalDateTime from, LocalDateTime to, int batchSize) {
+        SortedSlots index = tag == null ? byCreateDate : byTag.get(tag);
+        lock.readLock().lock();
+        try {
+            // the probes have no id, so they sort before every note with the same createDate
+            int first = from == null ? 0 : -index.search(probe(from, null)) - 1;
+            int end = to == null ? index.size : -index.search(probe(to, null)) - 1;
+            List<Note> notes = new ArrayList<>(Math.max(0, end - first));
+            for (int position = first; position < end; position++) {
+                notes.add(copy(index.get(position)));
+            }
+            return notes.stream();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Note> findTagsByIds(Collection<String> ids) {
+        lock.readLock().lock();
+        try {
+            List<Note> notes = new ArrayList<>();
+            for (String id : new LinkedHashSet<>(ids)) {
+                Note note = entities.get(id);
+                if (note != null) {
+                    notes.add(Note.builder().id(note.getId()).tags(copyTags(note.getTags())).build());
+                }
+            }
+            return notes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Note> findAndUpdate(String id, Long expectedVersion, Note note) {
+        lock.writeLock().lock();
+        try {
+            Note existing = entities.get(id);
+            if (existing == null || (expectedVersion != null && !expectedVersion.equals(existing.getVersion()))) {
+                return Optional.empty();
+            }
+            put(existing, withContent(existing, note));
+            return Optional.of(copy(existing));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Note> findAndRemoveById(String id) {
+        lock.writeLock().lock();
+        try {
+            Note existing = entities.remove(id);
+            if (existing == null) {
+                return Optional.empty();
+            }
+            removed(existing);
+            return Optional.of(Note.builder()
+                    .id(existing.getId())
+                    .tags(copyTags(existing.getTags()))
+                    .text(existing.getText())
+                    .build());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long backfillTagMasks() {
+        // tagMask is derived from tags, there is nothing stored to backfill
+        return 0;
+    }
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<Note> notes) {
+        Map<Integer, String> failures = new HashMap<>();
+        for (int i = 0; i < notes.size(); i++) {
+            try {
+                insert(notes.get(i));
+            } catch (DuplicateKeyException ex) {
+                failures.put(i, ex.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public Map<Integer, String> updateUnordered(List<Note> notes) {
+        lock.writeLock().lock();
+        try {
+            for (Note note : notes) {
+                Note existing = entities.get(note.getId());
+                if (existing != null) {
+                    put(existing, withContent(existing, note));
+                }
+            }
+            return Map.of();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Map<Integer, String> deleteUnordered(List<String> ids) {
+        deleteAllById(ids);
+        return Map.of();
+    }
+
+    /**
+     * Counts as {@code TagCountsRepository.countFromNotes} does: every tag index size, plus a
+     * scan for the notes without tags.
+     */
+    TagCounts countTags() {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> tags = new HashMap<>();
+            byTag.forEach((tag, index) -> tags.put(tag.name(), (long) index.size));
+            long untagged = entities.values().stream().filter(note -> tagsOf(note).isEmpty()).count();
+            return TagCounts.builder().total(entities.size()).untagged(untagged).tags(tags).build();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected String idOf(Note note) {
+        return note.getId();
+    }
+
+    @Override
+    protected void assignId(Note note, String id) {
+        note.setId(id);
+    }
+
+    @Override
+    protected Note copy(Note note) {
+        return Note.builder()
+                .id(note.getId())
+                .title(note.getTitle())
+                .createDate(note.getCreateDate())
+                .text(note.getText())
+                .tags(copyTags(note.getTags()))
+                .version(note.getVersion())
+                .build();
+    }
+
+    @Override
+    protected void beforeSave(Note existing, Note note) {
+        if (note.getVersion() == null) {
+            // Spring Data inserts entities without version
+            if (existing != null) {
+                throw duplicateKey(note.getId());
+            }
+            note.setVersion(0L);
+            return;
+        }
+        if (existing == null || !note.getVersion().equals(existing.getVersion())) {
+            throw new OptimisticLockingFailureException("Cannot save note " + note.getId() + " with version "
+                    + note.getVersion() + ", it has been modified or deleted meanwhile");
+        }
+        note.setVersion(note.getVersion() + 1);
+    }
+
+    @Override
+    protected void beforeInsert(Note note) {
+        if (note.getVersion() == null) {
+            note.setVersion(0L);
+        }
+    }
+
+    @Override
+    protected void stored(Note previous, Note current) {
+        Integer slot = slotById.get(current.getId());
+        Set<Tag> before = previous == null ? EnumSet.noneOf(Tag.class) : tagsOf(previous);
+        Set<Tag> after = tagsOf(current);
+        boolean moved = previous == null || !Objects.equals(previous.getCreateDate(), current.getCreateDate());
+        if (slot == null) {
+            slot = allocateSlot();
+            slotById.put(current.getId(), slot);
+        } else {
+            // removals search by the previous key, still in the slot
+            if (moved) {
+                byCreateDate.remove(slot);
+            }
+            for (Tag tag : before) {
+                if (moved || !after.contains(tag)) {
+                    byTag.get(tag).remove(slot);
+                }
+            }
+        }
+
+        slots[slot] = current;
+        if (moved) {
+            byCreateDate.add(slot);
+        }
+        for (Tag tag : after) {
+            if (moved || !before.contains(tag)) {
+                byTag.get(tag).add(slot);
+            }
+        }
+    }
+
+    @Override
+    protected void removed(Note previous) {
+        int slot = slotById.remove(previous.getId());
+        byCreateDate.remove(slot);
+        for (Tag tag : tagsOf(previous)) {
+            byTag.get(tag).remove(slot);
+        }
+        slots[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    @Override
+    protected void cleared() {
+        slots = new Note[64];
+        usedSlots = 0;
+        freeCount = 0;
+        slotById.clear();
+        byCreateDate.clear();
+        byTag.values().forEach(SortedSlots::clear);
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0) {
+            return freeSlots[--freeCount];
+        }
+        if (usedSlots == slots.length) {
+            slots = Arrays.copyOf(slots, usedSlots * 2);
+        }
+        return usedSlots++;
+    }
+
+    private <R> Page<R> page(SortedSlots index, Pageable pageable, Function<Note, R> mapper) {
+        boolean descending = descending(pageable.getSort());
+        lock.readLock().lock();
+        try {
+            List<R> content = pageable.isUnpaged()
+                    ? window(index, descending, 0, index.size, mapper)
+                    : window(index, descending, pageable.getOffset(), pageable.getPageSize(), mapper);
+            return new PageImpl<>(content, pageable, index.size);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Slice<NoteDTO> slice(SortedSlots index, Pageable pageable) {
+        boolean descending = descending(pageable.getSort());
+        lock.readLock().lock();
+        try {
+            List<NoteDTO> content = window(index, descending, pageable.getOffset(), pageable.getPageSize() + 1,
+                    InMemoryNoteRepository::summary);
+            boolean hasNext = content.size() > pageable.getPageSize();
+            return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // positions [offset, offset + limit) counted from the newest note when descending
+    private static <R> List<R> window(SortedSlots index, boolean descending, long offset, int limit, Function<Note, R> mapper) {
+        List<R> content = new ArrayList<>((int) Math.max(0, Math.min(limit, index.size - offset)));
+        for (long i = offset; i < index.size && content.size() < limit; i++) {
+            content.add(mapper.apply(index.get((int) (descending ? index.size - 1 - i : i))));
+        }
+        return content;
+    }
+
+    // unsorted pages come oldest first, the insertion order of notes stamped with the current time
+    private static boolean descending(Sort sort) {
+        if (sort.isUnsorted()) {
+            return false;
+        }
+        Sort.Order first = sort.iterator().next();
+        Predicate<Sort.Order> supported = order -> SORTABLE.contains(order.getProperty())
+                && order.getDirection() == first.getDirection();
+        if (!first.getProperty().equals("createDate") || !sort.stream().allMatch(supported)) {
+            throw new UnsupportedOperationException("Sorting by " + sort + " is not supported in memory");
+        }
+        return first.isDescending();
+    }
+
+    private static Note probe(LocalDateTime createDate, String id) {
+        return Note.builder().createDate(createDate).id(id).build();
+    }
+
+    private static NoteDTO summary(Note note) {
+        return new NoteDTO(note.getId(), note.getTitle(), note.getCreateDate());
+    }
+
+    private static Set<Tag> tagsOf(Note note) {
+        Set<Tag> tags = EnumSet.noneOf(Tag.class);
+        if (note.getTags() != null) {
+            note.getTags().stream().filter(Objects::nonNull).forEach(tags::add);
+        }
+        return tags;
+    }
+
+    private static List<Tag> copyTags(List<Tag> tags) {
+        return tags == null ? null : new ArrayList<>(tags);
+    }
+
+    // what NoteRepositoryImpl.contentUpdate sets
+    private static Note withContent(Note existing, Note note) {
+        return Note.builder()
+                .id(existing.getId())
+                .title(note.getTitle())
+                .createDate(existing.getCreateDate())
+                .text(note.getText())
+                .tags(copyTags(note.getTags()))
+                .version(existing.getVersion() == null ? 1 : existing.getVersion() + 1)
+                .build();
+    }
+
+    private final class SortedSlots {
+
+        private int[] order = new int[64];
+        private int size;
+
+        Note get(int position) {
+            return slots[order[position]];
+        }
+
+        void add(int slot) {
+            Note note = slots[slot];
+            int position = size == 0 || BY_CREATE_DATE.compare(get(size - 1), note) < 0 ? size : -search(note) - 1;
+            if (size == order.length) {
+                order = Arrays.copyOf(order, size * 2);
+            }
+            System.arraycopy(order, position, order, position + 1, size - position);
+            order[position] = slot;
+            size++;
+        }
+
+        void remove(int slot) {
+            int position = search(slots[slot]);
+            System.arraycopy(order, position + 1, order, position, size - position - 1);
+            size--;
+        }
+
+        void clear() {
+            order = new int[64];
+            size = 0;
+        }
+
+        // position of the note with this key, or -(insertion point) - 1
+        int search(Note key) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = BY_CREATE_DATE.compare(get(middle), key);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+    }
+}
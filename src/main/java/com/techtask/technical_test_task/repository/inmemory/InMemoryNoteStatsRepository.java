@@ -0,0 +1,63 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import com.techtask.technical_test_task.model.NoteStats;
+import com.techtask.technical_test_task.repository.NoteStatsRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+
+@Repository
+@Profile("inmemory")
+class InMemoryNoteStatsRepository extends InMemoryRepository<NoteStats> implements NoteStatsRepository {
+
+    @Override
+    protected String idOf(NoteStats stats) {
+        return stats.getId();
+    }
+
+    @Override
+    protected void assignId(NoteStats stats, String id) {
+        stats.setId(id);
+    }
+
+    @Override
+    public boolean saveIfNewer(NoteStats stats) {
+        lock.writeLock().lock();
+        try {
+            NoteStats existing = entities.get(stats.getId());
+            if (existing != null && !isOlder(existing, stats)) {
+                return false;
+            }
+            put(existing, stats);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAllIfNewer(List<NoteStats> stats) {
+        stats.forEach(this::saveIfNewer);
+    }
+
+    // the same condition as the conditional upsert of NoteStatsRepositoryImpl
+    private static boolean isOlder(NoteStats existing, NoteStats stats) {
+        if (existing.getNoteVersion() == null) {
+            return true;
+        }
+        return stats.getNoteVersion() != null && existing.getNoteVersion() < stats.getNoteVersion();
+    }
+
+    @Override
+    protected NoteStats copy(NoteStats stats) {
+        return NoteStats.builder()
+                .id(stats.getId())
+                // keeps the descending count order of the stats endpoint
+                .wordCounts(stats.getWordCounts() == null ? null : new LinkedHashMap<>(stats.getWordCounts()))
+                .noteVersion(stats.getNoteVersion())
+                .updateDate(stats.getUpdateDate())
+                .build();
+    }
+}
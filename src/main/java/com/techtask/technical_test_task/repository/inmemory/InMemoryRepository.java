@@ -0,0 +1,271 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.*;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.repository.query.FluentQuery;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Map-backed {@link MongoRepository} for the {@code inmemory} profile. Entities are copied on
+ * the way in and out, so callers never share state with the store, as with a database.
+ * <p>
+ * Documents keep insertion order, the natural order of unsorted queries. Subclasses keep their
+ * own indexes up to date in {@link #stored}, {@link #removed} and {@link #cleared}, which run
+ * under the write lock. Query by example and sorting on arbitrary properties are not supported.
+ */
+abstract class InMemoryRepository<T> implements MongoRepository<T, String> {
+
+    protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+    protected final Map<String, T> entities = new LinkedHashMap<>();
+
+    protected abstract String idOf(T entity);
+
+    protected abstract void assignId(T entity, String id);
+
+    protected abstract T copy(T entity);
+
+    /**
+     * Checks and updates version fields of {@code entity} before it replaces {@code existing}.
+     */
+    protected void beforeSave(T existing, T entity) {
+    }
+
+    /**
+     * Sets the fields a database insert would set.
+     */
+    protected void beforeInsert(T entity) {
+    }
+
+    protected void stored(T previous, T current) {
+    }
+
+    protected void removed(T previous) {
+    }
+
+    protected void cleared() {
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        lock.writeLock().lock();
+        try {
+            if (idOf(entity) == null) {
+                assignId(entity, new ObjectId().toHexString());
+            }
+            T existing = entities.get(idOf(entity));
+            beforeSave(existing, entity);
+            put(existing, entity);
+            return entity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <S extends T> List<S> saveAll(Iterable<S> entities) {
+        List<S> saved = new ArrayList<>();
+        entities.forEach(entity -> saved.add(save(entity)));
+        return saved;
+    }
+
+    @Override
+    public <S extends T> S insert(S entity) {
+        lock.writeLock().lock();
+        try {
+            if (idOf(entity) == null) {
+                assignId(entity, new ObjectId().toHexString());
+            }
+            if (entities.containsKey(idOf(entity))) {
+                throw duplicateKey(idOf(entity));
+            }
+            beforeInsert(entity);
+            put(null, entity);
+            return entity;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <S extends T> List<S> insert(Iterable<S> entities) {
+        List<S> inserted = new ArrayList<>();
+        entities.forEach(entity -> inserted.add(insert(entity)));
+        return inserted;
+    }
+
+    @Override
+    public Optional<T> findById(String id) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(entities.get(id)).map(this::copy);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean existsById(String id) {
+        lock.readLock().lock();
+        try {
+            return entities.containsKey(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<T> findAll() {
+        lock.readLock().lock();
+        try {
+            return entities.values().stream().map(this::copy).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<String> ids) {
+        lock.readLock().lock();
+        try {
+            List<T> found = new ArrayList<>();
+            for (String id : ids) {
+                T entity = entities.get(id);
+                if (entity != null) {
+                    found.add(copy(entity));
+                }
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<T> findAll(Sort sort) {
+        checkUnsorted(sort);
+        return findAll();
+    }
+
+    @Override
+    public Page<T> findAll(Pageable pageable) {
+        checkUnsorted(pageable.getSort());
+        lock.readLock().lock();
+        try {
+            List<T> content = entities.values().stream()
+                    .skip(pageable.isPaged() ? pageable.getOffset() : 0)
+                    .limit(pageable.isPaged() ? pageable.getPageSize() : Long.MAX_VALUE)
+                    .map(this::copy)
+                    .toList();
+            return new PageImpl<>(content, pageable, entities.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count() {
+        lock.readLock().lock();
+        try {
+            return entities.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void deleteById(String id) {
+        lock.writeLock().lock();
+        try {
+            T previous = entities.remove(id);
+            if (previous != null) {
+                removed(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(idOf(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends String> ids) {
+        ids.forEach(this::deleteById);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            entities.clear();
+            cleared();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // stores a copy, the caller holds the write lock
+    protected void put(T existing, T entity) {
+        T current = copy(entity);
+        entities.put(idOf(current), current);
+        stored(existing, current);
+    }
+
+    protected static DuplicateKeyException duplicateKey(String id) {
+        return new DuplicateKeyException("E11000 duplicate key error, dup key: { _id: \"" + id + "\" }");
+    }
+
+    private static void checkUnsorted(Sort sort) {
+        if (sort.isSorted()) {
+            throw new UnsupportedOperationException("Sorting by " + sort + " is not supported in memory");
+        }
+    }
+
+    @Override
+    public <S extends T> Optional<S> findOne(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported in memory");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported in memory");
+    }
+
+    @Override
+    public <S extends T> List<S> findAll(Example<S> example, Sort sort) {
+        throw new UnsupportedOperationException("Query by example is not supported in memory");
+    }
+
+    @Override
+    public <S extends T> Page<S> findAll(Example<S> example, Pageable pageable) {
+        throw new UnsupportedOperationException("Query by example is not supported in memory");
+    }
+
+    @Override
+    public <S extends T> long count(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported in memory");
+    }
+
+    @Override
+    public <S extends T> boolean exists(Example<S> example) {
+        throw new UnsupportedOperationException("Query by example is not supported in memory");
+    }
+
+    @Override
+    public <S extends T, R> R findBy(Example<S> example, Function<FluentQuery.FetchableFluentQuery<S>, R> queryFunction) {
+        throw new UnsupportedOperationException("Query by example is not supported in memory");
+    }
+}
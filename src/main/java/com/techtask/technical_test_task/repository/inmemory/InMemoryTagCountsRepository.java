@@ -0,0 +1,58 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import com.techtask.technical_test_task.model.TagCounts;
+import com.techtask.technical_test_task.repository.TagCountsRepository;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Repository
+@Profile("inmemory")
+class InMemoryTagCountsRepository extends InMemoryRepository<TagCounts> implements TagCountsRepository {
+
+    private final InMemoryNoteRepository noteRepository;
+
+    InMemoryTagCountsRepository(InMemoryNoteRepository noteRepository) {
+        this.noteRepository = noteRepository;
+    }
+
+    @Override
+    public void increment(TagCounts delta) {
+        lock.writeLock().lock();
+        try {
+            TagCounts existing = entities.get(TagCounts.ID);
+            TagCounts counts = existing == null
+                    ? TagCounts.builder().id(TagCounts.ID).tags(new HashMap<>()).build()
+                    : copy(existing);
+            counts.setTotal(counts.getTotal() + delta.getTotal());
+            counts.setUntagged(counts.getUntagged() + delta.getUntagged());
+            delta.getTags().forEach((tag, count) -> counts.getTags().merge(tag, count, Long::sum));
+            put(existing, counts);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public TagCounts countFromNotes() {
+        return noteRepository.countTags();
+    }
+
+    @Override
+    protected String idOf(TagCounts counts) {
+        return counts.getId();
+    }
+
+    @Override
+    protected void assignId(TagCounts counts, String id) {
+        counts.setId(id);
+    }
+
+    @Override
+    protected TagCounts copy(TagCounts counts) {
+        Map<String, Long> tags = counts.getTags() == null ? new HashMap<>() : new HashMap<>(counts.getTags());
+        return new TagCounts(counts.getId(), counts.getTotal(), counts.getUntagged(), tags);
+    }
+}
@@ -0,0 +1,148 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import com.techtask.technical_test_task.model.Note;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * {@link InMemoryNoteRepository} whose notes survive restarts in a {@link NoteLog}, an embedded
+ * alternative to MongoDB for a single instance.
+ * <p>
+ * Every stored note is appended to the log and deleted notes leave a tombstone; the id to offset
+ * map points at the latest record of each note, and {@link #findById} decodes it straight from
+ * the mapped segment. On startup the log is replayed oldest first to rebuild the map and the
+ * indexes. Superseded records are garbage: once they make up {@code compaction-threshold} of the
+ * sealed segments, compaction copies the live records of those segments to the end of the log
+ * and deletes them, tombstones included, since the notes they hide go with them.
+ */
+@Repository
+@Profile("logstore")
+class MappedLogNoteRepository extends InMemoryNoteRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedLogNoteRepository.class);
+
+    private final NoteLog noteLog;
+    private final double compactionThreshold;
+    private final Map<String, Long> offsets = new HashMap<>();
+
+    MappedLogNoteRepository(@Value("${notes.logstore.directory:./data/notes-log}") Path directory,
+                            @Value("${notes.logstore.segment-size:64MB}") DataSize segmentSize,
+                            @Value("${notes.logstore.sync-writes:false}") boolean syncWrites,
+                            @Value("${notes.logstore.compaction-threshold:0.5}") double compactionThreshold) {
+        this.noteLog = new NoteLog(directory, Math.toIntExact(segmentSize.toBytes()), syncWrites);
+        this.compactionThreshold = compactionThreshold;
+        noteLog.recover(this::replay);
+        log.info("Note log in {} recovered with {} notes", directory, offsets.size());
+    }
+
+    @Override
+    public Optional<Note> findById(String id) {
+        lock.readLock().lock();
+        try {
+            Long offset = offsets.get(id);
+            return offset == null ? Optional.empty() : Optional.of(noteLog.read(offset));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts the sealed segments once enough of them is garbage.
+     */
+    @Scheduled(initialDelayString = "${notes.logstore.compaction-interval:5m}", fixedDelayString = "${notes.logstore.compaction-interval:5m}")
+    void compactIfNeeded() {
+        try {
+            lock.writeLock().lock();
+            try {
+                if (noteLog.sealedGarbageRatio() >= compactionThreshold) {
+                    compact();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Note log compaction failed, the sealed segments are kept", ex);
+        }
+    }
+
+    // the caller holds the write lock
+    void compact() {
+        Set<Integer> sealed = noteLog.sealedSegments();
+        for (Map.Entry<String, Long> entry : offsets.entrySet()) {
+            if (sealed.contains(NoteLog.segment(entry.getValue()))) {
+                entry.setValue(noteLog.rewrite(entry.getValue()));
+            }
+        }
+        // copies are durable before the originals go, oldest first so a crash cannot revive a deleted note
+        noteLog.flush();
+        sealed.forEach(noteLog::delete);
+        log.info("Note log compacted, {} segments removed", sealed.size());
+    }
+
+    @PreDestroy
+    void close() {
+        lock.writeLock().lock();
+        try {
+            noteLog.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void stored(Note previous, Note current) {
+        super.stored(previous, current);
+        supersede(current.getId(), noteLog.append(current));
+    }
+
+    @Override
+    protected void removed(Note previous) {
+        super.removed(previous);
+        noteLog.release(offsets.remove(previous.getId()));
+        noteLog.release(noteLog.appendTombstone(previous.getId()));
+    }
+
+    @Override
+    protected void cleared() {
+        super.cleared();
+        offsets.clear();
+        noteLog.clear();
+    }
+
+    // applies a recovered record through the indexes of the parent, without appending it again
+    private void replay(long offset, ByteBuffer record) {
+        if (NoteLog.type(record) == NoteLog.TOMBSTONE) {
+            Note existing = entities.remove(NoteLog.tombstoneId(record));
+            if (existing != null) {
+                super.removed(existing);
+                noteLog.release(offsets.remove(existing.getId()));
+            }
+            noteLog.release(offset);
+            return;
+        }
+        Note note = NoteLog.decodeNote(record);
+        Note existing = entities.put(note.getId(), note);
+        super.stored(existing, note);
+        supersede(note.getId(), offset);
+    }
+
+    private void supersede(String id, long offset) {
+        Long previous = offsets.put(id, offset);
+        if (previous != null) {
+            noteLog.release(previous);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of note records in memory-mapped segment files of a fixed size.
+ * <p>
+ * A record is {@code [int length][byte type][payload][int crc32]}: a note with all its fields,
+ * or a tombstone with the id of a deleted note. Offsets returned by {@link #append} combine the
+ * segment number and the position in it. Zero length marks the end of a segment, the unwritten
+ * part of a mapped file reads as zeros. A record whose checksum does not match, as left by a
+ * write torn by a crash, ends its segment: it and the rest of that segment are dropped, and
+ * recovery carries on with the next segment. A segment is forced to disk before the next one is
+ * started, so a torn write can only be at the end of the last segment; damage further back loses
+ * just the records behind it in that segment. Not thread safe, the owner serializes access.
+ */
+final class NoteLog implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteLog.class);
+
+    static final byte NOTE = 1;
+    static final byte TOMBSTONE = 2;
+
+    private static final int HEADER = Integer.BYTES + 1;
+    private static final int OVERHEAD = HEADER + Integer.BYTES;
+    private static final String SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncWrites;
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private Segment active;
+
+    NoteLog(Path directory, int segmentSize, boolean syncWrites) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncWrites = syncWrites;
+    }
+
+    /**
+     * Maps the existing segments and passes every intact record to {@code visitor}, oldest first,
+     * as {@code (offset, record)} where the record buffer covers the type and payload.
+     */
+    void recover(BiConsumer<Long, ByteBuffer> visitor) {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                    String name = file.getFileName().toString();
+                    int number = Integer.parseInt(name.substring(0, name.length() - SUFFIX.length()));
+                    segments.put(number, new Segment(number, file, map(file)));
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open note log in " + directory, ex);
+        }
+
+        for (Segment segment : segments.values()) {
+            int position = 0;
+            while (position + OVERHEAD <= segmentSize) {
+                int length = segment.buffer.getInt(position);
+                if (length == 0) {
+                    break;
+                }
+                if (length < OVERHEAD || position + length > segmentSize || !intact(segment.buffer, position, length)) {
+                    log.warn("Note log segment {} is damaged at {}, dropping the rest of it", segment.number, position);
+                    segment.buffer.put(position, new byte[segmentSize - position]);
+                    break;
+                }
+                visitor.accept(offset(segment.number, position), segment.buffer.slice(position + Integer.BYTES, length - 2 * Integer.BYTES));
+                position += length;
+            }
+            segment.writePosition = position;
+        }
+        active = segments.isEmpty() ? roll() : segments.lastEntry().getValue();
+    }
+
+    long append(Note note) {
+        return append(NOTE, encode(note));
+    }
+
+    long appendTombstone(String id) {
+        ByteBuffer payload = ByteBuffer.allocate(stringSize(id));
+        putString(payload, id);
+        return append(TOMBSTONE, payload.array());
+    }
+
+    /**
+     * Decodes the note record at {@code offset} straight from the mapped segment.
+     */
+    Note read(long offset) {
+        Segment segment = segments.get(segment(offset));
+        int position = position(offset);
+        int length = segment.buffer.getInt(position);
+        return decodeNote(segment.buffer.slice(position + Integer.BYTES, length - 2 * Integer.BYTES));
+    }
+
+    /**
+     * Appends a copy of the record at {@code offset} as it is, without decoding it.
+     */
+    long rewrite(long offset) {
+        Segment segment = segments.get(segment(offset));
+        int position = position(offset);
+        int length = segment.buffer.getInt(position);
+        byte type = segment.buffer.get(position + Integer.BYTES);
+        byte[] payload = new byte[length - OVERHEAD];
+        segment.buffer.get(position + HEADER, payload);
+        return append(type, payload);
+    }
+
+    int length(long offset) {
+        return segments.get(segment(offset)).buffer.getInt(position(offset));
+    }
+
+    /**
+     * Records a record of the segment holding {@code offset} as superseded.
+     */
+    void release(long offset) {
+        segments.get(segment(offset)).garbageBytes += length(offset);
+    }
+
+    /**
+     * Share of garbage in the segments that are no longer written to.
+     */
+    double sealedGarbageRatio() {
+        long written = 0;
+        long garbage = 0;
+        for (Segment segment : segments.headMap(active.number).values()) {
+            written += segment.writePosition;
+            garbage += segment.garbageBytes;
+        }
+        return written == 0 ? 0 : (double) garbage / written;
+    }
+
+    /**
+     * Numbers of the segments that are no longer written to, compaction candidates.
+     */
+    Set<Integer> sealedSegments() {
+        return new TreeSet<>(segments.headMap(active.number).keySet());
+    }
+
+    void delete(int number) {
+        Segment segment = segments.remove(number);
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not delete note log segment " + segment.path, ex);
+        }
+    }
+
+    /**
+     * Removes every segment and starts an empty log.
+     */
+    void clear() {
+        for (Integer number : new ArrayList<>(segments.keySet())) {
+            delete(number);
+        }
+        active = roll();
+    }
+
+    /**
+     * Writes the mapped segments through to their files.
+     */
+    void flush() {
+        segments.values().forEach(segment -> segment.buffer.force());
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    static int segment(long offset) {
+        return (int) (offset >>> 32);
+    }
+
+    private static int position(long offset) {
+        return (int) offset;
+    }
+
+    private static long offset(int segment, int position) {
+        return ((long) segment << 32) | position;
+    }
+
+    private long append(byte type, byte[] payload) {
+        int length = OVERHEAD + payload.length;
+        if (length > segmentSize) {
+            throw new IllegalArgumentException("Note of " + length + " bytes does not fit a log segment of " + segmentSize);
+        }
+        if (active.writePosition + length > segmentSize) {
+            active.buffer.force();
+            active = roll();
+        }
+        int position = active.writePosition;
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        // the length goes last, a record is only visible once complete
+        active.buffer.put(position + HEADER - 1, type);
+        active.buffer.put(position + HEADER, payload);
+        active.buffer.putInt(position + HEADER + payload.length, (int) crc.getValue());
+        active.buffer.putInt(position, length);
+        active.writePosition += length;
+        if (syncWrites) {
+            active.buffer.force(position, length);
+        }
+        return offset(active.number, position);
+    }
+
+    private Segment roll() {
+        int number = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Path file = directory.resolve(String.format("%08d%s", number, SUFFIX));
+        try {
+            Segment segment = new Segment(number, file, map(file));
+            segments.put(number, segment);
+            return segment;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not create note log segment " + file, ex);
+        }
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // the mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private static boolean intact(ByteBuffer buffer, int position, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(position + Integer.BYTES, length - 2 * Integer.BYTES));
+        return (int) crc.getValue() == buffer.getInt(position + length - Integer.BYTES);
+    }
+
+    static byte type(ByteBuffer record) {
+        return record.get(0);
+    }
+
+    static String tombstoneId(ByteBuffer record) {
+        return getString(record.position(1));
+    }
+
+    static Note decodeNote(ByteBuffer record) {
+        ByteBuffer buffer = record.position(1);
+        Note note = new Note();
+        note.setId(getString(buffer));
+        note.setTitle(getString(buffer));
+        note.setText(getString(buffer));
+        long seconds = buffer.getLong();
+        int nanos = buffer.getInt();
+        note.setCreateDate(nanos < 0 ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC));
+        long version = buffer.getLong();
+        note.setVersion(version < 0 ? null : version);
+        int tagCount = buffer.get();
+        if (tagCount >= 0) {
+            Tag[] values = Tag.values();
+            List<Tag> tags = new ArrayList<>(tagCount);
+            for (int i = 0; i < tagCount; i++) {
+                int ordinal = buffer.get();
+                tags.add(ordinal < 0 ? null : values[ordinal]);
+            }
+            note.setTags(tags);
+        }
+        return note;
+    }
+
+    static byte[] encode(Note note) {
+        List<Tag> tags = note.getTags();
+        int size = stringSize(note.getId()) + stringSize(note.getTitle()) + stringSize(note.getText())
+                + Long.BYTES + Integer.BYTES + Long.BYTES + 1 + (tags == null ? 0 : tags.size());
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        putString(buffer, note.getId());
+        putString(buffer, note.getTitle());
+        putString(buffer, note.getText());
+        LocalDateTime createDate = note.getCreateDate();
+        buffer.putLong(createDate == null ? 0 : createDate.toEpochSecond(ZoneOffset.UTC));
+        buffer.putInt(createDate == null ? -1 : createDate.getNano());
+        buffer.putLong(note.getVersion() == null ? -1 : note.getVersion());
+        buffer.put((byte) (tags == null ? -1 : tags.size()));
+        if (tags != null) {
+            for (Tag tag : tags) {
+                buffer.put((byte) (tag == null ? -1 : tag.ordinal()));
+            }
+        }
+        return buffer.array();
+    }
+
+    // UTF-8 bytes behind an int length, -1 for null
+    private static int stringSize(String value) {
+        return Integer.BYTES + (value == null ? 0 : value.getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Segment {
+
+        private final int number;
+        private final Path path;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+        private long garbageBytes;
+
+        Segment(int number, Path path, MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.buffer = buffer;
+        }
+    }
+}
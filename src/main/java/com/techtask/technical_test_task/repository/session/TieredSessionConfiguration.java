@@ -0,0 +1,125 @@
+package com.techtask.technical_test_task.repository.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.session.web.http.CookieHttpSessionIdResolver;
+import org.springframework.session.web.http.CookieSerializer;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * HTTP sessions from {@link TieredSessionRepository}, for every path except
+ * {@code notes.session.stateless-paths}.
+ * <p>
+ * Requests to stateless paths skip session handling altogether: no session is looked up for their
+ * cookie, none is created or saved, and no cookie is set. They are counted as
+ * {@code notes.session.stateless}. The session cookie follows {@code server.servlet.session.cookie.*}
+ * and sessions time out after {@code server.servlet.session.timeout}.
+ */
+@Configuration(proxyBeanMethods = false)
+@Profile("!reactive")
+public class TieredSessionConfiguration {
+
+    @Bean
+    TieredSessionRepository sessionRepository(ObjectProvider<MongoOperations> mongo,
+                                              MeterRegistry meterRegistry,
+                                              @Value("${notes.session.collection:sessions}") String collection,
+                                              @Value("${notes.session.cache.maximum-size:10000}") long maximumSize,
+                                              @Value("${notes.session.cache.revalidate-after:60s}") Duration revalidateAfter,
+                                              @Value("${server.servlet.session.timeout:30m}") Duration timeout) {
+        return new TieredSessionRepository(mongo.getIfAvailable(), meterRegistry, collection, maximumSize,
+                revalidateAfter, timeout, Clock.systemUTC());
+    }
+
+    @Bean
+    FilterRegistrationBean<StatelessAwareSessionFilter> sessionRepositoryFilterRegistration(
+            TieredSessionRepository sessionRepository,
+            ObjectProvider<CookieSerializer> cookieSerializer,
+            MeterRegistry meterRegistry,
+            @Value("${notes.session.stateless-paths:/api/**,/actuator/**}") List<String> statelessPaths) {
+        SessionRepositoryFilter<?> sessionFilter = new SessionRepositoryFilter<>(sessionRepository);
+        cookieSerializer.ifAvailable(serializer -> {
+            CookieHttpSessionIdResolver resolver = new CookieHttpSessionIdResolver();
+            resolver.setCookieSerializer(serializer);
+            sessionFilter.setHttpSessionIdResolver(resolver);
+        });
+        Counter stateless = Counter.builder("notes.session.stateless")
+                .description("Requests served without session handling")
+                .register(meterRegistry);
+        FilterRegistrationBean<StatelessAwareSessionFilter> registration =
+                new FilterRegistrationBean<>(new StatelessAwareSessionFilter(sessionFilter, statelessPaths, stateless));
+        registration.setOrder(SessionRepositoryFilter.DEFAULT_ORDER);
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC, DispatcherType.ERROR);
+        return registration;
+    }
+
+    static class StatelessAwareSessionFilter extends OncePerRequestFilter {
+
+        private final SessionRepositoryFilter<?> sessionFilter;
+        private final List<String> statelessPaths;
+        private final Counter stateless;
+        private final PathMatcher pathMatcher = new AntPathMatcher();
+        private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+        StatelessAwareSessionFilter(SessionRepositoryFilter<?> sessionFilter, List<String> statelessPaths, Counter stateless) {
+            this.sessionFilter = sessionFilter;
+            this.statelessPaths = statelessPaths;
+            this.stateless = stateless;
+        }
+
+        @Override
+        protected boolean shouldNotFilter(HttpServletRequest request) {
+            String path = urlPathHelper.getPathWithinApplication(request);
+            if (statelessPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path))) {
+                if (request.getDispatcherType() == DispatcherType.REQUEST) {
+                    stateless.increment();
+                }
+                return true;
+            }
+            return false;
+        }
+
+        // the session filter handles async and error dispatches of a request itself
+        @Override
+        protected boolean shouldNotFilterAsyncDispatch() {
+            return false;
+        }
+
+        @Override
+        protected boolean shouldNotFilterErrorDispatch() {
+            return false;
+        }
+
+        @Override
+        protected void doFilterNestedErrorDispatch(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            sessionFilter.doFilter(request, response, chain);
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            sessionFilter.doFilter(request, response, chain);
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.techtask.technical_test_task.repository.session;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.Document;
+import org.bson.types.Binary;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sessions served from an in-process cache and written through to MongoDB only when they change.
+ * <p>
+ * A session is written when attributes, its timeout or its id change, and otherwise only once its
+ * stored {@code lastAccessedTime} lags by half the timeout, so a session read on every request is
+ * not rewritten on every request. New sessions stay in the cache until they get an attribute.
+ * Cached copies of stored sessions are re-read after {@code revalidateAfter}, which bounds how
+ * long a change made by another instance can go unseen. Like the other Spring Session stores,
+ * changes are tracked through {@code setAttribute}; an attribute mutated in place has to be set
+ * again. Attributes are stored JDK-serialized, stored sessions expire through a TTL index.
+ * <p>
+ * Without {@link MongoOperations} (the {@code inmemory} profile) sessions live in the cache only.
+ * Publishes {@code notes.session.reads} by {@code tier} ({@code cache}, {@code mongo}) and
+ * {@code notes.session.writes} by {@code result} ({@code written}, {@code skipped}).
+ */
+public class TieredSessionRepository implements SessionRepository<TieredSessionRepository.TieredSession> {
+
+    private final MongoOperations mongo;
+    private final String collection;
+    private final Duration defaultMaxInactiveInterval;
+    private final Duration revalidateAfter;
+    private final Clock clock;
+    private final Cache<String, Entry> cache;
+
+    private final SerializingConverter serializer = new SerializingConverter();
+    private final DeserializingConverter deserializer = new DeserializingConverter();
+
+    private final Counter cacheReads;
+    private final Counter mongoReads;
+    private final Counter written;
+    private final Counter skipped;
+
+    private volatile boolean indexed;
+
+    public TieredSessionRepository(MongoOperations mongo,
+                                   MeterRegistry meterRegistry,
+                                   String collection,
+                                   long maximumSize,
+                                   Duration revalidateAfter,
+                                   Duration defaultMaxInactiveInterval,
+                                   Clock clock) {
+        this.mongo = mongo;
+        this.collection = collection;
+        this.defaultMaxInactiveInterval = defaultMaxInactiveInterval;
+        this.revalidateAfter = revalidateAfter;
+        this.clock = clock;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(Expiry.accessing((String id, Entry entry) -> entry.session().getMaxInactiveInterval()))
+                .build();
+
+        this.cacheReads = reads(meterRegistry, "cache");
+        this.mongoReads = reads(meterRegistry, "mongo");
+        this.written = writes(meterRegistry, "written");
+        this.skipped = writes(meterRegistry, "skipped");
+    }
+
+    private static Counter reads(MeterRegistry meterRegistry, String tier) {
+        return Counter.builder("notes.session.reads")
+                .description("Session lookups, by the tier that answered them")
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    private static Counter writes(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("notes.session.writes")
+                .description("Session saves, by whether they reached MongoDB")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public TieredSession createSession() {
+        MapSession session = new MapSession();
+        session.setMaxInactiveInterval(defaultMaxInactiveInterval);
+        return new TieredSession(session, null, null);
+    }
+
+    @Override
+    public void save(TieredSession session) {
+        String id = session.getId();
+        boolean write = session.changed && (session.storedId != null || !session.getAttributeNames().isEmpty());
+        boolean touch = !write && session.storedId != null && isStale(session);
+        if (mongo != null && write) {
+            if (session.storedId != null && !session.storedId.equals(id)) {
+                mongo.remove(byId(session.storedId), collection);
+            }
+            ensureExpiryIndex();
+            mongo.save(toDocument(session.delegate), collection);
+        } else if (mongo != null && touch) {
+            mongo.updateFirst(byId(id), new Update()
+                    .set("lastAccessedTime", Date.from(session.getLastAccessedTime()))
+                    .set("expireAt", Date.from(expireAt(session))), collection);
+        }
+        if (!session.cachedId.equals(id)) {
+            cache.invalidate(session.cachedId);
+        }
+        if (mongo != null && (write || touch)) {
+            written.increment();
+            session.storedId = id;
+            session.storedAccess = session.getLastAccessedTime();
+            session.syncedAt = clock.instant();
+        } else {
+            skipped.increment();
+        }
+        cache.put(id, new Entry(new MapSession(session.delegate), session.storedId, session.storedAccess, session.syncedAt));
+        session.cachedId = id;
+        session.changed = false;
+    }
+
+    @Override
+    public TieredSession findById(String id) {
+        Entry entry = cache.getIfPresent(id);
+        if (entry != null && (mongo == null || entry.storedId() == null || isFresh(entry))) {
+            cacheReads.increment();
+        } else if (mongo != null) {
+            mongoReads.increment();
+            entry = load(id, entry);
+        }
+        if (entry == null) {
+            return null;
+        }
+        if (entry.session().isExpired()) {
+            deleteById(id);
+            return null;
+        }
+        TieredSession session = new TieredSession(new MapSession(entry.session()), entry.storedId(), entry.storedAccess());
+        session.syncedAt = entry.syncedAt();
+        return session;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        cache.invalidate(id);
+        if (mongo != null) {
+            mongo.remove(byId(id), collection);
+            written.increment();
+        }
+    }
+
+    private Entry load(String id, Entry cached) {
+        Document document = mongo.findById(id, Document.class, collection);
+        if (document == null) {
+            cache.invalidate(id);
+            return null;
+        }
+        MapSession session = fromDocument(document);
+        // touches that were not written yet are only known to this instance
+        if (cached != null && cached.session().getLastAccessedTime().isAfter(session.getLastAccessedTime())) {
+            session.setLastAccessedTime(cached.session().getLastAccessedTime());
+        }
+        Entry entry = new Entry(session, id, document.getDate("lastAccessedTime").toInstant(), clock.instant());
+        cache.put(id, entry);
+        return entry;
+    }
+
+    // created with the first stored session, so starting the application does not need MongoDB
+    private void ensureExpiryIndex() {
+        if (!indexed) {
+            mongo.indexOps(collection).createIndex(new Index().on("expireAt", Sort.Direction.ASC).expire(Duration.ZERO));
+            indexed = true;
+        }
+    }
+
+    private boolean isFresh(Entry entry) {
+        return clock.instant().isBefore(entry.syncedAt().plus(revalidateAfter));
+    }
+
+    private boolean isStale(TieredSession session) {
+        Duration lag = Duration.between(session.storedAccess, session.getLastAccessedTime());
+        return lag.compareTo(session.getMaxInactiveInterval().dividedBy(2)) >= 0;
+    }
+
+    private static Instant expireAt(Session session) {
+        return session.getLastAccessedTime().plus(session.getMaxInactiveInterval());
+    }
+
+    private static Query byId(String id) {
+        return Query.query(Criteria.where("_id").is(id));
+    }
+
+    private Document toDocument(MapSession session) {
+        Map<String, Object> attributes = new HashMap<>();
+        for (String name : session.getAttributeNames()) {
+            attributes.put(name, session.getAttribute(name));
+        }
+        return new Document("_id", session.getId())
+                .append("creationTime", Date.from(session.getCreationTime()))
+                .append("lastAccessedTime", Date.from(session.getLastAccessedTime()))
+                .append("maxInactiveSeconds", session.getMaxInactiveInterval().toSeconds())
+                .append("expireAt", Date.from(expireAt(session)))
+                .append("attributes", new Binary(serializer.convert(attributes)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private MapSession fromDocument(Document document) {
+        MapSession session = new MapSession(document.getString("_id"));
+        session.setCreationTime(document.getDate("creationTime").toInstant());
+        session.setLastAccessedTime(document.getDate("lastAccessedTime").toInstant());
+        session.setMaxInactiveInterval(Duration.ofSeconds(document.get("maxInactiveSeconds", Number.class).longValue()));
+        Map<String, Object> attributes = (Map<String, Object>) deserializer.convert(document.get("attributes", Binary.class).getData());
+        attributes.forEach(session::setAttribute);
+        return session;
+    }
+
+    // the cached copy of a session, with the id and lastAccessedTime it is stored under, if stored
+    private record Entry(MapSession session, String storedId, Instant storedAccess, Instant syncedAt) {
+    }
+
+    /**
+     * A session handed out for one request, recording whether it changed since it was read.
+     */
+    public static final class TieredSession implements Session {
+
+        private final MapSession delegate;
+        private String cachedId;
+        private String storedId;
+        private Instant storedAccess;
+        private Instant syncedAt;
+        private boolean changed;
+
+        private TieredSession(MapSession delegate, String storedId, Instant storedAccess) {
+            this.delegate = delegate;
+            this.cachedId = delegate.getId();
+            this.storedId = storedId;
+            this.storedAccess = storedAccess;
+        }
+
+        @Override
+        public String getId() {
+            return delegate.getId();
+        }
+
+        @Override
+        public String changeSessionId() {
+            changed = true;
+            return delegate.changeSessionId();
+        }
+
+        @Override
+        public <T> T getAttribute(String attributeName) {
+            return delegate.getAttribute(attributeName);
+        }
+
+        @Override
+        public Set<String> getAttributeNames() {
+            return delegate.getAttributeNames();
+        }
+
+        @Override
+        public void setAttribute(String attributeName, Object attributeValue) {
+            changed = true;
+            delegate.setAttribute(attributeName, attributeValue);
+        }
+
+        @Override
+        public void removeAttribute(String attributeName) {
+            changed |= delegate.getAttribute(attributeName) != null;
+            delegate.removeAttribute(attributeName);
+        }
+
+        @Override
+        public Instant getCreationTime() {
+            return delegate.getCreationTime();
+        }
+
+        @Override
+        public void setLastAccessedTime(Instant lastAccessedTime) {
+            delegate.setLastAccessedTime(lastAccessedTime);
+        }
+
+        @Override
+        public Instant getLastAccessedTime() {
+            return delegate.getLastAccessedTime();
+        }
+
+        @Override
+        public void setMaxInactiveInterval(Duration interval) {
+            changed |= !interval.equals(delegate.getMaxInactiveInterval());
+            delegate.setMaxInactiveInterval(interval);
+        }
+
+        @Override
+        public Duration getMaxInactiveInterval() {
+            return delegate.getMaxInactiveInterval();
+        }
+
+        @Override
+        public boolean isExpired() {
+            return delegate.isExpired();
+        }
+    }
+}
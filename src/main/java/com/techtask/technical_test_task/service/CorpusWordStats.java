@@ -0,0 +1,249 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.dto.WordCount;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.repository.NoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Word statistics over all notes, overall and per {@link Tag}, kept in fixed-size
+ * {@link WordSketch}es: approximate top-K words and number of distinct words.
+ * <p>
+ * {@link NoteService} adds the words of every written note and removes those of the previous
+ * version on updates and deletes: single writes take them from the note they replaced, bulk writes
+ * from its stored {@code NoteStats}, read before the bulk. A note without stored stats has nothing
+ * to remove, a bulk racing another write on the same note can remove the wrong version, and
+ * HyperLogLog never forgets, so the counts still drift.
+ * <p>
+ * The periodic rebuild wipes that drift: the {@code notes} collection is split into createDate
+ * shards, each shard is scanned with its own cursor into its own sketches in a fork-join pool, and
+ * the merged result replaces the live sketches. Notes written or deleted while the scan runs are
+ * skipped by it; the latest words of each are added to the result right before the swap.
+ */
+@Component
+public class CorpusWordStats {
+
+    private static final Logger log = LoggerFactory.getLogger(CorpusWordStats.class);
+
+    private final NoteRepository noteRepository;
+    private final int topCapacity;
+    private final int shards;
+    private final int batchSize;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile Sketches sketches;
+    // latest words by id of notes written while a rebuild runs, only changed holding the monitor
+    private volatile Map<String, Written> writtenDuringRebuild;
+
+    public CorpusWordStats(NoteRepository noteRepository,
+                           @Value("${notes.word-stats.top-capacity:100}") int topCapacity,
+                           @Value("${notes.word-stats.rebuild.shards:8}") int shards,
+                           @Value("${notes.word-stats.rebuild.batch-size:500}") int batchSize) {
+        this.noteRepository = noteRepository;
+        this.topCapacity = topCapacity;
+        this.shards = shards;
+        this.batchSize = batchSize;
+        this.sketches = new Sketches(topCapacity);
+    }
+
+    public int topCapacity() {
+        return topCapacity;
+    }
+
+    /**
+     * The {@code k} most frequent words of notes with the given tag, or of all notes when
+     * {@code tag} is {@code null}, with estimated occurrence counts.
+     */
+    public List<WordCount> topWords(Tag tag, int k) {
+        return sketches.of(tag).top(k);
+    }
+
+    public long distinctWords(Tag tag) {
+        return sketches.of(tag).distinct();
+    }
+
+    public void add(String id, List<Tag> tags, Map<String, Long> wordCounts) {
+        apply(id, new Written(tags, wordCounts), 1);
+    }
+
+    public void remove(String id, List<Tag> tags, Map<String, Long> wordCounts) {
+        apply(id, new Written(tags, wordCounts), -1);
+    }
+
+    private void apply(String id, Written words, int sign) {
+        if (writtenDuringRebuild == null) {
+            sketches.apply(words.tags(), words.wordCounts(), sign);
+            return;
+        }
+        synchronized (this) {
+            if (writtenDuringRebuild != null) {
+                writtenDuringRebuild.put(id, sign > 0 ? words : Written.NONE);
+            }
+            sketches.apply(words.tags(), words.wordCounts(), sign);
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduledRebuild();
+    }
+
+    @Scheduled(initialDelayString = "${notes.word-stats.rebuild-interval:6h}", fixedDelayString = "${notes.word-stats.rebuild-interval:6h}")
+    public void scheduledRebuild() {
+        try {
+            long started = System.nanoTime();
+            if (rebuild()) {
+                log.info("Corpus word stats rebuilt in {} ms", Duration.ofNanos(System.nanoTime() - started).toMillis());
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Corpus word stats rebuild failed, keeping the incrementally maintained sketches", ex);
+        }
+    }
+
+    /**
+     * Recomputes the sketches from the stored notes. A write whose note the scan had already
+     * read when the write was recorded is counted twice until the next rebuild.
+     *
+     * @return {@code false} when another rebuild is already running
+     */
+    public boolean rebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        synchronized (this) {
+            writtenDuringRebuild = new ConcurrentHashMap<>();
+        }
+        try {
+            List<LocalDateTime> bounds = shardBounds();
+            ForkJoinPool pool = new ForkJoinPool(Math.max(1, Math.min(shards, bounds.size() - 1)));
+            Sketches rebuilt;
+            try {
+                rebuilt = pool.invoke(new ShardScan(bounds, 0, bounds.size() - 1));
+            } finally {
+                pool.shutdown();
+            }
+            synchronized (this) {
+                writtenDuringRebuild.values().forEach(words -> rebuilt.apply(words.tags(), words.wordCounts(), 1));
+                sketches = rebuilt;
+            }
+            return true;
+        } finally {
+            synchronized (this) {
+                writtenDuringRebuild = null;
+            }
+            rebuilding.set(false);
+        }
+    }
+
+    // shard i covers [bounds[i], bounds[i + 1]), the outer bounds are open
+    private List<LocalDateTime> shardBounds() {
+        List<LocalDateTime> bounds = new ArrayList<>();
+        bounds.add(null);
+        Optional<LocalDateTime> oldest = noteRepository.findFirstByOrderByCreateDateAsc().map(Note::getCreateDate);
+        Optional<LocalDateTime> newest = noteRepository.findFirstByOrderByCreateDateDesc().map(Note::getCreateDate);
+        if (oldest.isPresent() && newest.isPresent() && shards > 1) {
+            long span = Duration.between(oldest.get(), newest.get()).toNanos();
+            for (int i = 1; i < shards && span > 0; i++) {
+                bounds.add(oldest.get().plusNanos(span / shards * i));
+            }
+        }
+        bounds.add(null);
+        return bounds;
+    }
+
+    private Sketches scan(LocalDateTime from, LocalDateTime to) {
+        Sketches shard = new Sketches(topCapacity);
+        try (Stream<Note> notes = noteRepository.streamNotes(null, from, to, batchSize)) {
+            notes.forEach(note -> {
+                if (note.getText() != null && !writtenDuringRebuild.containsKey(note.getId())) {
+                    shard.apply(note.getTags(), WordFrequencyCounter.count(note.getText()), 1);
+                }
+            });
+        }
+        return shard;
+    }
+
+    // words of a note version, NONE for a deleted note
+    private record Written(List<Tag> tags, Map<String, Long> wordCounts) {
+
+        static final Written NONE = new Written(List.of(), Map.of());
+    }
+
+    private final class ShardScan extends RecursiveTask<Sketches> {
+
+        private final List<LocalDateTime> bounds;
+        private final int first;
+        private final int last;
+
+        ShardScan(List<LocalDateTime> bounds, int first, int last) {
+            this.bounds = bounds;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected Sketches compute() {
+            if (last - first == 1) {
+                return scan(bounds.get(first), bounds.get(last));
+            }
+            int middle = (first + last) >>> 1;
+            ShardScan older = new ShardScan(bounds, first, middle);
+            older.fork();
+            Sketches result = new ShardScan(bounds, middle, last).compute();
+            result.merge(older.join());
+            return result;
+        }
+    }
+
+    private static final class Sketches {
+
+        private final WordSketch all;
+        private final Map<Tag, WordSketch> byTag = new EnumMap<>(Tag.class);
+
+        Sketches(int capacity) {
+            all = new WordSketch(capacity);
+            for (Tag tag : Tag.values()) {
+                byTag.put(tag, new WordSketch(capacity));
+            }
+        }
+
+        WordSketch of(Tag tag) {
+            return tag == null ? all : byTag.get(tag);
+        }
+
+        void apply(List<Tag> tags, Map<String, Long> wordCounts, int sign) {
+            List<WordSketch> targets = new ArrayList<>(4);
+            targets.add(all);
+            if (tags != null) {
+                tags.stream().filter(Objects::nonNull).distinct().forEach(tag -> targets.add(byTag.get(tag)));
+            }
+            for (Map.Entry<String, Long> word : wordCounts.entrySet()) {
+                for (WordSketch sketch : targets) {
+                    sketch.add(word.getKey(), sign * word.getValue());
+                }
+            }
+        }
+
+        void merge(Sketches other) {
+            all.merge(other.all);
+            byTag.forEach((tag, sketch) -> sketch.merge(other.byTag.get(tag)));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.techtask.technical_test_task.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.repository.NoteRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bounded read-through cache of notes by id in front of {@link NoteRepository}.
+ * Writes go through {@link NoteService}, which refreshes or evicts entries.
+ * Published as the {@code notes} cache ({@code cache.gets}, {@code cache.evictions}, ...)
+ * plus {@code notes.cache.hit.ratio}.
+ * <p>
+ * Next to the notes it keeps their encoded response bodies, gzip-compressed as well from
+ * {@code notes.cache.body.gzip-min-size}, within {@code notes.cache.body.maximum-size} bytes
+ * ({@code 0} turns it off). A body is tagged with the version it was encoded from and only
+ * served for that version; writes evict it together with the note. Published as the
+ * {@code note-bodies} cache.
+ */
+@Component
+public class NoteCache {
+
+    private final NoteRepository noteRepository;
+    private final Cache<String, Note> cache;
+    private final Cache<String, EncodedNote> bodies;
+    private final int gzipMinSize;
+
+    public NoteCache(NoteRepository noteRepository,
+                     MeterRegistry meterRegistry,
+                     @Value("${notes.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${notes.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                     @Value("${notes.cache.body.maximum-size:64MB}") DataSize bodyMaximumSize,
+                     @Value("${notes.cache.body.gzip-min-size:1KB}") DataSize gzipMinSize) {
+        this.noteRepository = noteRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+
+        this.bodies = Caffeine.newBuilder()
+                .maximumWeight(bodyMaximumSize.toBytes())
+                .weigher((String id, EncodedNote body) -> body.size())
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        this.gzipMinSize = Math.toIntExact(gzipMinSize.toBytes());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "notes");
+        CaffeineCacheMetrics.monitor(meterRegistry, bodies, "note-bodies");
+        Gauge.builder("notes.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of note lookups served from the cache")
+                .register(meterRegistry);
+    }
+
+    public Optional<Note> findById(String id) {
+        // concurrent misses for the same id share one repository call; absent notes are not cached
+        return Optional.ofNullable(cache.get(id, key -> noteRepository.findById(key).orElse(null)));
+    }
+
+    // lookup without loading on a miss
+    public Optional<Note> getIfPresent(String id) {
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    /**
+     * The note encoded by {@code encoder}, from the body cache when it was encoded from the
+     * current version. Notes without a version are encoded on every call.
+     */
+    public Optional<EncodedNote> findEncoded(String id, Function<Note, byte[]> encoder) {
+        Optional<Note> note = findById(id);
+        if (note.isEmpty()) {
+            return Optional.empty();
+        }
+        Long version = note.get().getVersion();
+        EncodedNote body = bodies.getIfPresent(id);
+        if (body != null && version != null && version.equals(body.version())) {
+            return Optional.of(body);
+        }
+        body = encode(note.get(), encoder);
+        if (version != null) {
+            // a concurrent write may have moved on already, the version check keeps it from being served
+            bodies.put(id, body);
+        }
+        return Optional.of(body);
+    }
+
+    /**
+     * Caches {@code note} unless a newer version of it is cached already, so a writer that
+     * finishes late cannot replace the note of a write that was stored after its own.
+     */
+    public void put(Note note) {
+        cache.asMap().merge(note.getId(), note, (cached, given) -> isNewer(cached, given) ? cached : given);
+        bodies.invalidate(note.getId());
+    }
+
+    public void evict(String id) {
+        cache.invalidate(id);
+        bodies.invalidate(id);
+    }
+
+    private static boolean isNewer(Note note, Note than) {
+        return note.getVersion() != null && than.getVersion() != null && note.getVersion() > than.getVersion();
+    }
+
+    private EncodedNote encode(Note note, Function<Note, byte[]> encoder) {
+        byte[] json = encoder.apply(note);
+        return new EncodedNote(note.getVersion(), json, json.length >= gzipMinSize ? gzip(json) : null);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bytes.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(bytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * Response body of a note version, {@code gzip} is null for bodies below the compression size.
+     */
+    public record EncodedNote(Long version, byte[] body, byte[] gzip) {
+
+        int size() {
+            return body.length + (gzip == null ? 0 : gzip.length);
+        }
+    }
+}
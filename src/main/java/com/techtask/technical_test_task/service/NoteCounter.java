@@ -0,0 +1,242 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.dto.TagFacets;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.model.TagCounts;
+import com.techtask.technical_test_task.repository.TagCountsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory note totals, overall, without tags and per {@link Tag}, used as {@code totalElements}
+ * of listing pages and for the tag facets so neither runs a count query.
+ * <p>
+ * Adjusted by {@link NoteService} on every write, and the same change is applied with one
+ * {@code $inc} to the shared {@link TagCounts} document off the request thread. The background
+ * refresh loads that document to pick up writes of other instances, keeping the changes whose
+ * {@code $inc} is still running or failed on top of it; the reconcile job recomputes it from the
+ * notes when increments were lost.
+ */
+@Component
+public class NoteCounter {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteCounter.class);
+
+    private final TagCountsRepository tagCountsRepository;
+    private final Executor executor;
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong untagged = new AtomicLong();
+    private final Map<Tag, AtomicLong> perTag = new EnumMap<>(Tag.class);
+    private volatile boolean initialized;
+    // changes counted here but not in the stored document, and the number of increments started
+    // or finished, all guarded by this
+    private final Changes inFlight = new Changes();
+    private final Changes failed = new Changes();
+    private long increments;
+
+    public NoteCounter(TagCountsRepository tagCountsRepository,
+                       @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.tagCountsRepository = tagCountsRepository;
+        this.executor = executor;
+        for (Tag tag : Tag.values()) {
+            perTag.put(tag, new AtomicLong());
+        }
+    }
+
+    /**
+     * Total of notes with the given tag, or of all notes when {@code tag} is {@code null};
+     * empty until the first refresh completed.
+     */
+    public OptionalLong count(Tag tag) {
+        if (!initialized) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(Math.max(0, tag == null ? total.get() : perTag.get(tag).get()));
+    }
+
+    /**
+     * All totals at once, empty until the first refresh completed.
+     */
+    public Optional<TagFacets> facets() {
+        if (!initialized) {
+            return Optional.empty();
+        }
+        Map<Tag, Long> tags = new EnumMap<>(Tag.class);
+        perTag.forEach((tag, count) -> tags.put(tag, Math.max(0, count.get())));
+        return Optional.of(new TagFacets(Math.max(0, total.get()), Math.max(0, untagged.get()), tags));
+    }
+
+    @Scheduled(initialDelayString = "${notes.counts.initial-delay:0s}", fixedDelayString = "${notes.counts.refresh-interval:60s}")
+    public void refresh() {
+        try {
+            long seen;
+            synchronized (this) {
+                seen = increments;
+            }
+            Optional<TagCounts> stored = tagCountsRepository.findById(TagCounts.ID);
+            if (stored.isPresent()) {
+                load(stored.get(), seen);
+            } else {
+                reconcile();
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Could not refresh note counts", ex);
+        }
+    }
+
+    /**
+     * Recomputes the shared counts from the notes and replaces the stored document. Increments
+     * of writes that run concurrently can be lost or counted twice until the next reconcile.
+     */
+    public void reconcile() {
+        TagCounts counts = tagCountsRepository.countFromNotes();
+        counts.setId(TagCounts.ID);
+        tagCountsRepository.save(counts);
+        synchronized (this) {
+            // the notes counted include the writes whose increment failed
+            failed.clear();
+            load(counts, increments);
+        }
+    }
+
+    public void noteCreated(List<Tag> tags) {
+        apply(new Changes().created(tags));
+    }
+
+    public void noteUpdated(List<Tag> previousTags, List<Tag> tags) {
+        apply(new Changes().updated(previousTags, tags));
+    }
+
+    public void noteDeleted(List<Tag> tags) {
+        apply(new Changes().deleted(tags));
+    }
+
+    /**
+     * Applies the changes of several writes at once, with a single {@code $inc}.
+     */
+    public void apply(Changes changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        Changes applied = new Changes().add(changes, 1);
+        synchronized (this) {
+            total.addAndGet(applied.total);
+            untagged.addAndGet(applied.untagged);
+            for (Tag tag : Tag.values()) {
+                perTag.get(tag).addAndGet(applied.perTag[tag.ordinal()]);
+            }
+            inFlight.add(applied, 1);
+            increments++;
+        }
+
+        TagCounts delta = applied.toTagCounts();
+        executor.execute(() -> {
+            boolean stored = false;
+            try {
+                tagCountsRepository.increment(delta);
+                stored = true;
+            } catch (RuntimeException ex) {
+                log.warn("Could not update stored note counts, the next reconcile corrects them", ex);
+            } finally {
+                settled(applied, stored);
+            }
+        });
+    }
+
+    private synchronized void settled(Changes applied, boolean stored) {
+        inFlight.add(applied, -1);
+        if (!stored) {
+            failed.add(applied, 1);
+        }
+        increments++;
+    }
+
+    // seen is the number of increments started or finished when the document was read
+    private synchronized void load(TagCounts counts, long seen) {
+        if (initialized && increments != seen) {
+            // the document may or may not include an increment that ran meanwhile, keep the local counts
+            return;
+        }
+        total.set(counts.getTotal() + inFlight.total + failed.total);
+        untagged.set(counts.getUntagged() + inFlight.untagged + failed.untagged);
+        Map<String, Long> tags = counts.getTags() == null ? Map.of() : counts.getTags();
+        for (Tag tag : Tag.values()) {
+            int i = tag.ordinal();
+            perTag.get(tag).set(tags.getOrDefault(tag.name(), 0L) + inFlight.perTag[i] + failed.perTag[i]);
+        }
+        initialized = true;
+    }
+
+    /**
+     * Count changes of one or more note writes. A note without tags, {@code null} or empty,
+     * counts as untagged.
+     */
+    public static final class Changes {
+
+        private long total;
+        private long untagged;
+        private final long[] perTag = new long[Tag.values().length];
+
+        public Changes created(List<Tag> tags) {
+            total++;
+            adjust(tags, 1);
+            return this;
+        }
+
+        public Changes updated(List<Tag> previousTags, List<Tag> tags) {
+            adjust(previousTags, -1);
+            adjust(tags, 1);
+            return this;
+        }
+
+        public Changes deleted(List<Tag> tags) {
+            total--;
+            adjust(tags, -1);
+            return this;
+        }
+
+        private Changes add(Changes other, int sign) {
+            total += sign * other.total;
+            untagged += sign * other.untagged;
+            for (int i = 0; i < perTag.length; i++) {
+                perTag[i] += sign * other.perTag[i];
+            }
+            return this;
+        }
+
+        private void clear() {
+            add(this, -1);
+        }
+
+        boolean isEmpty() {
+            return total == 0 && untagged == 0 && Arrays.stream(perTag).allMatch(count -> count == 0);
+        }
+
+        private void adjust(List<Tag> tags, int delta) {
+            List<Tag> distinct = tags == null ? List.of() : tags.stream().filter(Objects::nonNull).distinct().toList();
+            if (distinct.isEmpty()) {
+                untagged += delta;
+            }
+            for (Tag tag : distinct) {
+                perTag[tag.ordinal()] += delta;
+            }
+        }
+
+        private TagCounts toTagCounts() {
+            Map<String, Long> tags = new HashMap<>();
+            for (Tag tag : Tag.values()) {
+                if (perTag[tag.ordinal()] != 0) {
+                    tags.put(tag.name(), perTag[tag.ordinal()]);
+                }
+            }
+            return TagCounts.builder().total(total).untagged(untagged).tags(tags).build();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.exception.InvalidNoteRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in the {@code (createDate DESC, id DESC)} order of notes, encoded as an opaque
+ * URL-safe token for {@code GET /api/notes?cursor=...}.
+ */
+public record NoteCursor(LocalDateTime createDate, String id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static NoteCursor decode(String token) {
+        byte[] decoded;
+        try {
+            decoded = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidNoteRequestException("Invalid cursor", ex);
+        }
+        try {
+            String value = new String(decoded, StandardCharsets.UTF_8);
+            int separator = value.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidNoteRequestException("Invalid cursor");
+            }
+            return new NoteCursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (DateTimeParseException ex) {
+            throw new InvalidNoteRequestException("Invalid cursor", ex);
+        }
+    }
+
+    public String encode() {
+        String value = createDate.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,194 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.dto.BulkItemStatus;
+import com.techtask.technical_test_task.dto.BulkResult;
+import com.techtask.technical_test_task.model.Note;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind ingestion for {@code POST /api/notes/async}: accepted notes wait in a bounded
+ * queue and one writer thread stores them with {@link NoteService#insertAccepted}, a batch at a
+ * time of up to {@code notes.ingest.batch-size} notes or whatever arrived within
+ * {@code notes.ingest.flush-interval} of the first one.
+ * <p>
+ * A full queue holds producers for {@code notes.ingest.offer-timeout} and then turns them away
+ * with a 503. A batch that fails as a whole is retried up to {@code notes.ingest.max-attempts}
+ * times; notes a failed attempt did store are recognised by their id and not written twice. The
+ * writer stops after the web server, so the queue is drained on graceful shutdown.
+ * Publishes {@code notes.ingest.queue.size}, {@code notes.ingest.batch} (write latency),
+ * {@code notes.ingest.batch.size}, {@code notes.ingest.rejected} and {@code notes.ingest.failed}.
+ */
+@Component
+@Profile("!reactive")
+public class NoteIngestQueue implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteIngestQueue.class);
+
+    private final NoteService noteService;
+    private final BlockingQueue<Note> queue;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutNanos;
+    private final int maxAttempts;
+
+    private final Timer batchTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter rejected;
+    private final Counter failed;
+
+    private volatile boolean running;
+    private Thread writer;
+
+    public NoteIngestQueue(NoteService noteService,
+                           MeterRegistry meterRegistry,
+                           @Value("${notes.ingest.queue-capacity:10000}") int queueCapacity,
+                           @Value("${notes.ingest.batch-size:500}") int batchSize,
+                           @Value("${notes.ingest.flush-interval:50ms}") Duration flushInterval,
+                           @Value("${notes.ingest.offer-timeout:100ms}") Duration offerTimeout,
+                           @Value("${notes.ingest.max-attempts:3}") int maxAttempts) {
+        this.noteService = noteService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.offerTimeoutNanos = offerTimeout.toNanos();
+        this.maxAttempts = maxAttempts;
+
+        Gauge.builder("notes.ingest.queue.size", queue, BlockingQueue::size)
+                .description("Notes accepted and waiting to be written")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("notes.ingest.batch")
+                .description("Time to write one batch of accepted notes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("notes.ingest.batch.size")
+                .description("Notes per written batch")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("notes.ingest.rejected")
+                .description("Notes turned away because the queue was full")
+                .register(meterRegistry);
+        this.failed = Counter.builder("notes.ingest.failed")
+                .description("Accepted notes that could not be written")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Assigns id, createDate and version to a validated note and queues it.
+     *
+     * @return the id of the note, readable once its batch is written
+     * @throws TransientDataAccessResourceException when the queue stays full for the offer timeout
+     */
+    public String submit(Note note) {
+        if (!running) {
+            throw new TransientDataAccessResourceException("Note ingestion is not running");
+        }
+        note.setId(new ObjectId().toHexString());
+        note.setCreateDate(LocalDateTime.now());
+        note.setVersion(0L);
+        try {
+            if (!queue.offer(note, offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new TransientDataAccessResourceException("Note ingestion queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientDataAccessResourceException("Interrupted while queueing a note", e);
+        }
+        return note.getId();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writer = Thread.ofPlatform().name("note-ingest").daemon().start(this::drain);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("Note ingestion stopped, {} notes left unwritten", queue.size());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // stops after the web server, whose lifecycle phases are just below the default
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drain() {
+        List<Note> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Note first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    Note next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // stop() waits for the queue to drain, interruptions only cut the window short
+                Thread.interrupted();
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Note> batch) {
+        batchSizes.record(batch.size());
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                BulkResult result = batchTimer.recordCallable(() -> noteService.insertAccepted(batch));
+                if (result.getFailed() > 0) {
+                    failed.increment(result.getFailed());
+                    result.getItems().stream()
+                            .filter(item -> item.getStatus() != BulkItemStatus.CREATED)
+                            .forEach(item -> log.warn("Queued note {} was not stored: {}", item.getId(), item.getErrors()));
+                }
+                return;
+            } catch (Exception ex) {
+                log.warn("Writing {} queued notes failed, attempt {} of {}", batch.size(), attempt, maxAttempts, ex);
+            }
+        }
+        failed.increment(batch.size());
+    }
+}
@@ -0,0 +1,356 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.exception.InvalidNoteRequestException;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.repository.NoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * In-process inverted index over note text behind {@code GET /api/notes/search}.
+ * <p>
+ * Every indexed note version gets an ordinal from an increasing sequence; a term maps to the
+ * sorted array of ordinals whose text contains it, and every {@link Tag} to a bitset of
+ * ordinals. Updating a note retires its ordinal and indexes the new text under a fresh one, so
+ * postings only ever grow at the end and stay sorted. Retired ordinals are masked out at query
+ * time and dropped, with renumbering, once they outnumber live ones. The note version behind
+ * every live ordinal is kept, so a writer that finishes late cannot replace a newer version.
+ * <p>
+ * Terms come from {@link WordFrequencyCounter}, the tokenizer of the word stats. Maintained by
+ * {@link NoteService} on every write and rebuilt from the {@code notes} collection after startup;
+ * until the rebuild finishes, notes that were not written since startup are missing from results.
+ */
+@Component
+public class NoteSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteSearchIndex.class);
+
+    private static final int COMPACT_MIN_RETIRED = 1024;
+
+    private final NoteRepository noteRepository;
+    private final int rebuildBatchSize;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final Map<String, Long> versions = new HashMap<>();
+    private final List<String> ids = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    private final Map<Tag, BitSet> tagged = new EnumMap<>(Tag.class);
+    private int retired;
+    // ids deleted while the startup rebuild runs, so it does not bring them back
+    private Set<String> removedDuringRebuild;
+
+    public NoteSearchIndex(NoteRepository noteRepository,
+                           @Value("${notes.search.rebuild.batch-size:500}") int rebuildBatchSize) {
+        this.noteRepository = noteRepository;
+        this.rebuildBatchSize = rebuildBatchSize;
+        for (Tag tag : Tag.values()) {
+            tagged.put(tag, new BitSet());
+        }
+    }
+
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            int indexed = rebuild();
+            log.info("Search index rebuilt, {} notes indexed", indexed);
+        } catch (RuntimeException ex) {
+            log.warn("Search index rebuild failed, only notes written since startup are searchable", ex);
+        }
+    }
+
+    /**
+     * Indexes every stored note that has not been written or deleted since the rebuild started.
+     */
+    public int rebuild() {
+        lock.writeLock().lock();
+        try {
+            removedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        int indexed = 0;
+        List<Note> batch = new ArrayList<>(rebuildBatchSize);
+        try (Stream<Note> notes = noteRepository.streamAllBy()) {
+            Iterator<Note> iterator = notes.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == rebuildBatchSize || !iterator.hasNext()) {
+                    indexed += indexMissing(batch);
+                    batch.clear();
+                }
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                removedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return indexed;
+    }
+
+    private int indexMissing(List<Note> batch) {
+        // each term set is computed outside the lock
+        List<Set<String>> terms = batch.stream().map(note -> terms(note.getText())).toList();
+        int indexed = 0;
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                Note note = batch.get(i);
+                // a newer version was indexed by a write since startup
+                if (ordinals.containsKey(note.getId()) || removedDuringRebuild.contains(note.getId())) {
+                    continue;
+                }
+                add(note, terms.get(i));
+                indexed++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return indexed;
+    }
+
+    /**
+     * Indexes the note, replacing whatever was indexed for its id before unless that is a newer
+     * version of it.
+     */
+    public void index(Note note) {
+        Set<String> terms = terms(note.getText());
+        lock.writeLock().lock();
+        try {
+            Long indexed = versions.get(note.getId());
+            if (indexed != null && note.getVersion() != null && indexed > note.getVersion()) {
+                return;
+            }
+            retire(note.getId());
+            add(note, terms);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            retire(id);
+            if (removedDuringRebuild != null) {
+                removedDuringRebuild.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the notes matching {@code query}, most recently written first.
+     * <p>
+     * Words are combined with {@code AND} unless separated by the {@code OR} keyword;
+     * {@code AND} binds tighter, so {@code budget review OR deadline} matches notes containing
+     * both "budget" and "review", or "deadline". Keywords are only recognized in upper case.
+     *
+     * @param tag only notes with this tag, or all notes when {@code null}
+     * @throws InvalidNoteRequestException when the query contains no searchable word
+     */
+    public List<String> search(String query, Tag tag) {
+        List<List<String>> clauses = parse(query);
+        lock.readLock().lock();
+        try {
+            BitSet matches = new BitSet(ids.size());
+            for (List<String> clause : clauses) {
+                for (int ordinal : intersect(clause)) {
+                    matches.set(ordinal);
+                }
+            }
+            matches.and(live);
+            if (tag != null) {
+                matches.and(tagged.get(tag));
+            }
+
+            List<String> result = new ArrayList<>(matches.cardinality());
+            for (int ordinal = matches.length() - 1; ordinal >= 0; ordinal = matches.previousSetBit(ordinal - 1)) {
+                result.add(ids.get(ordinal));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<List<String>> parse(String query) {
+        List<List<String>> clauses = new ArrayList<>();
+        List<String> clause = new ArrayList<>();
+        for (String token : query.trim().split("\\s+")) {
+            if (token.equals("OR")) {
+                if (!clause.isEmpty()) {
+                    clauses.add(clause);
+                    clause = new ArrayList<>();
+                }
+            } else if (!token.equals("AND")) {
+                // words the tokenizer drops entirely, such as numbers, do not restrict the clause
+                clause.addAll(terms(token));
+            }
+        }
+        if (!clause.isEmpty()) {
+            clauses.add(clause);
+        }
+        if (clauses.isEmpty()) {
+            throw new InvalidNoteRequestException("Search query must contain at least one word");
+        }
+        return clauses;
+    }
+
+    private static Set<String> terms(String text) {
+        return text == null ? Set.of() : WordFrequencyCounter.count(text).keySet();
+    }
+
+    private int[] intersect(List<String> clause) {
+        List<Postings> lists = new ArrayList<>(clause.size());
+        for (String term : clause) {
+            Postings list = postings.get(term);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        Postings smallest = lists.get(0);
+        int[] result = Arrays.copyOf(smallest.ordinals, smallest.size);
+        int size = result.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            Postings other = lists.get(i);
+            int kept = 0;
+            for (int a = 0, b = 0; a < size && b < other.size; ) {
+                int left = result[a];
+                int right = other.ordinals[b];
+                if (left == right) {
+                    result[kept++] = left;
+                    a++;
+                    b++;
+                } else if (left < right) {
+                    a++;
+                } else {
+                    b++;
+                }
+            }
+            size = kept;
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private void add(Note note, Set<String> terms) {
+        int ordinal = ids.size();
+        ids.add(note.getId());
+        ordinals.put(note.getId(), ordinal);
+        if (note.getVersion() != null) {
+            versions.put(note.getId(), note.getVersion());
+        }
+        live.set(ordinal);
+        for (String term : terms) {
+            postings.computeIfAbsent(term, t -> new Postings()).append(ordinal);
+        }
+        if (note.getTags() != null) {
+            for (Tag tag : note.getTags()) {
+                if (tag != null) {
+                    tagged.get(tag).set(ordinal);
+                }
+            }
+        }
+    }
+
+    private void retire(String id) {
+        versions.remove(id);
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        live.clear(ordinal);
+        retired++;
+        if (retired >= COMPACT_MIN_RETIRED && retired > ordinals.size()) {
+            compact();
+        }
+    }
+
+    // drops retired ordinals and renumbers live ones in order, so postings stay sorted
+    private void compact() {
+        int[] renumbered = new int[ids.size()];
+        List<String> compactIds = new ArrayList<>(ordinals.size());
+        for (int ordinal = 0; ordinal < ids.size(); ordinal++) {
+            if (live.get(ordinal)) {
+                renumbered[ordinal] = compactIds.size();
+                compactIds.add(ids.get(ordinal));
+            } else {
+                renumbered[ordinal] = -1;
+            }
+        }
+
+        Iterator<Postings> lists = postings.values().iterator();
+        while (lists.hasNext()) {
+            Postings list = lists.next();
+            list.renumber(renumbered);
+            if (list.size == 0) {
+                lists.remove();
+            }
+        }
+        for (Map.Entry<Tag, BitSet> entry : tagged.entrySet()) {
+            BitSet compactTagged = new BitSet(compactIds.size());
+            BitSet bits = entry.getValue();
+            for (int ordinal = bits.nextSetBit(0); ordinal >= 0; ordinal = bits.nextSetBit(ordinal + 1)) {
+                if (renumbered[ordinal] >= 0) {
+                    compactTagged.set(renumbered[ordinal]);
+                }
+            }
+            entry.setValue(compactTagged);
+        }
+
+        ids.clear();
+        ids.addAll(compactIds);
+        ordinals.replaceAll((id, ordinal) -> renumbered[ordinal]);
+        live.clear();
+        live.set(0, ids.size());
+        retired = 0;
+    }
+
+    private static final class Postings {
+
+        private int[] ordinals = new int[4];
+        private int size;
+
+        void append(int ordinal) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+            }
+            ordinals[size++] = ordinal;
+        }
+
+        void renumber(int[] renumbered) {
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int ordinal = renumbered[ordinals[i]];
+                if (ordinal >= 0) {
+                    ordinals[kept++] = ordinal;
+                }
+            }
+            size = kept;
+            if (size < ordinals.length / 4) {
+                ordinals = Arrays.copyOf(ordinals, Math.max(4, size));
+            }
+        }
+    }
+}
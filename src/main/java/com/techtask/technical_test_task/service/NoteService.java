@@ -1,100 +1,639 @@
 package com.techtask.technical_test_task.service;
 
+import com.techtask.technical_test_task.dto.BulkItemResult;
+import com.techtask.technical_test_task.dto.BulkItemStatus;
+import com.techtask.technical_test_task.dto.BulkResult;
+import com.techtask.technical_test_task.dto.CursorPage;
 import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.dto.SlicePage;
+import com.techtask.technical_test_task.dto.TagFacets;
+import com.techtask.technical_test_task.dto.WordCount;
+import com.techtask.technical_test_task.exception.InvalidNoteRequestException;
 import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.NoteStats;
 import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.model.TagMatch;
 import com.techtask.technical_test_task.repository.NoteRepository;
+import com.techtask.technical_test_task.repository.NoteStatsRepository;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.function.Function;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed(value = "notes.service", histogram = true)
 public class NoteService {
 
+    static final List<String> NOTE_FIELDS = List.of("id", "title", "createDate", "text", "tags");
+    // start of a duplicate key write error, from MongoDB and the in-memory store alike
+    static final String DUPLICATE_KEY = "E11000";
+
     private final NoteRepository noteRepository;
+    private final NoteStatsRepository noteStatsRepository;
+    private final NoteCache noteCache;
+    private final NoteCounter noteCounter;
+    private final NoteSearchIndex searchIndex;
+    private final CorpusWordStats corpusWordStats;
+    private final Validator validator;
+    private final DistributionSummary textSize;
+    private final int exportBatchSize;
+    private final int bulkMaxSize;
 
-    public NoteService(NoteRepository noteRepository) {
+    public NoteService(NoteRepository noteRepository, NoteStatsRepository noteStatsRepository,
+                       NoteCache noteCache, NoteCounter noteCounter, NoteSearchIndex searchIndex,
+                       CorpusWordStats corpusWordStats, Validator validator, MeterRegistry meterRegistry,
+                       @Value("${notes.export.batch-size:500}") int exportBatchSize,
+                       @Value("${notes.bulk.max-size:1000}") int bulkMaxSize) {
         this.noteRepository = noteRepository;
+        this.noteStatsRepository = noteStatsRepository;
+        this.noteCache = noteCache;
+        this.noteCounter = noteCounter;
+        this.searchIndex = searchIndex;
+        this.corpusWordStats = corpusWordStats;
+        this.validator = validator;
+        this.exportBatchSize = exportBatchSize;
+        this.bulkMaxSize = bulkMaxSize;
+        this.textSize = DistributionSummary.builder("notes.text.size")
+                .description("UTF-8 size of the text of created and updated notes")
+                .baseUnit("bytes")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
     public Note createNote(Note note) {
         note.setCreateDate(LocalDateTime.now());
-        return noteRepository.save(note);
+        // a client supplied version would turn the insert into a versioned update
+        note.setVersion(null);
+        Note savedNote = noteRepository.save(note);
+        recordTextSize(savedNote);
+        noteCache.put(savedNote);
+        noteCounter.noteCreated(savedNote.getTags());
+        searchIndex.index(savedNote);
+        corpusWordStats.add(savedNote.getId(), savedNote.getTags(), saveStats(savedNote).getWordCounts());
+        return savedNote;
+    }
+
+    /**
+     * Creates every valid note in one unordered bulk insert. Invalid notes are reported with the
+     * same messages as {@code POST /api/notes} and do not prevent the others from being stored.
+     */
+    public BulkResult createNotes(List<Note> notes) {
+        checkBulkSize(notes.size(), bulkMaxSize);
+        BulkItemResult[] results = new BulkItemResult[notes.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Note> toInsert = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < notes.size(); i++) {
+            Note note = notes.get(i);
+            Map<String, String> errors = validate(validator, note);
+            if (!errors.isEmpty()) {
+                results[i] = new BulkItemResult(i, note == null ? null : note.getId(), BulkItemStatus.INVALID, errors);
+                continue;
+            }
+            if (note.getId() == null) {
+                note.setId(new ObjectId().toHexString());
+            }
+            note.setCreateDate(now);
+            note.setVersion(0L);
+            positions.add(i);
+            toInsert.add(note);
+        }
+
+        insert(toInsert, positions, results, false);
+        return new BulkResult(Arrays.asList(results));
+    }
+
+    /**
+     * Inserts notes accepted by {@link NoteIngestQueue}, validated and given id, createDate and
+     * version on submission, in one unordered bulk insert.
+     * <p>
+     * Safe to call again with a batch that failed part way: as the ids were assigned on submission,
+     * a note whose id already exists was stored by the earlier call and is reported as created.
+     */
+    public BulkResult insertAccepted(List<Note> notes) {
+        BulkItemResult[] results = new BulkItemResult[notes.size()];
+        List<Integer> positions = new ArrayList<>(notes.size());
+        for (int i = 0; i < notes.size(); i++) {
+            positions.add(i);
+        }
+        insert(notes, positions, results, true);
+        return new BulkResult(Arrays.asList(results));
+    }
+
+    // inserts toInsert, reporting each at its position in results; with storedOnDuplicate a
+    // duplicate id counts as the note being stored already
+    private void insert(List<Note> toInsert, List<Integer> positions, BulkItemResult[] results, boolean storedOnDuplicate) {
+        Map<Integer, String> failures = toInsert.isEmpty() ? Map.of() : noteRepository.insertUnordered(toInsert);
+        List<Note> stored = new ArrayList<>();
+        List<NoteStats> stats = new ArrayList<>();
+        for (int j = 0; j < toInsert.size(); j++) {
+            Note note = toInsert.get(j);
+            int i = positions.get(j);
+            String failure = failures.get(j);
+            if (failure != null && !(storedOnDuplicate && failure.startsWith(DUPLICATE_KEY))) {
+                results[i] = failed(i, note.getId(), failure);
+                continue;
+            }
+            stored.add(note);
+            stats.add(buildStats(note));
+            results[i] = new BulkItemResult(i, note.getId(), BulkItemStatus.CREATED, null);
+        }
+        // stats go first, so a failure to save them leaves nothing counted and the batch retryable
+        noteStatsRepository.saveAllIfNewer(stats);
+        NoteCounter.Changes counts = new NoteCounter.Changes();
+        for (int k = 0; k < stored.size(); k++) {
+            Note note = stored.get(k);
+            recordTextSize(note);
+            noteCache.put(note);
+            counts.created(note.getTags());
+            searchIndex.index(note);
+            corpusWordStats.add(note.getId(), note.getTags(), stats.get(k).getWordCounts());
+        }
+        noteCounter.apply(counts);
+    }
+
+    /**
+     * Replaces title, text and tags of existing notes in one unordered bulk write.
+     */
+    public BulkResult updateNotes(List<Note> notes) {
+        checkBulkSize(notes.size(), bulkMaxSize);
+        BulkItemResult[] results = new BulkItemResult[notes.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Note> candidates = new ArrayList<>();
+
+        for (int i = 0; i < notes.size(); i++) {
+            Note note = notes.get(i);
+            Map<String, String> errors = new HashMap<>(validate(validator, note));
+            if (note != null && (note.getId() == null || note.getId().isBlank())) {
+                errors.put("id", "Id is required for update");
+            }
+            if (!errors.isEmpty()) {
+                results[i] = new BulkItemResult(i, note == null ? null : note.getId(), BulkItemStatus.INVALID, errors);
+                continue;
+            }
+            positions.add(i);
+            candidates.add(note);
+        }
+
+        Map<String, List<Tag>> currentTags = findCurrentTags(candidates.stream().map(Note::getId).toList());
+        List<Integer> updatePositions = new ArrayList<>();
+        List<Note> toUpdate = new ArrayList<>();
+        for (int j = 0; j < candidates.size(); j++) {
+            Note note = candidates.get(j);
+            int i = positions.get(j);
+            if (!currentTags.containsKey(note.getId())) {
+                results[i] = new BulkItemResult(i, note.getId(), BulkItemStatus.NOT_FOUND, null);
+                continue;
+            }
+            updatePositions.add(i);
+            toUpdate.add(note);
+        }
+
+        Map<Integer, String> failures = toUpdate.isEmpty() ? Map.of() : noteRepository.updateUnordered(toUpdate);
+        Map<String, Map<String, Long>> previousWords = findStoredWordCounts(toUpdate.stream().map(Note::getId).toList());
+        Set<String> updated = new LinkedHashSet<>();
+        NoteCounter.Changes counts = new NoteCounter.Changes();
+        for (int j = 0; j < toUpdate.size(); j++) {
+            Note note = toUpdate.get(j);
+            int i = updatePositions.get(j);
+            if (failures.containsKey(j)) {
+                results[i] = failed(i, note.getId(), failures.get(j));
+                continue;
+            }
+            recordTextSize(note);
+            noteCache.evict(note.getId());
+            // later items of the same batch may update the same note again
+            List<Tag> previousTags = currentTags.put(note.getId(), note.getTags());
+            counts.updated(previousTags, note.getTags());
+            searchIndex.index(note);
+            NoteStats noteStats = buildStats(note);
+            Map<String, Long> previous = previousWords.put(note.getId(), noteStats.getWordCounts());
+            if (previous != null) {
+                corpusWordStats.remove(note.getId(), previousTags, previous);
+            }
+            corpusWordStats.add(note.getId(), note.getTags(), noteStats.getWordCounts());
+            updated.add(note.getId());
+            results[i] = new BulkItemResult(i, note.getId(), BulkItemStatus.UPDATED, null);
+        }
+        noteCounter.apply(counts);
+        noteStatsRepository.saveAllIfNewer(findStoredStats(updated));
+        return new BulkResult(Arrays.asList(results));
+    }
+
+    /**
+     * Deletes the notes with the given ids in one unordered bulk write.
+     */
+    public BulkResult deleteNotes(List<String> ids) {
+        checkBulkSize(ids.size(), bulkMaxSize);
+        BulkItemResult[] results = new BulkItemResult[ids.size()];
+        Map<String, List<Tag>> currentTags = findCurrentTags(ids.stream()
+                .filter(id -> id != null && !id.isBlank())
+                .toList());
+        List<Integer> positions = new ArrayList<>();
+        List<String> toDelete = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            if (id == null || id.isBlank()) {
+                results[i] = new BulkItemResult(i, id, BulkItemStatus.INVALID, Map.of("id", "Id cannot be empty"));
+            } else if (!currentTags.containsKey(id) || !seen.add(id)) {
+                results[i] = new BulkItemResult(i, id, BulkItemStatus.NOT_FOUND, null);
+            } else {
+                positions.add(i);
+                toDelete.add(id);
+            }
+        }
+
+        Map<String, Map<String, Long>> previousWords = findStoredWordCounts(toDelete);
+        Map<Integer, String> failures = toDelete.isEmpty() ? Map.of() : noteRepository.deleteUnordered(toDelete);
+        List<String> deleted = new ArrayList<>();
+        NoteCounter.Changes counts = new NoteCounter.Changes();
+        for (int j = 0; j < toDelete.size(); j++) {
+            String id = toDelete.get(j);
+            int i = positions.get(j);
+            if (failures.containsKey(j)) {
+                results[i] = failed(i, id, failures.get(j));
+                continue;
+            }
+            noteCache.evict(id);
+            counts.deleted(currentTags.get(id));
+            searchIndex.remove(id);
+            if (previousWords.containsKey(id)) {
+                corpusWordStats.remove(id, currentTags.get(id), previousWords.get(id));
+            }
+            deleted.add(id);
+            results[i] = new BulkItemResult(i, id, BulkItemStatus.DELETED, null);
+        }
+        noteCounter.apply(counts);
+        noteStatsRepository.deleteAllById(deleted);
+        return new BulkResult(Arrays.asList(results));
     }
 
-    public List<Note> getAllNotes() {
-        return noteRepository.findAll();
+    static void checkBulkSize(int size, int bulkMaxSize) {
+        if (size > bulkMaxSize) {
+            throw new InvalidNoteRequestException("Bulk requests cannot exceed " + bulkMaxSize + " items");
+        }
+    }
+
+    static Map<String, String> validate(Validator validator, Note note) {
+        if (note == null) {
+            return Map.of("note", "Note cannot be null");
+        }
+        Map<String, String> errors = new HashMap<>();
+        for (ConstraintViolation<Note> violation : validator.validate(note)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        return errors;
+    }
+
+    // id -> tags of the notes that exist, a note without tags maps to null
+    private Map<String, List<Tag>> findCurrentTags(List<String> ids) {
+        Map<String, List<Tag>> tags = new HashMap<>();
+        if (!ids.isEmpty()) {
+            noteRepository.findTagsByIds(ids).forEach(note -> tags.put(note.getId(), note.getTags()));
+        }
+        return tags;
+    }
+
+    // word counts as of the last write, read before bulk writes replace or delete them
+    private Map<String, Map<String, Long>> findStoredWordCounts(List<String> ids) {
+        Map<String, Map<String, Long>> wordCounts = new HashMap<>();
+        if (!ids.isEmpty()) {
+            noteStatsRepository.findAllById(ids).forEach(stats -> wordCounts.put(stats.getId(), stats.getWordCounts()));
+        }
+        return wordCounts;
+    }
+
+    // stats of the stored notes, the bulk update increments their versions in the database
+    private List<NoteStats> findStoredStats(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return noteRepository.findAllById(ids).stream().map(NoteService::buildStats).toList();
+    }
+
+    static BulkItemResult failed(int index, String id, String message) {
+        return new BulkItemResult(index, id, BulkItemStatus.FAILED, Map.of("error", message));
+    }
+
+    /**
+     * Notes matching the optional filters, read lazily from a database cursor.
+     * The caller must close the stream.
+     */
+    public Stream<Note> exportNotes(Tag tag, LocalDateTime from, LocalDateTime to) {
+        return noteRepository.streamNotes(tag, from, to, exportBatchSize);
     }
 
     public Page<NoteDTO> getNotes(Tag tag, int page, int size) {
         Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createDate"));
-        Page<Note> notesPage;
 
+        OptionalLong counted = noteCounter.count(tag);
+        if (counted.isEmpty()) {
+            // counts not loaded yet, let the repository count
+            if (tag != null) {
+                return noteRepository.findSummariesByTags(tag, pageable);
+            }
+            return noteRepository.findSummariesBy(pageable);
+        }
+
+        Slice<NoteDTO> slice = findSlice(tag, pageable);
+        return new PageImpl<>(slice.getContent(), pageable, pageTotal(pageable, slice, counted.getAsLong()));
+    }
+
+    /**
+     * Notes carrying all or any of {@code tags}, newest first.
+     */
+    public Page<NoteDTO> getNotes(Set<Tag> tags, TagMatch match, int page, int size) {
+        if (tags.isEmpty() || tags.contains(null)) {
+            throw new InvalidNoteRequestException("tags must list at least one tag");
+        }
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createDate"));
+        return noteRepository.findSummariesByTagMaskIn(match.masks(Tag.mask(tags)), pageable);
+    }
+
+    /**
+     * Notes whose text matches {@code query}, see {@link NoteSearchIndex#search} for the syntax.
+     * Ordered by most recent write, only the notes of the requested page are read from the database.
+     */
+    public Page<NoteDTO> searchNotes(String query, Tag tag, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size);
+        List<String> ids = searchIndex.search(query, tag);
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        List<String> pageIds = ids.subList(from, Math.min(from + size, ids.size()));
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, ids.size());
+        }
+
+        Map<String, NoteDTO> byId = new HashMap<>();
+        for (NoteDTO summary : noteRepository.findSummariesByIdIn(pageIds)) {
+            byId.put(summary.getId(), summary);
+        }
+        List<NoteDTO> content = pageIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new PageImpl<>(content, pageable, ids.size());
+    }
+
+    public List<WordCount> getTopWords(Tag tag, int k) {
+        if (k > corpusWordStats.topCapacity()) {
+            throw new InvalidNoteRequestException("k cannot exceed " + corpusWordStats.topCapacity());
+        }
+        return corpusWordStats.topWords(tag, k);
+    }
+
+    public long getDistinctWords(Tag tag) {
+        return corpusWordStats.distinctWords(tag);
+    }
+
+    /**
+     * Number of notes overall, without tags and per tag, from the counters instead of a count
+     * query per tag.
+     */
+    public TagFacets getFacets() {
+        Optional<TagFacets> facets = noteCounter.facets();
+        if (facets.isEmpty()) {
+            // counts not loaded yet, load them now
+            noteCounter.refresh();
+            facets = noteCounter.facets();
+        }
+        return facets.orElseThrow(() -> new IllegalStateException("Note counts are not available"));
+    }
+
+    public SlicePage<NoteDTO> getNotesSlice(Tag tag, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createDate"));
+        Slice<NoteDTO> slice = findSlice(tag, pageable);
+        return new SlicePage<>(slice.getContent(), page, size, slice.hasNext());
+    }
+
+    private Slice<NoteDTO> findSlice(Tag tag, Pageable pageable) {
         if (tag != null) {
-            notesPage = noteRepository.findByTags(tag, pageable);
-        } else {
-            notesPage = noteRepository.findAll(pageable);
+            return noteRepository.findSliceByTags(tag, pageable);
+        }
+        return noteRepository.findSliceBy(pageable);
+    }
+
+    // the counter may lag behind other instances, the slice itself is authoritative where it can be
+    private static long pageTotal(Pageable pageable, Slice<NoteDTO> slice, long counted) {
+        long seen = pageable.getOffset() + slice.getNumberOfElements();
+        if (!slice.hasNext() && (slice.hasContent() || pageable.getOffset() == 0)) {
+            return seen;
         }
+        return Math.max(counted, slice.hasNext() ? seen + 1 : seen);
+    }
+
+    public CursorPage<NoteDTO> getNotes(Tag tag, String cursor, int size) {
+        NoteCursor after = cursor == null || cursor.isEmpty() ? null : NoteCursor.decode(cursor);
+        // one extra row tells whether another page exists
+        List<NoteDTO> notes = after == null
+                ? noteRepository.findSummariesAfter(tag, null, null, size + 1)
+                : noteRepository.findSummariesAfter(tag, after.createDate(), after.id(), size + 1);
+
+        return cursorPage(notes, size);
+    }
+
+    // notes holds one row more than the page when there is a next page
+    static CursorPage<NoteDTO> cursorPage(List<NoteDTO> notes, int size) {
+        if (notes.size() <= size) {
+            return new CursorPage<>(notes, null);
+        }
+        List<NoteDTO> content = notes.subList(0, size);
+        NoteDTO last = content.get(size - 1);
+        return new CursorPage<>(content, new NoteCursor(last.getCreateDate(), last.getId()).encode());
+    }
+
+    public Note getNoteById(String id) {
+        return noteCache.findById(id).orElseThrow(NoSuchElementException::new);
+    }
 
-        return notesPage.map(note -> new NoteDTO(
-                note.getId(),
-                note.getTitle(),
-                note.getCreateDate()
-        ));
+    /**
+     * The note as {@link #getNoteById} returns it, encoded by {@code encoder}; the encoded bytes
+     * are reused until the note changes.
+     */
+    public NoteCache.EncodedNote getEncodedNote(String id, Function<Note, byte[]> encoder) {
+        return noteCache.findEncoded(id, encoder).orElseThrow(NoSuchElementException::new);
     }
 
-        public Note getNoteById(String id) {
-        return noteRepository.findById(id).orElseThrow(NoSuchElementException::new);
+    /**
+     * Version of a note without loading its text: from the cache, or a projection of the version
+     * field. Empty when there is no such note or it was stored before notes were versioned.
+     */
+    public Optional<Long> getNoteVersion(String id) {
+        return noteCache.getIfPresent(id)
+                .or(() -> noteRepository.findByIdWithFields(id, List.of("version")))
+                .map(Note::getVersion);
+    }
+
+    /**
+     * Returns only the requested fields of a note, in {@link #NOTE_FIELDS} order. A cached note
+     * is used as is, otherwise the projection is pushed down to the repository.
+     */
+    public Map<String, Object> getNoteFields(String id, Set<String> fields) {
+        checkFields(fields);
+        Note note = noteCache.getIfPresent(id)
+                .or(() -> noteRepository.findByIdWithFields(id, fields))
+                .orElseThrow(NoSuchElementException::new);
+        return selectFields(note, fields);
+    }
+
+    static void checkFields(Set<String> fields) {
+        for (String field : fields) {
+            if (!NOTE_FIELDS.contains(field)) {
+                throw new InvalidNoteRequestException(String.format(
+                        "Invalid field '%s'. Must be one of: %s", field, NOTE_FIELDS));
+            }
+        }
+    }
+
+    static Map<String, Object> selectFields(Note note, Set<String> fields) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String field : NOTE_FIELDS) {
+            if (fields.contains(field)) {
+                result.put(field, fieldValue(note, field));
+            }
+        }
+        return result;
+    }
+
+    private static Object fieldValue(Note note, String field) {
+        return switch (field) {
+            case "id" -> note.getId();
+            case "title" -> note.getTitle();
+            case "createDate" -> note.getCreateDate();
+            case "text" -> note.getText();
+            case "tags" -> note.getTags();
+            default -> throw new InvalidNoteRequestException("Invalid field '" + field + "'");
+        };
     }
 
     public Optional<Note> updateNote(String id, Note updatedNote) {
-        Note note = noteRepository.findById(id).orElseThrow(NoSuchElementException::new);
+        return updateNote(id, updatedNote, null);
+    }
+
+    /**
+     * Updates title, text and tags in a single find-and-modify. With a non-null
+     * {@code expectedVersion} the update only applies to that version of the note.
+     *
+     * @throws NoSuchElementException when there is no note with this id
+     * @throws OptimisticLockingFailureException when the note has moved past {@code expectedVersion}
+     */
+    public Optional<Note> updateNote(String id, Note updatedNote, Long expectedVersion) {
+        Optional<Note> previous;
+        try {
+            previous = noteRepository.findAndUpdate(id, expectedVersion, updatedNote);
+        } catch (RuntimeException ex) {
+            noteCache.evict(id);
+            throw ex;
+        }
+        if (previous.isEmpty()) {
+            noteCache.evict(id);
+            // only a failed conditional update needs to tell a stale version from a missing note
+            if (expectedVersion != null && noteRepository.existsById(id)) {
+                throw new OptimisticLockingFailureException(
+                        "Note " + id + " is no longer at version " + expectedVersion);
+            }
+            throw new NoSuchElementException();
+        }
 
-        note.setTitle(updatedNote.getTitle());
-        note.setText(updatedNote.getText());
-        note.setTags(updatedNote.getTags());
-        return Optional.of(noteRepository.save(note));
+        Note before = previous.get();
+        Note savedNote = Note.builder()
+                .id(id)
+                .title(updatedNote.getTitle())
+                .createDate(before.getCreateDate())
+                .text(updatedNote.getText())
+                .tags(updatedNote.getTags())
+                .version(before.getVersion() == null ? 1L : before.getVersion() + 1)
+                .build();
+        recordTextSize(savedNote);
+        noteCache.put(savedNote);
+        noteCounter.noteUpdated(before.getTags(), savedNote.getTags());
+        searchIndex.index(savedNote);
+        if (before.getText() != null) {
+            corpusWordStats.remove(id, before.getTags(), WordFrequencyCounter.count(before.getText()));
+        }
+        corpusWordStats.add(savedNote.getId(), savedNote.getTags(), saveStats(savedNote).getWordCounts());
+        return Optional.of(savedNote);
     }
 
     public boolean deleteNote(String id) {
-        if (!noteRepository.existsById(id)) {
+        Optional<Note> deleted = noteRepository.findAndRemoveById(id);
+        noteCache.evict(id);
+        if (deleted.isEmpty()) {
             return false;
         }
-        noteRepository.deleteById(id);
+        noteCounter.noteDeleted(deleted.get().getTags());
+        searchIndex.remove(id);
+        if (deleted.get().getText() != null) {
+            corpusWordStats.remove(id, deleted.get().getTags(), WordFrequencyCounter.count(deleted.get().getText()));
+        }
+        noteStatsRepository.deleteById(id);
         return true;
     }
 
     public Optional<Map<String, Long>> countStat(String id){
+        return getStats(id).map(NoteStats::getWordCounts);
+    }
+
+    /**
+     * Word counts of a note together with the note version they were computed from, so callers
+     * can tag the counts without a second read that a concurrent update could overtake.
+     */
+    public Optional<NoteStats> getStats(String id) {
+        Optional<NoteStats> stats = noteStatsRepository.findById(id);
+        if (stats.isPresent()) {
+            return stats;
+        }
+
+        // note written before stats were materialized and not reached by the backfill yet
+        return noteCache.findById(id).map(note -> {
+            NoteStats computed = saveStats(note);
+            // a delete between the read and the upsert removed the stats before they were written
+            if (!noteRepository.existsById(id)) {
+                noteStatsRepository.deleteById(id);
+                return null;
+            }
+            return computed;
+        });
+    }
+
+    private void recordTextSize(Note note) {
+        if (note.getText() != null) {
+            textSize.record(note.getText().getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    private NoteStats saveStats(Note note) {
+        NoteStats stats = buildStats(note);
+        noteStatsRepository.saveIfNewer(stats);
+        return stats;
+    }
 
-        Optional<Note> noteOpt = noteRepository.findById(id);
-        if (noteOpt.isEmpty()) {
-            return Optional.empty();
-        }
-
-        Note note = noteOpt.get();
-        Map<String, Long> wordCounts = Arrays.stream(note.getText().toLowerCase()
-                        .replaceAll("[^a-zA-Z\\s]", "")
-                        .split("\\s+"))
-                .filter(word -> !word.isEmpty())
-                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-
-        Map<String, Long> result = wordCounts.entrySet()
-                .stream()
-                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        Map.Entry::getValue,
-                        (e1, e2) -> e1,
-                        LinkedHashMap::new
-                ));
-        return Optional.of(result);
+    static NoteStats buildStats(Note note) {
+        return NoteStats.builder()
+                .id(note.getId())
+                .wordCounts(WordFrequencyCounter.count(note.getText()))
+                .noteVersion(note.getVersion())
+                .updateDate(LocalDateTime.now())
+                .build();
     }
 
 }
@@ -0,0 +1,339 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.dto.BulkItemResult;
+import com.techtask.technical_test_task.dto.BulkItemStatus;
+import com.techtask.technical_test_task.dto.BulkResult;
+import com.techtask.technical_test_task.dto.CursorPage;
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.dto.SlicePage;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.NoteStats;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.repository.ReactiveNoteRepository;
+import com.techtask.technical_test_task.repository.ReactiveNoteStatsRepository;
+import jakarta.validation.Validator;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Non-blocking implementation of the {@link NoteService} operations exposed by the
+ * "reactive" profile. Same semantics: createDate set on create, word stats materialized on
+ * write, {@link NoSuchElementException} for unknown notes.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveNoteService {
+
+    private final ReactiveNoteRepository noteRepository;
+    private final ReactiveNoteStatsRepository noteStatsRepository;
+    private final NoteCounter noteCounter;
+    private final Validator validator;
+    private final int exportBatchSize;
+    private final int bulkMaxSize;
+
+    public ReactiveNoteService(ReactiveNoteRepository noteRepository,
+                               ReactiveNoteStatsRepository noteStatsRepository,
+                               NoteCounter noteCounter,
+                               Validator validator,
+                               @Value("${notes.export.batch-size:500}") int exportBatchSize,
+                               @Value("${notes.bulk.max-size:1000}") int bulkMaxSize) {
+        this.noteRepository = noteRepository;
+        this.noteStatsRepository = noteStatsRepository;
+        this.noteCounter = noteCounter;
+        this.validator = validator;
+        this.exportBatchSize = exportBatchSize;
+        this.bulkMaxSize = bulkMaxSize;
+    }
+
+    public Mono<Note> createNote(Note note) {
+        note.setCreateDate(LocalDateTime.now());
+        note.setVersion(null);
+        return noteRepository.save(note)
+                .flatMap(saved -> noteStatsRepository.saveIfNewer(NoteService.buildStats(saved)).thenReturn(saved))
+                .doOnNext(saved -> noteCounter.noteCreated(saved.getTags()));
+    }
+
+    /**
+     * Same as {@link NoteService#createNotes}.
+     */
+    public Mono<BulkResult> createNotes(List<Note> notes) {
+        NoteService.checkBulkSize(notes.size(), bulkMaxSize);
+        BulkItemResult[] results = new BulkItemResult[notes.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Note> toInsert = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+
+        for (int i = 0; i < notes.size(); i++) {
+            Note note = notes.get(i);
+            Map<String, String> errors = NoteService.validate(validator, note);
+            if (!errors.isEmpty()) {
+                results[i] = new BulkItemResult(i, note == null ? null : note.getId(), BulkItemStatus.INVALID, errors);
+                continue;
+            }
+            if (note.getId() == null) {
+                note.setId(new ObjectId().toHexString());
+            }
+            note.setCreateDate(now);
+            note.setVersion(0L);
+            positions.add(i);
+            toInsert.add(note);
+        }
+
+        Mono<Void> insert = toInsert.isEmpty() ? Mono.empty() : noteRepository.insertUnordered(toInsert)
+                .flatMap(failures -> {
+                    List<NoteStats> stats = new ArrayList<>();
+                    NoteCounter.Changes counts = new NoteCounter.Changes();
+                    for (int j = 0; j < toInsert.size(); j++) {
+                        Note note = toInsert.get(j);
+                        int i = positions.get(j);
+                        if (failures.containsKey(j)) {
+                            results[i] = NoteService.failed(i, note.getId(), failures.get(j));
+                            continue;
+                        }
+                        counts.created(note.getTags());
+                        stats.add(NoteService.buildStats(note));
+                        results[i] = new BulkItemResult(i, note.getId(), BulkItemStatus.CREATED, null);
+                    }
+                    noteCounter.apply(counts);
+                    return noteStatsRepository.saveAllIfNewer(stats);
+                });
+        return insert.then(Mono.fromSupplier(() -> new BulkResult(Arrays.asList(results))));
+    }
+
+    /**
+     * Same as {@link NoteService#updateNotes}.
+     */
+    public Mono<BulkResult> updateNotes(List<Note> notes) {
+        NoteService.checkBulkSize(notes.size(), bulkMaxSize);
+        BulkItemResult[] results = new BulkItemResult[notes.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Note> candidates = new ArrayList<>();
+
+        for (int i = 0; i < notes.size(); i++) {
+            Note note = notes.get(i);
+            Map<String, String> errors = new HashMap<>(NoteService.validate(validator, note));
+            if (note != null && (note.getId() == null || note.getId().isBlank())) {
+                errors.put("id", "Id is required for update");
+            }
+            if (!errors.isEmpty()) {
+                results[i] = new BulkItemResult(i, note == null ? null : note.getId(), BulkItemStatus.INVALID, errors);
+                continue;
+            }
+            positions.add(i);
+            candidates.add(note);
+        }
+
+        Mono<Void> update = findCurrentTags(candidates.stream().map(Note::getId).toList())
+                .flatMap(currentTags -> {
+                    List<Integer> updatePositions = new ArrayList<>();
+                    List<Note> toUpdate = new ArrayList<>();
+                    for (int j = 0; j < candidates.size(); j++) {
+                        Note note = candidates.get(j);
+                        int i = positions.get(j);
+                        if (!currentTags.containsKey(note.getId())) {
+                            results[i] = new BulkItemResult(i, note.getId(), BulkItemStatus.NOT_FOUND, null);
+                            continue;
+                        }
+                        updatePositions.add(i);
+                        toUpdate.add(note);
+                    }
+                    if (toUpdate.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    return noteRepository.updateUnordered(toUpdate).flatMap(failures -> {
+                        Set<String> updated = new LinkedHashSet<>();
+                        NoteCounter.Changes counts = new NoteCounter.Changes();
+                        for (int j = 0; j < toUpdate.size(); j++) {
+                            Note note = toUpdate.get(j);
+                            int i = updatePositions.get(j);
+                            if (failures.containsKey(j)) {
+                                results[i] = NoteService.failed(i, note.getId(), failures.get(j));
+                                continue;
+                            }
+                            // later items of the same batch may update the same note again
+                            counts.updated(currentTags.put(note.getId(), note.getTags()), note.getTags());
+                            updated.add(note.getId());
+                            results[i] = new BulkItemResult(i, note.getId(), BulkItemStatus.UPDATED, null);
+                        }
+                        noteCounter.apply(counts);
+                        // the bulk update increments the versions in the database, stats follow the stored notes
+                        return noteRepository.findAllById(updated)
+                                .map(NoteService::buildStats)
+                                .collectList()
+                                .flatMap(noteStatsRepository::saveAllIfNewer);
+                    });
+                });
+        return update.then(Mono.fromSupplier(() -> new BulkResult(Arrays.asList(results))));
+    }
+
+    /**
+     * Same as {@link NoteService#deleteNotes}.
+     */
+    public Mono<BulkResult> deleteNotes(List<String> ids) {
+        NoteService.checkBulkSize(ids.size(), bulkMaxSize);
+        BulkItemResult[] results = new BulkItemResult[ids.size()];
+
+        Mono<Void> delete = findCurrentTags(ids.stream().filter(id -> id != null && !id.isBlank()).toList())
+                .flatMap(currentTags -> {
+                    List<Integer> positions = new ArrayList<>();
+                    List<String> toDelete = new ArrayList<>();
+                    Set<String> seen = new HashSet<>();
+                    for (int i = 0; i < ids.size(); i++) {
+                        String id = ids.get(i);
+                        if (id == null || id.isBlank()) {
+                            results[i] = new BulkItemResult(i, id, BulkItemStatus.INVALID, Map.of("id", "Id cannot be empty"));
+                        } else if (!currentTags.containsKey(id) || !seen.add(id)) {
+                            results[i] = new BulkItemResult(i, id, BulkItemStatus.NOT_FOUND, null);
+                        } else {
+                            positions.add(i);
+                            toDelete.add(id);
+                        }
+                    }
+                    if (toDelete.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    return noteRepository.deleteUnordered(toDelete).flatMap(failures -> {
+                        List<String> deleted = new ArrayList<>();
+                        NoteCounter.Changes counts = new NoteCounter.Changes();
+                        for (int j = 0; j < toDelete.size(); j++) {
+                            String id = toDelete.get(j);
+                            int i = positions.get(j);
+                            if (failures.containsKey(j)) {
+                                results[i] = NoteService.failed(i, id, failures.get(j));
+                                continue;
+                            }
+                            counts.deleted(currentTags.get(id));
+                            deleted.add(id);
+                            results[i] = new BulkItemResult(i, id, BulkItemStatus.DELETED, null);
+                        }
+                        noteCounter.apply(counts);
+                        return noteStatsRepository.deleteAllById(deleted);
+                    });
+                });
+        return delete.then(Mono.fromSupplier(() -> new BulkResult(Arrays.asList(results))));
+    }
+
+    // id -> tags of the notes that exist, a note without tags maps to null
+    private Mono<Map<String, List<Tag>>> findCurrentTags(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Mono.just(new HashMap<>());
+        }
+        return noteRepository.findTagsByIds(ids)
+                .collect(HashMap::new, (tags, note) -> tags.put(note.getId(), note.getTags()));
+    }
+
+    /**
+     * Notes matching the optional filters, read from a database cursor as the subscriber
+     * requests them.
+     */
+    public Flux<Note> exportNotes(Tag tag, LocalDateTime from, LocalDateTime to) {
+        return noteRepository.streamNotes(tag, from, to, exportBatchSize);
+    }
+
+    public Mono<Page<NoteDTO>> getNotes(Tag tag, int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createDate"));
+        Flux<NoteDTO> content = tag != null
+                ? noteRepository.findSummariesByTags(tag, pageable)
+                : noteRepository.findSummariesBy(pageable);
+
+        OptionalLong counted = noteCounter.count(tag);
+        Mono<Long> total = counted.isPresent()
+                ? Mono.just(counted.getAsLong())
+                : tag != null ? noteRepository.countByTags(tag) : noteRepository.count();
+
+        return content.collectList()
+                .zipWith(total)
+                .map(result -> new PageImpl<>(result.getT1(), pageable, result.getT2()));
+    }
+
+    public Mono<SlicePage<NoteDTO>> getNotesSlice(Tag tag, int page, int size) {
+        // one extra row tells whether another slice exists
+        return noteRepository.findSummaries(tag, (long) page * size, size + 1)
+                .collectList()
+                .map(notes -> notes.size() > size
+                        ? new SlicePage<>(notes.subList(0, size), page, size, true)
+                        : new SlicePage<>(notes, page, size, false));
+    }
+
+    public Mono<CursorPage<NoteDTO>> getNotes(Tag tag, String cursor, int size) {
+        NoteCursor after = cursor == null || cursor.isEmpty() ? null : NoteCursor.decode(cursor);
+        Flux<NoteDTO> notes = after == null
+                ? noteRepository.findSummariesAfter(tag, null, null, size + 1)
+                : noteRepository.findSummariesAfter(tag, after.createDate(), after.id(), size + 1);
+        return notes.collectList().map(page -> NoteService.cursorPage(page, size));
+    }
+
+    public Mono<Note> getNoteById(String id) {
+        return noteRepository.findById(id)
+                .switchIfEmpty(Mono.error(NoSuchElementException::new));
+    }
+
+    /**
+     * Same as {@link NoteService#getNoteFields}, the projection is always pushed down to the database.
+     */
+    public Mono<Map<String, Object>> getNoteFields(String id, Set<String> fields) {
+        NoteService.checkFields(fields);
+        return noteRepository.findByIdWithFields(id, fields)
+                .switchIfEmpty(Mono.error(NoSuchElementException::new))
+                .map(note -> NoteService.selectFields(note, fields));
+    }
+
+    /**
+     * Same as {@link NoteService#updateNote(String, Note, Long)}.
+     */
+    public Mono<Note> updateNote(String id, Note updatedNote, Long expectedVersion) {
+        return noteRepository.findAndUpdate(id, expectedVersion, updatedNote)
+                // only a failed conditional update needs to tell a stale version from a missing note
+                .switchIfEmpty(Mono.defer(() -> expectedVersion == null
+                        ? Mono.error(new NoSuchElementException())
+                        : noteRepository.existsById(id).flatMap(exists -> Mono.error(exists
+                                ? new OptimisticLockingFailureException("Note " + id + " is no longer at version " + expectedVersion)
+                                : new NoSuchElementException()))))
+                .map(before -> {
+                    noteCounter.noteUpdated(before.getTags(), updatedNote.getTags());
+                    return Note.builder()
+                            .id(id)
+                            .title(updatedNote.getTitle())
+                            .createDate(before.getCreateDate())
+                            .text(updatedNote.getText())
+                            .tags(updatedNote.getTags())
+                            .version(before.getVersion() == null ? 1L : before.getVersion() + 1)
+                            .build();
+                })
+                .flatMap(saved -> noteStatsRepository.saveIfNewer(NoteService.buildStats(saved)).thenReturn(saved));
+    }
+
+    public Mono<Boolean> deleteNote(String id) {
+        return noteRepository.findAndRemoveById(id)
+                .flatMap(note -> noteStatsRepository.deleteById(id)
+                        .then(Mono.fromRunnable(() -> noteCounter.noteDeleted(note.getTags())))
+                        .thenReturn(true))
+                .defaultIfEmpty(false);
+    }
+
+    public Mono<Map<String, Long>> countStat(String id) {
+        return noteStatsRepository.findById(id)
+                .switchIfEmpty(Mono.defer(() -> noteRepository.findById(id)
+                        .map(NoteService::buildStats)
+                        .flatMap(stats -> noteStatsRepository.saveIfNewer(stats)
+                                // a delete between the read and the upsert removed the stats before they were written
+                                .then(noteRepository.existsById(id))
+                                .flatMap(exists -> exists
+                                        ? Mono.just(stats)
+                                        : noteStatsRepository.deleteById(id).then(Mono.<NoteStats>empty())))))
+                .map(NoteStats::getWordCounts);
+    }
+}
@@ -0,0 +1,271 @@
+package com.techtask.technical_test_task.service;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Single-pass word frequency engine behind {@code GET /api/notes/{id}/stats}.
+ * <p>
+ * Produces exactly what the original stream pipeline produced
+ * ({@code toLowerCase} -> {@code replaceAll("[^a-zA-Z\\s]", "")} -> {@code split("\\s+")} ->
+ * {@code groupingBy} -> sort by count) without copying the text: letters are folded in place
+ * into a char arena, counted in a primitive open-addressing table and emitted with two
+ * counting sorts. Words with equal counts keep the order in which the original
+ * {@link HashMap} iterated them, so the JSON output is byte-for-byte identical.
+ */
+public final class WordFrequencyCounter {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // mirrors java.util.HashMap internals used by Collectors.groupingBy
+    private static final int HASH_MAP_DEFAULT_CAPACITY = 16;
+    private static final int HASH_MAP_MIN_TREEIFY_CAPACITY = 64;
+    private static final int HASH_MAP_TREEIFY_THRESHOLD = 8;
+
+    private final char[] arena;
+    private int arenaSize;
+
+    private int[] table = new int[INITIAL_CAPACITY];
+    private int distinct;
+    private int[] wordStart = new int[INITIAL_CAPACITY];
+    private int[] wordLength = new int[INITIAL_CAPACITY];
+    private int[] wordHash = new int[INITIAL_CAPACITY];
+    private int[] wordCount = new int[INITIAL_CAPACITY];
+
+    private int mapCapacity;
+    private int mapThreshold;
+    private int[] mapBinSize;
+    private boolean treeified;
+
+    private WordFrequencyCounter(int textLength) {
+        this.arena = new char[textLength];
+    }
+
+    /**
+     * Counts words of {@code text} and returns them ordered by descending frequency.
+     */
+    public static Map<String, Long> count(String text) {
+        String source = needsLocaleAwareLowerCase() ? text.toLowerCase() : text;
+        WordFrequencyCounter counter = new WordFrequencyCounter(source.length());
+        counter.scan(source);
+        if (counter.treeified) {
+            return countWithHashMap(text);
+        }
+        return counter.toSortedMap();
+    }
+
+    /**
+     * Reference implementation kept for inputs whose words collide badly enough to
+     * turn a {@link HashMap} bin into a tree, where iteration order is not worth emulating.
+     */
+    static Map<String, Long> countWithHashMap(String text) {
+        Map<String, Long> wordCounts = Arrays.stream(text.toLowerCase()
+                        .replaceAll("[^a-zA-Z\\s]", "")
+                        .split("\\s+"))
+                .filter(word -> !word.isEmpty())
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+
+        return wordCounts.entrySet()
+                .stream()
+                .sorted(Map.Entry.comparingByValue(Comparator.reverseOrder()))
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        Map.Entry::getValue,
+                        (e1, e2) -> e1,
+                        LinkedHashMap::new
+                ));
+    }
+
+    // Turkic and Lithuanian lower-casing is context sensitive, let String handle it once
+    private static boolean needsLocaleAwareLowerCase() {
+        String language = Locale.getDefault().getLanguage();
+        return "tr".equals(language) || "az".equals(language) || "lt".equals(language);
+    }
+
+    private void scan(String text) {
+        int start = arenaSize;
+        int hash = 0;
+        for (int i = 0, n = text.length(); i < n; i++) {
+            char c = text.charAt(i);
+            if (isWhitespace(c)) {
+                if (arenaSize > start) {
+                    addWord(start, hash);
+                }
+                start = arenaSize;
+                hash = 0;
+                continue;
+            }
+            char letter = fold(c);
+            if (letter != 0) {
+                arena[arenaSize++] = letter;
+                hash = 31 * hash + letter;
+            }
+        }
+        if (arenaSize > start) {
+            addWord(start, hash);
+        }
+    }
+
+    // same set as the regex \s
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    // lower-cased ASCII letter, or 0 when toLowerCase + [^a-zA-Z\s] would drop the char
+    private static char fold(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c;
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        }
+        if (c == '\u0130') { // LATIN CAPITAL LETTER I WITH DOT ABOVE
+            return 'i';
+        }
+        if (c == '\u212A') { // KELVIN SIGN
+            return 'k';
+        }
+        return 0;
+    }
+
+    private void addWord(int start, int hash) {
+        int length = arenaSize - start;
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                int word = register(start, length, hash);
+                table[slot] = word + 1;
+                if (distinct * 2 > table.length) {
+                    rehash();
+                }
+                simulateHashMapAccess(word, true);
+                return;
+            }
+            int word = entry - 1;
+            if (wordHash[word] == hash && sameWord(word, start, length)) {
+                wordCount[word]++;
+                arenaSize = start;
+                simulateHashMapAccess(word, false);
+                return;
+            }
+        }
+    }
+
+    private boolean sameWord(int word, int start, int length) {
+        if (wordLength[word] != length) {
+            return false;
+        }
+        int offset = wordStart[word];
+        for (int i = 0; i < length; i++) {
+            if (arena[offset + i] != arena[start + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int register(int start, int length, int hash) {
+        if (distinct == wordStart.length) {
+            int capacity = distinct * 2;
+            wordStart = Arrays.copyOf(wordStart, capacity);
+            wordLength = Arrays.copyOf(wordLength, capacity);
+            wordHash = Arrays.copyOf(wordHash, capacity);
+            wordCount = Arrays.copyOf(wordCount, capacity);
+        }
+        int word = distinct++;
+        wordStart[word] = start;
+        wordLength[word] = length;
+        wordHash[word] = hash;
+        wordCount[word] = 1;
+        return word;
+    }
+
+    private void rehash() {
+        int[] rehashed = new int[table.length * 2];
+        int mask = rehashed.length - 1;
+        for (int word = 0; word < distinct; word++) {
+            int slot = wordHash[word] & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = word + 1;
+        }
+        table = rehashed;
+    }
+
+    /*
+     * Replays HashMap.computeIfAbsent for every word: lazy resize when size > threshold,
+     * head insertion into the bin and the treeify-or-resize rule. Only the final capacity
+     * matters for iteration order; bin sizes are tracked to know when resizes happen.
+     */
+    private void simulateHashMapAccess(int word, boolean inserted) {
+        if (mapCapacity == 0 || distinct - (inserted ? 1 : 0) > mapThreshold) {
+            resizeHashMap(mapCapacity == 0 ? HASH_MAP_DEFAULT_CAPACITY : mapCapacity * 2, distinct - (inserted ? 1 : 0));
+        }
+        if (!inserted) {
+            return;
+        }
+        int bin = spread(wordHash[word]) & (mapCapacity - 1);
+        int binCount = mapBinSize[bin]++;
+        if (binCount >= HASH_MAP_TREEIFY_THRESHOLD - 1) {
+            if (mapCapacity < HASH_MAP_MIN_TREEIFY_CAPACITY) {
+                resizeHashMap(mapCapacity * 2, distinct);
+            } else {
+                treeified = true;
+            }
+        }
+    }
+
+    private void resizeHashMap(int capacity, int words) {
+        mapCapacity = capacity;
+        mapThreshold = (int) (capacity * 0.75f);
+        mapBinSize = new int[capacity];
+        for (int word = 0; word < words; word++) {
+            mapBinSize[spread(wordHash[word]) & (capacity - 1)]++;
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private Map<String, Long> toSortedMap() {
+        // HashMap iteration order: ascending bin, newest entry first within a bin
+        int[] binOffsets = new int[mapCapacity + 1];
+        for (int word = 0; word < distinct; word++) {
+            binOffsets[(spread(wordHash[word]) & (mapCapacity - 1)) + 1]++;
+        }
+        for (int bin = 0; bin < mapCapacity; bin++) {
+            binOffsets[bin + 1] += binOffsets[bin];
+        }
+        int[] iterationOrder = new int[distinct];
+        for (int word = distinct - 1; word >= 0; word--) {
+            iterationOrder[binOffsets[spread(wordHash[word]) & (mapCapacity - 1)]++] = word;
+        }
+
+        // stable sort by descending count
+        int maxCount = 0;
+        for (int word = 0; word < distinct; word++) {
+            maxCount = Math.max(maxCount, wordCount[word]);
+        }
+        int[] countOffsets = new int[maxCount + 2];
+        for (int word = 0; word < distinct; word++) {
+            countOffsets[maxCount - wordCount[word] + 1]++;
+        }
+        for (int i = 0; i <= maxCount; i++) {
+            countOffsets[i + 1] += countOffsets[i];
+        }
+        int[] sorted = new int[distinct];
+        for (int word : iterationOrder) {
+            sorted[countOffsets[maxCount - wordCount[word]]++] = word;
+        }
+
+        Map<String, Long> result = new LinkedHashMap<>((int) (distinct / 0.75f) + 1);
+        for (int word : sorted) {
+            result.put(new String(arena, wordStart[word], wordLength[word]), (long) wordCount[word]);
+        }
+        return result;
+    }
+}
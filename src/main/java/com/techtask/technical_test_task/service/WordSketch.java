@@ -0,0 +1,181 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.dto.WordCount;
+
+import java.util.*;
+
+/**
+ * Fixed-size summary of a stream of word occurrences: a Count-Min sketch for per-word counts,
+ * a bounded set of heavy-hitter candidates for top-K and a HyperLogLog for the number of
+ * distinct words. Memory does not depend on how many words or notes were added.
+ * <p>
+ * Count-Min estimates never undercount while only additions are applied and overcount by at
+ * most {@code e / WIDTH} of all occurrences with probability {@code 1 - e^-DEPTH}; removals keep
+ * counts right for the removed words but can hide collisions. HyperLogLog cannot forget, words
+ * of removed notes stay counted as distinct until the sketch is rebuilt.
+ * <p>
+ * Sketches of disjoint note sets are {@link #merge merged} into the sketch of their union.
+ * Thread safe.
+ */
+final class WordSketch {
+
+    static final int DEPTH = 5;
+    static final int WIDTH = 2048;
+    private static final int HLL_PRECISION = 12;
+    private static final int HLL_REGISTERS = 1 << HLL_PRECISION;
+
+    private final long[][] counts = new long[DEPTH][WIDTH];
+    private final byte[] registers = new byte[HLL_REGISTERS];
+    private final Map<String, Long> candidates;
+    private final int capacity;
+    // lower bound of the smallest candidate estimate, spares the scan for infrequent words
+    private long candidateFloor;
+
+    WordSketch(int capacity) {
+        this.capacity = capacity;
+        this.candidates = new HashMap<>(capacity * 2);
+    }
+
+    synchronized void add(String word, long delta) {
+        long hash = hash(word);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            long[] cells = counts[row];
+            int cell = Math.floorMod(h1 + row * h2, WIDTH);
+            cells[cell] += delta;
+            estimate = Math.min(estimate, cells[cell]);
+        }
+        if (delta > 0) {
+            int register = (int) (hash >>> (64 - HLL_PRECISION));
+            byte rank = (byte) (Long.numberOfLeadingZeros((hash << HLL_PRECISION) | (1L << (HLL_PRECISION - 1))) + 1);
+            if (registers[register] < rank) {
+                registers[register] = rank;
+            }
+        }
+        offer(word, estimate);
+    }
+
+    synchronized long estimate(String word) {
+        return estimateUnlocked(word);
+    }
+
+    /**
+     * The {@code k} most frequent words with their estimated counts, most frequent first.
+     */
+    synchronized List<WordCount> top(int k) {
+        List<WordCount> top = new ArrayList<>(candidates.size());
+        for (String word : candidates.keySet()) {
+            long estimate = estimateUnlocked(word);
+            if (estimate > 0) {
+                top.add(new WordCount(word, estimate));
+            }
+        }
+        top.sort(Comparator.comparingLong(WordCount::getCount).reversed().thenComparing(WordCount::getWord));
+        return top.size() > k ? new ArrayList<>(top.subList(0, k)) : top;
+    }
+
+    synchronized long distinct() {
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double alpha = 0.7213 / (1 + 1.079 / HLL_REGISTERS);
+        double estimate = alpha * HLL_REGISTERS * HLL_REGISTERS / sum;
+        if (estimate <= 2.5 * HLL_REGISTERS && zeros > 0) {
+            // linear counting is more accurate while many registers are still empty
+            estimate = HLL_REGISTERS * Math.log((double) HLL_REGISTERS / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Adds the occurrences summarized by {@code other}, which must cover different notes.
+     */
+    void merge(WordSketch other) {
+        long[][] otherCounts;
+        byte[] otherRegisters;
+        Set<String> otherCandidates;
+        synchronized (other) {
+            otherCounts = new long[DEPTH][];
+            for (int row = 0; row < DEPTH; row++) {
+                otherCounts[row] = other.counts[row].clone();
+            }
+            otherRegisters = other.registers.clone();
+            otherCandidates = new HashSet<>(other.candidates.keySet());
+        }
+        synchronized (this) {
+            for (int row = 0; row < DEPTH; row++) {
+                for (int cell = 0; cell < WIDTH; cell++) {
+                    counts[row][cell] += otherCounts[row][cell];
+                }
+            }
+            for (int i = 0; i < HLL_REGISTERS; i++) {
+                registers[i] = (byte) Math.max(registers[i], otherRegisters[i]);
+            }
+            otherCandidates.addAll(candidates.keySet());
+            candidates.clear();
+            candidateFloor = 0;
+            for (String word : otherCandidates) {
+                offer(word, estimateUnlocked(word));
+            }
+        }
+    }
+
+    private long estimateUnlocked(String word) {
+        long hash = hash(word);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counts[row][Math.floorMod(h1 + row * h2, WIDTH)]);
+        }
+        return estimate;
+    }
+
+    // keeps the `capacity` words with the highest estimate seen so far
+    private void offer(String word, long estimate) {
+        if (candidates.containsKey(word) || candidates.size() < capacity) {
+            if (estimate > 0) {
+                candidates.put(word, estimate);
+                candidateFloor = Math.min(candidateFloor, estimate);
+            } else {
+                candidates.remove(word);
+            }
+            return;
+        }
+        if (estimate <= candidateFloor) {
+            return;
+        }
+        String smallest = null;
+        long smallestEstimate = Long.MAX_VALUE;
+        for (Map.Entry<String, Long> candidate : candidates.entrySet()) {
+            if (candidate.getValue() < smallestEstimate) {
+                smallest = candidate.getKey();
+                smallestEstimate = candidate.getValue();
+            }
+        }
+        candidateFloor = smallestEstimate;
+        if (estimate > smallestEstimate) {
+            candidates.remove(smallest);
+            candidates.put(word, estimate);
+        }
+    }
+
+    // FNV-1a over the chars, finished with the SplitMix64 mixer so all 64 bits are usable
+    private static long hash(String word) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            hash ^= word.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        return hash ^ (hash >>> 31);
+    }
+}
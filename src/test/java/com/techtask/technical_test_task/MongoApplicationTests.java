@@ -0,0 +1,17 @@
+package com.techtask.technical_test_task;
+
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * {@link TechnicalTestTaskApplicationTests} with the MongoDB repositories, see {@link MongoTestServer}.
+ */
+@ActiveProfiles(inheritProfiles = false)
+class MongoApplicationTests extends TechnicalTestTaskApplicationTests {
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        MongoTestServer.register(registry);
+    }
+}
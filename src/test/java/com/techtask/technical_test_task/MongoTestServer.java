@@ -0,0 +1,51 @@
+package com.techtask.technical_test_task;
+
+import de.bwaldvogel.mongo.MongoServer;
+import de.bwaldvogel.mongo.MongoVersion;
+import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
+import org.springframework.test.context.DynamicPropertyRegistry;
+
+import java.util.List;
+
+/**
+ * MongoDB for the Mongo-backed tests: an in-process server speaking the wire protocol
+ * (mongo-java-server), started once per test JVM, or a real server when
+ * {@code -Dnotes.test.mongodb.uri=mongodb://localhost:27017/notesdb_test} is given.
+ */
+public final class MongoTestServer {
+
+    private static final String URI_PROPERTY = "notes.test.mongodb.uri";
+    // the driver needs at least MongoDB 4.2 (wire version 8), mongo-java-server reports 4.0 by default
+    private static final MongoVersion MONGO_4_2 = new MongoVersion() {
+        @Override
+        public List<Integer> getVersionArray() {
+            return List.of(4, 2, 0);
+        }
+
+        @Override
+        public int getWireVersion() {
+            return 8;
+        }
+    };
+
+    private static String uri;
+
+    private MongoTestServer() {
+    }
+
+    public static synchronized String uri() {
+        if (uri == null) {
+            uri = System.getProperty(URI_PROPERTY);
+        }
+        if (uri == null) {
+            MongoServer server = new MongoServer(new MemoryBackend().version(MONGO_4_2));
+            uri = server.bindAndGetConnectionString() + "/notesdb_test";
+            Runtime.getRuntime().addShutdownHook(new Thread(server::shutdownNow));
+        }
+        return uri;
+    }
+
+    public static void register(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", MongoTestServer::uri);
+    }
+}
@@ -4,19 +4,27 @@ import com.techtask.technical_test_task.model.Note;
 import com.techtask.technical_test_task.model.Tag;
 import com.techtask.technical_test_task.repository.NoteRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.ByteArrayInputStream;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
@@ -26,6 +34,8 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
 @TestPropertySource(locations = "classpath:application-test.properties")
+// repositories in memory, the suite runs without a MongoDB container
+@ActiveProfiles("inmemory")
 class NoteControllerTest {
 
     @Autowired
@@ -65,6 +75,55 @@ class NoteControllerTest {
                 .andExpect(jsonPath("$.createDate", notNullValue()));
     }
 
+    @Test
+    void createNote_existingId_isConflictWithoutDatabaseDetails() throws Exception {
+        Note existing = noteRepository.save(Note.builder().title("Existing").text("Text of note").build());
+        Note duplicate = new Note();
+        duplicate.setId(existing.getId());
+        duplicate.setTitle("Duplicate");
+        duplicate.setText("Text of note");
+
+        mockMvc.perform(post("/api/notes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(duplicate)))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Note already exists"))
+                .andExpect(jsonPath("$.details").doesNotExist());
+    }
+
+    @Test
+    void createNote_cborBody_answersInCbor() throws Exception {
+        ObjectMapper cbor = new CBORMapper().findAndRegisterModules();
+        Note note = new Note();
+        note.setTitle("Binary create");
+        note.setText("Text of note");
+        note.setTags(List.of(Tag.PERSONAL));
+
+        byte[] response = mockMvc.perform(post("/api/notes")
+                        .contentType(MediaType.APPLICATION_CBOR)
+                        .accept(MediaType.APPLICATION_CBOR)
+                        .content(cbor.writeValueAsBytes(note)))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        Map<?, ?> created = cbor.readValue(response, Map.class);
+        assertEquals("Binary create", created.get("title"));
+        assertEquals(List.of("PERSONAL"), created.get("tags"));
+        // dates are written as in JSON, not as timestamps
+        assertInstanceOf(String.class, created.get("createDate"));
+    }
+
+    @Test
+    void getNoteById_notFoundWithSmileAccept_answersErrorInSmile() throws Exception {
+        byte[] response = mockMvc.perform(get("/api/notes/{id}", "000000000000000000000000")
+                        .accept("application/x-jackson-smile"))
+                .andExpect(status().isNotFound())
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertEquals(Map.of("error", "Note not found"), new SmileMapper().readValue(response, Map.class));
+    }
+
     @Test
     void createNote_validationFails_whenTitleMissing() throws Exception {
         String body = createNoteJson("", "Text present", null);
@@ -114,6 +173,128 @@ class NoteControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void getNoteById_matchingIfNoneMatch_returnsNotModifiedUntilUpdated() throws Exception {
+        Note note = new Note();
+        note.setTitle("Conditional");
+        note.setText("some text");
+        note.setCreateDate(LocalDateTime.now());
+        noteRepository.save(note);
+
+        mockMvc.perform(get("/api/notes/{id}", note.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0-json\""));
+        mockMvc.perform(get("/api/notes/{id}", note.getId()).header("If-None-Match", "\"0-json\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"0-json\""))
+                .andExpect(header().string("Vary", "Accept, Accept-Encoding"))
+                .andExpect(content().string(""));
+        mockMvc.perform(get("/api/notes/{id}/stats", note.getId()).header("If-None-Match", "\"0-json\""))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/api/notes/{id}", note.getId())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(createNoteJson("Conditional", "changed text", List.of())))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/notes/{id}/stats", note.getId()).header("If-None-Match", "\"0-json\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1-json\""))
+                .andExpect(header().string("Vary", "Accept, Accept-Encoding"))
+                .andExpect(jsonPath("$.changed").value(1));
+    }
+
+    @Test
+    void getNoteById_everyRepresentation_carriesItsOwnStrongTagAndVary() throws Exception {
+        Note note = new Note();
+        note.setTitle("Representations");
+        note.setText("some text");
+        note.setCreateDate(LocalDateTime.now());
+        noteRepository.save(note);
+
+        Map<String, String> tags = Map.of(
+                "application/json", "\"0-json\"",
+                "application/cbor", "\"0-cbor\"",
+                "application/x-jackson-smile", "\"0-smile\"");
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            mockMvc.perform(get("/api/notes/{id}", note.getId()).header("Accept", tag.getKey()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(tag.getKey()))
+                    .andExpect(header().string("ETag", tag.getValue()))
+                    .andExpect(header().string("Vary", "Accept, Accept-Encoding"));
+            mockMvc.perform(get("/api/notes/{id}/stats", note.getId()).header("Accept", tag.getKey()))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("ETag", tag.getValue()));
+        }
+
+        // a tag of another representation does not validate this one
+        mockMvc.perform(get("/api/notes/{id}", note.getId()).header("Accept", "application/json")
+                        .header("If-None-Match", "\"0-cbor\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"0-json\""));
+    }
+
+    @Test
+    void updateNote_ifMatch_comparesStronglyAndRequiresTheNoteForAny() throws Exception {
+        Note note = new Note();
+        note.setTitle("Conditional");
+        note.setText("some text");
+        note.setCreateDate(LocalDateTime.now());
+        noteRepository.save(note);
+        String body = createNoteJson("Conditional", "changed text", List.of());
+
+        mockMvc.perform(put("/api/notes/{id}", note.getId()).header("If-Match", "W/\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/notes/{id}", note.getId()).header("If-Match", "\"0-json\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk());
+        mockMvc.perform(put("/api/notes/{id}", note.getId()).header("If-Match", "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/api/notes/{id}", "missing").header("If-Match", "*")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void getNoteById_longNoteAcceptingGzip_returnsCompressedJson() throws Exception {
+        Note note = new Note();
+        note.setTitle("Compressed");
+        note.setText("word ".repeat(400));
+        note.setCreateDate(LocalDateTime.now());
+        noteRepository.save(note);
+
+        byte[] body = mockMvc.perform(get("/api/notes/{id}", note.getId()).header("Accept-Encoding", "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andExpect(header().string("ETag", "\"0-json-gz\""))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream json = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals("Compressed", objectMapper.readValue(json, Note.class).getTitle());
+        }
+    }
+
+    @Test
+    void getNoteById_withFields_returnsOnlyRequestedFields() throws Exception {
+        Note note = new Note();
+        note.setTitle("Projected");
+        note.setText("some text");
+        note.setCreateDate(LocalDateTime.now());
+        noteRepository.save(note);
+
+        mockMvc.perform(get("/api/notes/{id}", note.getId()).param("fields", "id,title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(note.getId()))
+                .andExpect(jsonPath("$.title").value("Projected"))
+                .andExpect(jsonPath("$.text").doesNotExist());
+
+        mockMvc.perform(get("/api/notes/{id}", note.getId()).param("fields", "body"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void updateNote_success() throws Exception {
         Note note = new Note();
@@ -186,6 +367,67 @@ class NoteControllerTest {
                 .andExpect(jsonPath("$.content[*].title", containsInAnyOrder("Note 0", "Note 1", "Note 2")));
     }
 
+    @Test
+    void listNotes_cursorMode_walksAllPagesWithoutDuplicates() throws Exception {
+        for (int i = 0; i < 6; i++) {
+            Note n = new Note();
+            n.setTitle("Note " + i);
+            n.setText("text " + i);
+            n.setCreateDate(LocalDateTime.now().minusDays(i));
+            noteRepository.save(n);
+        }
+
+        String firstPage = mockMvc.perform(get("/api/notes")
+                        .param("cursor", "")
+                        .param("size", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content", hasSize(4)))
+                .andExpect(jsonPath("$.content[0].title").value("Note 0"))
+                .andExpect(jsonPath("$.next", notNullValue()))
+                .andReturn().getResponse().getContentAsString();
+        String next = objectMapper.readTree(firstPage).get("next").asText();
+
+        mockMvc.perform(get("/api/notes")
+                        .param("cursor", next)
+                        .param("size", "4"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Note 4", "Note 5")))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+
+        mockMvc.perform(get("/api/notes")
+                        .param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void listNotes_byTags_filtersByAllTags() throws Exception {
+        for (List<Tag> tags : List.of(List.of(Tag.BUSINESS), List.of(Tag.BUSINESS, Tag.IMPORTANT))) {
+            Note n = new Note();
+            n.setTitle("Tags " + tags.size());
+            n.setText("text");
+            n.setTags(tags);
+            n.setCreateDate(LocalDateTime.now());
+            noteRepository.save(n);
+        }
+
+        mockMvc.perform(get("/api/notes").param("tags", "BUSINESS,IMPORTANT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].title", contains("Tags 2")));
+    }
+
+    @Test
+    void listNotes_tagsWithCursorModeOrTag_isBadRequest() throws Exception {
+        mockMvc.perform(get("/api/notes").param("tags", "BUSINESS").param("cursor", ""))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.details").doesNotExist());
+        mockMvc.perform(get("/api/notes").param("tags", "BUSINESS").param("mode", "slice"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/notes").param("tags", "BUSINESS").param("tag", "PERSONAL"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/notes").param("mode", "slice").param("cursor", ""))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void statsEndpoint_countsWordsAndSortsDescending() throws Exception {
         Note note = new Note();
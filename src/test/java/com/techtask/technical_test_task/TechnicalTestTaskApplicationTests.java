@@ -2,8 +2,10 @@ package com.techtask.technical_test_task;
 
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
 
 @SpringBootTest
+@ActiveProfiles("inmemory")
 class TechnicalTestTaskApplicationTests {
 
     @Test
@@ -1,26 +1,50 @@
 package com.techtask.technical_test_task.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techtask.technical_test_task.dto.BulkItemResult;
+import com.techtask.technical_test_task.dto.BulkItemStatus;
+import com.techtask.technical_test_task.dto.BulkResult;
+import com.techtask.technical_test_task.dto.CursorPage;
 import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.dto.SlicePage;
+import com.techtask.technical_test_task.exception.InvalidNoteRequestException;
 import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.NoteStats;
 import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.service.NoteCache;
+import com.techtask.technical_test_task.service.NoteIngestQueue;
 import com.techtask.technical_test_task.service.NoteService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,12 +55,22 @@ public class NoteControllerUnitTests {
     @Mock
     private NoteService noteService;
 
+    @Mock
+    private NoteIngestQueue noteIngestQueue;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private NoteController noteController;
 
     private Note mockNote;
     private final String NOTE_ID = "test-id-123";
 
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
+
     @BeforeEach
     void setUp() {
         mockNote = Note.builder()
@@ -60,35 +94,117 @@ public class NoteControllerUnitTests {
     }
 
     @Test
-    void getAllNotes_returnsListOfNotes() {
-        List<Note> notes = List.of(mockNote);
-        when(noteService.getAllNotes()).thenReturn(notes);
+    void createNoteAsync_returns202AcceptedWithId() {
+        when(noteIngestQueue.submit(mockNote)).thenReturn(NOTE_ID);
 
-        List<Note> result = noteController.getAllNotes();
+        ResponseEntity<Map<String, String>> response = noteController.createNoteAsync(mockNote);
 
-        assertEquals(1, result.size());
-        assertEquals(notes, result);
-        verify(noteService, times(1)).getAllNotes();
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals(Map.of("id", NOTE_ID), response.getBody());
+        assertEquals("/api/notes/" + NOTE_ID, response.getHeaders().getLocation().toString());
     }
 
     @Test
-    void getNoteById_noteFound_returns200Ok() {
-        when(noteService.getNoteById(NOTE_ID)).thenReturn(mockNote);
+    void createNotes_returns200OkWithPerItemResults() {
+        BulkResult bulkResult = new BulkResult(List.of(new BulkItemResult(0, NOTE_ID, BulkItemStatus.CREATED, null)));
+        when(noteService.createNotes(List.of(mockNote))).thenReturn(bulkResult);
+
+        ResponseEntity<BulkResult> response = noteController.createNotes(List.of(mockNote));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(1, response.getBody().getSucceeded());
+        verify(noteService, never()).createNote(any(Note.class));
+    }
+
+    @Test
+    void exportNotes_writesOneJsonNotePerLineAndClosesCursor() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        Note second = Note.builder().id("second").title("Second").text("More text").build();
+        when(noteService.exportNotes(Tag.PERSONAL, null, null))
+                .thenReturn(Stream.of(mockNote, second).onClose(() -> closed.set(true)));
 
-        ResponseEntity<Note> response = noteController.getNoteById(NOTE_ID);
+        ResponseEntity<StreamingResponseBody> response = noteController.exportNotes(Tag.PERSONAL, null, null);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        response.getBody().writeTo(out);
 
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
         assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_NDJSON, response.getHeaders().getContentType());
+        assertEquals(2, lines.length);
+        assertEquals(NOTE_ID, objectMapper.readTree(lines[0]).get("id").asText());
+        assertEquals("second", objectMapper.readTree(lines[1]).get("id").asText());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void getNoteById_noteFound_returns200OkWithEncodedJson() throws Exception {
+        when(noteService.getEncodedNote(eq(NOTE_ID), any())).thenAnswer(invocation -> {
+            Function<Note, byte[]> encoder = invocation.getArgument(1);
+            return new NoteCache.EncodedNote(0L, encoder.apply(mockNote), null);
+        });
+
+        ResponseEntity<?> response = noteController.getNoteById(NOTE_ID, webRequest());
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, response.getHeaders().getContentType());
+        assertEquals(mockNote.getTitle(), objectMapper.readValue((byte[]) response.getBody(), Note.class).getTitle());
+    }
+
+    @Test
+    void getNoteById_gzipAccepted_returnsCompressedBody() {
+        byte[] gzip = {31, -117};
+        when(noteService.getEncodedNote(eq(NOTE_ID), any())).thenReturn(new NoteCache.EncodedNote(0L, new byte[]{'{', '}'}, gzip));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes/" + NOTE_ID);
+        request.addHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+
+        ResponseEntity<?> response = noteController.getNoteById(NOTE_ID, new ServletWebRequest(request));
+
+        assertEquals("gzip", response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertSame(gzip, response.getBody());
+    }
+
+    @Test
+    void getNoteById_binaryAccept_returnsNoteForNegotiation() {
+        when(noteService.getNoteById(NOTE_ID)).thenReturn(mockNote);
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes/" + NOTE_ID);
+        request.addHeader(HttpHeaders.ACCEPT, "application/cbor");
+
+        ResponseEntity<?> response = noteController.getNoteById(NOTE_ID, new ServletWebRequest(request));
+
         assertEquals(mockNote, response.getBody());
-        verify(noteService, times(1)).getNoteById(NOTE_ID);
+        verify(noteService, never()).getEncodedNote(anyString(), any());
+    }
+
+    @Test
+    void getNoteById_matchingIfNoneMatch_answers304WithoutLoadingNote() {
+        when(noteService.getNoteVersion(NOTE_ID)).thenReturn(Optional.of(2L));
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes/" + NOTE_ID);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"2-json\"");
+
+        ResponseEntity<?> response = noteController.getNoteById(NOTE_ID, new ServletWebRequest(request));
+
+        assertEquals(HttpStatus.NOT_MODIFIED, response.getStatusCode());
+        assertEquals("\"2-json\"", response.getHeaders().getETag());
+        verify(noteService, never()).getNoteById(anyString());
     }
 
     @Test
     void getNoteById_noteNotFound_throwsNoSuchElementException() {
+        when(noteService.getEncodedNote(eq(NOTE_ID), any())).thenThrow(NoSuchElementException.class);
+
+        assertThrows(NoSuchElementException.class, () -> noteController.getNoteById(NOTE_ID, webRequest()));
+    }
 
-        when(noteService.getNoteById(NOTE_ID)).thenThrow(NoSuchElementException.class);
+    @Test
+    void getNoteFields_returns200OkWithRequestedFields() {
+        Map<String, Object> fields = Map.of("title", "Test Title");
+        when(noteService.getNoteFields(NOTE_ID, Set.of("title"))).thenReturn(fields);
+
+        ResponseEntity<Map<String, Object>> response = noteController.getNoteFields(NOTE_ID, Set.of("title"));
 
-        assertThrows(NoSuchElementException.class, () -> noteController.getNoteById(NOTE_ID));
-        verify(noteService, times(1)).getNoteById(NOTE_ID);
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(fields, response.getBody());
+        verify(noteService, never()).getNoteById(anyString());
     }
 
     @Test
@@ -122,50 +238,140 @@ public class NoteControllerUnitTests {
         verify(noteService, times(1)).getNotes(tag, page, size);
     }
 
+    @Test
+    void getNotesSlice_returns200OkWithSlice() {
+        SlicePage<NoteDTO> slice = new SlicePage<>(List.of(), 0, 5, false);
+        when(noteService.getNotesSlice(null, 0, 5)).thenReturn(slice);
+
+        ResponseEntity<SlicePage<NoteDTO>> response = noteController.getNotesSlice(null, 0, 5);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(slice, response.getBody());
+        verify(noteService, never()).getNotes(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void getNotesByCursor_returns200OkWithCursorPage() {
+        CursorPage<NoteDTO> notesPage = new CursorPage<>(List.of(), null);
+        when(noteService.getNotes(Tag.PERSONAL, "", 5)).thenReturn(notesPage);
+
+        ResponseEntity<CursorPage<NoteDTO>> response = noteController.getNotesByCursor(Tag.PERSONAL, "", 5);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(notesPage, response.getBody());
+        verify(noteService, times(1)).getNotes(Tag.PERSONAL, "", 5);
+    }
+
     @Test
     void getNoteStats_noteFound_returns200OkWithMap() {
         Map<String, Long> stats = Map.of("word", 2L, "count", 1L);
-        when(noteService.countStat(NOTE_ID)).thenReturn(Optional.of(stats));
+        when(noteService.getStats(NOTE_ID)).thenReturn(Optional.of(stats(stats, 1L)));
 
-        ResponseEntity<Map<String, Long>> response = noteController.getNoteStats(NOTE_ID);
+        ResponseEntity<Map<String, Long>> response = noteController.getNoteStats(NOTE_ID, webRequest());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(stats, response.getBody());
-        verify(noteService, times(1)).countStat(NOTE_ID);
+        verify(noteService, times(1)).getStats(NOTE_ID);
+    }
+
+    @Test
+    void getNoteStats_noteUpdatedMeanwhile_isTaggedWithTheVersionOfTheCounts() {
+        // the note is at version 3 already, the stored counts are still those of version 2
+        lenient().when(noteService.getNoteVersion(NOTE_ID)).thenReturn(Optional.of(3L));
+        when(noteService.getStats(NOTE_ID)).thenReturn(Optional.of(stats(Map.of("old", 1L), 2L)));
+
+        ResponseEntity<Map<String, Long>> response = noteController.getNoteStats(NOTE_ID, webRequest());
+
+        assertEquals("\"2-json\"", response.getHeaders().getETag());
+        assertEquals(Map.of("old", 1L), response.getBody());
     }
 
     @Test
     void getNoteStats_noteNotFound_returns404NotFound() {
-        when(noteService.countStat(NOTE_ID)).thenReturn(Optional.empty());
+        when(noteService.getStats(NOTE_ID)).thenReturn(Optional.empty());
 
-        ResponseEntity<Map<String, Long>> response = noteController.getNoteStats(NOTE_ID);
+        ResponseEntity<Map<String, Long>> response = noteController.getNoteStats(NOTE_ID, webRequest());
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNull(response.getBody());
-        verify(noteService, times(1)).countStat(NOTE_ID);
+        verify(noteService, times(1)).getStats(NOTE_ID);
+    }
+
+    private NoteStats stats(Map<String, Long> wordCounts, long noteVersion) {
+        return NoteStats.builder().id(NOTE_ID).wordCounts(wordCounts).noteVersion(noteVersion).build();
     }
 
     @Test
     void updateNote_noteFound_returns200Ok() {
         Note updatedNote = mockNote;
-        when(noteService.updateNote(NOTE_ID, mockNote)).thenReturn(Optional.of(updatedNote));
+        when(noteService.updateNote(NOTE_ID, mockNote, null)).thenReturn(Optional.of(updatedNote));
 
-        ResponseEntity<Note> response = noteController.updateNote(NOTE_ID, mockNote);
+        ResponseEntity<Note> response = noteController.updateNote(NOTE_ID, mockNote, null);
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(updatedNote, response.getBody());
-        verify(noteService, times(1)).updateNote(NOTE_ID, mockNote);
+        verify(noteService, times(1)).updateNote(NOTE_ID, mockNote, null);
     }
 
     @Test
     void updateNote_noteNotFound_returns404NotFound() {
-        when(noteService.updateNote(NOTE_ID, mockNote)).thenReturn(Optional.empty());
+        when(noteService.updateNote(NOTE_ID, mockNote, null)).thenReturn(Optional.empty());
 
-        ResponseEntity<Note> response = noteController.updateNote(NOTE_ID, mockNote);
+        ResponseEntity<Note> response = noteController.updateNote(NOTE_ID, mockNote, null);
 
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNull(response.getBody());
-        verify(noteService, times(1)).updateNote(NOTE_ID, mockNote);
+        verify(noteService, times(1)).updateNote(NOTE_ID, mockNote, null);
+    }
+
+    @Test
+    void updateNote_ifMatch_passesVersionToService() {
+        when(noteService.updateNote(NOTE_ID, mockNote, 3L)).thenReturn(Optional.of(mockNote));
+
+        ResponseEntity<Note> response = noteController.updateNote(NOTE_ID, mockNote, "\"3\"");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        verify(noteService, times(1)).updateNote(NOTE_ID, mockNote, 3L);
+    }
+
+    @Test
+    void updateNote_weakIfMatch_failsPreconditionWithoutUpdating() {
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> noteController.updateNote(NOTE_ID, mockNote, "W/\"3\""));
+        verify(noteService, never()).updateNote(anyString(), any(), any());
+    }
+
+    @Test
+    void updateNote_ifMatchAnyOnExistingNote_updatesAnyVersion() {
+        when(noteService.updateNote(NOTE_ID, mockNote, null)).thenReturn(Optional.of(mockNote));
+
+        ResponseEntity<Note> response = noteController.updateNote(NOTE_ID, mockNote, "*");
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+    }
+
+    @Test
+    void updateNote_ifMatchAnyOnMissingNote_failsPrecondition() {
+        when(noteService.updateNote(NOTE_ID, mockNote, null)).thenThrow(NoSuchElementException.class);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> noteController.updateNote(NOTE_ID, mockNote, "*"));
+    }
+
+    @Test
+    void updateNote_malformedIfMatch_throwsIllegalArgument() {
+        assertThrows(InvalidNoteRequestException.class, () -> noteController.updateNote(NOTE_ID, mockNote, "\"abc\""));
+        verify(noteService, never()).updateNote(anyString(), any(), any());
+    }
+
+    @Test
+    void searchNotes_returnsServicePage() {
+        Page<NoteDTO> page = new PageImpl<>(List.of(new NoteDTO(NOTE_ID, "Title", null)));
+        when(noteService.searchNotes("budget OR review", Tag.BUSINESS, 0, 5)).thenReturn(page);
+
+        ResponseEntity<Page<NoteDTO>> response = noteController.searchNotes("budget OR review", Tag.BUSINESS, 0, 5);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(page, response.getBody());
     }
 
     @Test
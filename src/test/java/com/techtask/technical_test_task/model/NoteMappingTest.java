@@ -0,0 +1,47 @@
+package com.techtask.technical_test_task.model;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoteMappingTest {
+
+    private final MappingMongoConverter converter = converter();
+
+    private static MappingMongoConverter converter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        return converter;
+    }
+
+    @Test
+    void write_storesTagMaskDerivedFromTags() {
+        Note note = Note.builder().title("t").text("x").tags(List.of(Tag.BUSINESS, Tag.IMPORTANT)).build();
+        Document document = new Document();
+
+        converter.write(note, document);
+
+        assertEquals(Tag.BUSINESS.bit() | Tag.IMPORTANT.bit(), document.get("tagMask"));
+    }
+
+    @Test
+    void read_ignoresStoredTagMask() {
+        Document document = new Document("title", "t").append("tags", List.of("PERSONAL")).append("tagMask", 7);
+
+        Note note = converter.read(Note.class, document);
+
+        assertEquals(Tag.PERSONAL.bit(), note.getTagMask());
+    }
+}
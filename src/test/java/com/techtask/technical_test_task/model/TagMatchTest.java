@@ -0,0 +1,35 @@
+package com.techtask.technical_test_task.model;
+
+import com.techtask.technical_test_task.exception.InvalidNoteRequestException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TagMatchTest {
+
+    private static final int BUSINESS = Tag.BUSINESS.bit();
+    private static final int PERSONAL = Tag.PERSONAL.bit();
+    private static final int IMPORTANT = Tag.IMPORTANT.bit();
+
+    @Test
+    void masks_all_listsSupersetsOfRequestedTags() {
+        assertEquals(List.of(BUSINESS | IMPORTANT, BUSINESS | PERSONAL | IMPORTANT),
+                TagMatch.ALL.masks(BUSINESS | IMPORTANT));
+    }
+
+    @Test
+    void masks_any_listsMasksSharingATag() {
+        assertEquals(List.of(BUSINESS, BUSINESS | PERSONAL, IMPORTANT, BUSINESS | IMPORTANT, PERSONAL | IMPORTANT,
+                        BUSINESS | PERSONAL | IMPORTANT),
+                TagMatch.ANY.masks(BUSINESS | IMPORTANT));
+    }
+
+    @Test
+    void from_isCaseInsensitiveAndRejectsUnknownValues() {
+        assertEquals(TagMatch.ANY, TagMatch.from("any"));
+        assertEquals(TagMatch.ALL, TagMatch.from(" All "));
+        assertThrows(InvalidNoteRequestException.class, () -> TagMatch.from("none"));
+    }
+}
@@ -0,0 +1,98 @@
+package com.techtask.technical_test_task.repository;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MongoConcurrencyLimiterTest {
+
+    private final Semaphore permits = new Semaphore(1, true);
+    private final Timer waitTimer = Timer.builder("notes.mongo.permit.wait").register(new SimpleMeterRegistry());
+    // one interceptor for all repositories, as registered by the post-processor
+    private final MongoConcurrencyLimiter.RepositoryPermitInterceptor limiter =
+            new MongoConcurrencyLimiter.RepositoryPermitInterceptor(permits, Duration.ofMillis(50), () -> waitTimer);
+
+    @SuppressWarnings("unchecked")
+    private <T> Supplier<T> limited(Supplier<T> target) {
+        ProxyFactory proxyFactory = new ProxyFactory(target);
+        proxyFactory.addInterface(Supplier.class);
+        proxyFactory.addAdvice(limiter);
+        return (Supplier<T>) proxyFactory.getProxy();
+    }
+
+    // runs the call on another thread, rethrowing what it threw
+    private static <T> T onOtherThread(Supplier<T> call) {
+        try {
+            return CompletableFuture.supplyAsync(call).join();
+        } catch (CompletionException ex) {
+            throw (RuntimeException) ex.getCause();
+        }
+    }
+
+    @Test
+    void invoke_releasesPermitAfterCall() {
+        Supplier<String> repository = limited(() -> "note");
+
+        assertEquals("note", repository.get());
+        assertEquals(1, permits.availablePermits());
+    }
+
+    @Test
+    void invoke_releasesPermitWhenCallFails() {
+        Supplier<String> repository = limited(() -> {
+            throw new IllegalStateException("boom");
+        });
+
+        assertThrows(IllegalStateException.class, repository::get);
+        assertEquals(1, permits.availablePermits());
+    }
+
+    @Test
+    void invoke_streamHoldsPermitUntilClosed() {
+        Supplier<Stream<String>> repository = limited(() -> Stream.of("a", "b"));
+
+        Stream<String> notes = repository.get();
+        assertEquals(0, permits.availablePermits());
+        assertThrows(TransientDataAccessResourceException.class, () -> onOtherThread(repository));
+
+        notes.close();
+        assertEquals(1, permits.availablePermits());
+        assertEquals(2, waitTimer.count());
+    }
+
+    @Test
+    void invoke_callsWhileStreamIsOpenRunOnTheThreadsPermit() {
+        Supplier<Stream<String>> streaming = limited(() -> Stream.of("a", "b"));
+        Supplier<String> lookup = limited(() -> "stats");
+
+        try (Stream<String> notes = streaming.get()) {
+            notes.forEach(note -> assertEquals("stats", lookup.get()));
+            assertEquals(0, permits.availablePermits());
+            // other threads still wait for the permit
+            assertThrows(TransientDataAccessResourceException.class, () -> onOtherThread(lookup));
+        }
+        assertEquals(1, permits.availablePermits());
+    }
+
+    @Test
+    void invoke_streamClosedOnAnotherThreadReleasesPermit() {
+        Supplier<Stream<String>> streaming = limited(() -> Stream.of("a"));
+
+        Stream<String> notes = streaming.get();
+        CompletableFuture.runAsync(notes::close).join();
+
+        assertEquals(1, permits.availablePermits());
+        assertEquals("note", this.<String>limited(() -> "note").get());
+    }
+}
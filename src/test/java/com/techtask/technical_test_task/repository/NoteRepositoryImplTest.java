@@ -0,0 +1,119 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.MongoTestServer;
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The MongoDB queries of {@link NoteRepositoryImpl}, see {@link MongoTestServer}.
+ */
+@DataMongoTest
+class NoteRepositoryImplTest {
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        MongoTestServer.register(registry);
+    }
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @BeforeEach
+    void setUp() {
+        noteRepository.deleteAll();
+    }
+
+    private Note save(String title, LocalDateTime createDate, Tag... tags) {
+        return noteRepository.save(Note.builder()
+                .title(title)
+                .text("text of " + title)
+                .createDate(createDate)
+                .tags(List.of(tags))
+                .build());
+    }
+
+    @Test
+    void findSummariesAfter_pagesThroughEqualCreateDatesByIdWithoutDuplicates() {
+        LocalDateTime same = LocalDateTime.of(2024, 1, 1, 12, 0);
+        save("Older", same.minusDays(1));
+        for (int i = 0; i < 4; i++) {
+            save("Same " + i, same);
+        }
+        save("Newer", same.plusDays(1));
+
+        List<String> titles = new ArrayList<>();
+        List<NoteDTO> page = noteRepository.findSummariesAfter(null, null, null, 2);
+        while (!page.isEmpty()) {
+            page.forEach(note -> titles.add(note.getTitle()));
+            NoteDTO last = page.get(page.size() - 1);
+            page = noteRepository.findSummariesAfter(null, last.getCreateDate(), last.getId(), 2);
+        }
+
+        assertEquals(List.of("Newer", "Same 3", "Same 2", "Same 1", "Same 0", "Older"), titles);
+    }
+
+    @Test
+    void findAndUpdate_returnsThePreviousStateAndMovesTheVersionOn() {
+        Note saved = save("Before", LocalDateTime.now(), Tag.BUSINESS);
+
+        Note previous = noteRepository.findAndUpdate(saved.getId(), 0L,
+                Note.builder().title("After").text("after").tags(List.of(Tag.PERSONAL)).build()).orElseThrow();
+
+        assertEquals("Before", previous.getTitle());
+        assertEquals(List.of(Tag.BUSINESS), previous.getTags());
+        Note stored = noteRepository.findById(saved.getId()).orElseThrow();
+        assertEquals("After", stored.getTitle());
+        assertEquals(1L, stored.getVersion());
+    }
+
+    @Test
+    void findAndUpdate_staleVersion_leavesTheNoteUntouched() {
+        Note saved = save("Before", LocalDateTime.now());
+
+        assertTrue(noteRepository.findAndUpdate(saved.getId(), 3L,
+                Note.builder().title("After").text("after").build()).isEmpty());
+
+        assertEquals("Before", noteRepository.findById(saved.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void insertUnordered_reportsFailuresByIndexAndInsertsTheRest() {
+        Note existing = save("Existing", LocalDateTime.now());
+        List<Note> notes = List.of(
+                Note.builder().title("First").text("first").createDate(LocalDateTime.now()).build(),
+                Note.builder().id(existing.getId()).title("Duplicate").text("duplicate").createDate(LocalDateTime.now()).build(),
+                Note.builder().title("Third").text("third").createDate(LocalDateTime.now()).build());
+
+        Map<Integer, String> failures = noteRepository.insertUnordered(notes);
+
+        assertEquals(List.of(1), List.copyOf(failures.keySet()));
+        assertTrue(failures.get(1).startsWith("E11000"), failures.get(1));
+        assertEquals(3, noteRepository.count());
+        assertEquals("Existing", noteRepository.findById(existing.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void deleteUnordered_removesTheGivenNotes() {
+        Note first = save("First", LocalDateTime.now());
+        Note second = save("Second", LocalDateTime.now());
+
+        assertEquals(Map.of(), noteRepository.deleteUnordered(List.of(first.getId(), "unknown")));
+
+        assertFalse(noteRepository.existsById(first.getId()));
+        assertTrue(noteRepository.existsById(second.getId()));
+    }
+}
@@ -0,0 +1,78 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.MongoTestServer;
+import com.techtask.technical_test_task.model.NoteStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The conditional upserts of {@link NoteStatsRepositoryImpl}, see {@link MongoTestServer}.
+ */
+@DataMongoTest
+class NoteStatsRepositoryImplTest {
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        MongoTestServer.register(registry);
+    }
+
+    @Autowired
+    private NoteStatsRepository noteStatsRepository;
+
+    @BeforeEach
+    void setUp() {
+        noteStatsRepository.deleteAll();
+    }
+
+    private static NoteStats stats(String id, Long noteVersion, String word) {
+        return NoteStats.builder()
+                .id(id)
+                .wordCounts(Map.of(word, 1L))
+                .noteVersion(noteVersion)
+                .updateDate(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void saveIfNewer_keepsStatsOfTheNewerVersion() {
+        assertTrue(noteStatsRepository.saveIfNewer(stats("note", 2L, "newer")));
+
+        // the stored stats do not match the condition, so the upsert collides with their id
+        assertFalse(noteStatsRepository.saveIfNewer(stats("note", 1L, "older")));
+        assertFalse(noteStatsRepository.saveIfNewer(stats("note", 2L, "same")));
+
+        NoteStats stored = noteStatsRepository.findById("note").orElseThrow();
+        assertEquals(Map.of("newer", 1L), stored.getWordCounts());
+        assertEquals(2L, stored.getNoteVersion());
+    }
+
+    @Test
+    void saveIfNewer_replacesStatsOfAnOlderOrUnknownVersion() {
+        noteStatsRepository.saveIfNewer(stats("note", null, "unversioned"));
+
+        assertTrue(noteStatsRepository.saveIfNewer(stats("note", 1L, "first")));
+        assertTrue(noteStatsRepository.saveIfNewer(stats("note", 2L, "second")));
+
+        assertEquals(Map.of("second", 1L), noteStatsRepository.findById("note").orElseThrow().getWordCounts());
+    }
+
+    @Test
+    void saveAllIfNewer_skipsOlderVersionsWithoutFailingTheBatch() {
+        noteStatsRepository.saveIfNewer(stats("newer", 5L, "kept"));
+
+        noteStatsRepository.saveAllIfNewer(List.of(stats("newer", 4L, "older"), stats("fresh", 0L, "fresh")));
+
+        assertEquals(Map.of("kept", 1L), noteStatsRepository.findById("newer").orElseThrow().getWordCounts());
+        assertEquals(Map.of("fresh", 1L), noteStatsRepository.findById("fresh").orElseThrow().getWordCounts());
+    }
+}
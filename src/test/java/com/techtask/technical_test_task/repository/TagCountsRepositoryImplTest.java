@@ -0,0 +1,73 @@
+package com.techtask.technical_test_task.repository;
+
+import com.techtask.technical_test_task.MongoTestServer;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.model.TagCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The counters document and the aggregation of {@link TagCountsRepositoryImpl}, see {@link MongoTestServer}.
+ */
+@DataMongoTest
+class TagCountsRepositoryImplTest {
+
+    @DynamicPropertySource
+    static void mongo(DynamicPropertyRegistry registry) {
+        MongoTestServer.register(registry);
+    }
+
+    @Autowired
+    private TagCountsRepository tagCountsRepository;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @BeforeEach
+    void setUp() {
+        tagCountsRepository.deleteAll();
+        noteRepository.deleteAll();
+    }
+
+    private void save(List<Tag> tags) {
+        noteRepository.save(Note.builder().title("Note").text("text").createDate(LocalDateTime.now()).tags(tags).build());
+    }
+
+    @Test
+    void countFromNotes_countsEveryNoteOncePerTag() {
+        save(List.of(Tag.BUSINESS));
+        save(List.of(Tag.BUSINESS, Tag.BUSINESS));
+        save(List.of(Tag.IMPORTANT, Tag.PERSONAL));
+        save(List.of());
+        save(null);
+
+        TagCounts counts = tagCountsRepository.countFromNotes();
+
+        assertEquals(5, counts.getTotal());
+        assertEquals(2, counts.getUntagged());
+        assertEquals(Map.of("BUSINESS", 2L, "PERSONAL", 1L, "IMPORTANT", 1L), counts.getTags());
+    }
+
+    @Test
+    void increment_createsTheDocumentAndAddsUp() {
+        TagCounts delta = TagCounts.builder().total(1).untagged(0).tags(Map.of("BUSINESS", 1L)).build();
+
+        tagCountsRepository.increment(delta);
+        tagCountsRepository.increment(delta);
+
+        TagCounts stored = tagCountsRepository.findById(TagCounts.ID).orElseThrow();
+        assertEquals(2, stored.getTotal());
+        assertEquals(2L, stored.getTags().get("BUSINESS"));
+    }
+}
@@ -0,0 +1,189 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.model.TagCounts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryNoteRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+    private static final Pageable NEWEST_FIRST = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "createDate"));
+
+    private InMemoryNoteRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryNoteRepository();
+    }
+
+    private Note store(int minute, Tag... tags) {
+        return repository.save(Note.builder()
+                .id(String.format("%024d", minute))
+                .title("Note " + minute)
+                .text("text of note " + minute)
+                .createDate(START.plusMinutes(minute))
+                .tags(List.of(tags))
+                .build());
+    }
+
+    private static List<String> ids(List<NoteDTO> summaries) {
+        return summaries.stream().map(NoteDTO::getId).toList();
+    }
+
+    @Test
+    void findSummariesBy_pagesNewestFirstWithTotal() {
+        for (int minute = 1; minute <= 5; minute++) {
+            store(minute);
+        }
+
+        Page<NoteDTO> page = repository.findSummariesBy(NEWEST_FIRST.next());
+
+        assertEquals(List.of(String.format("%024d", 3), String.format("%024d", 2)), ids(page.getContent()));
+        assertEquals(5, page.getTotalElements());
+    }
+
+    @Test
+    void save_outOfOrderCreateDate_keepsIndexSorted() {
+        store(5);
+        store(1);
+        store(3);
+
+        List<NoteDTO> all = repository.findSummariesBy(PageRequest.of(0, 10, Sort.by("createDate"))).getContent();
+
+        assertEquals(List.of("Note 1", "Note 3", "Note 5"), all.stream().map(NoteDTO::getTitle).toList());
+    }
+
+    @Test
+    void findAndUpdate_movesNoteBetweenTagIndexes() {
+        Note note = store(1, Tag.BUSINESS);
+        store(2, Tag.BUSINESS);
+
+        Note previous = repository.findAndUpdate(note.getId(), 0L,
+                Note.builder().title("Moved").text("new text").tags(List.of(Tag.PERSONAL)).build()).orElseThrow();
+
+        assertEquals(List.of(Tag.BUSINESS), previous.getTags());
+        assertEquals(1, repository.countByTags(Tag.BUSINESS));
+        assertEquals(List.of("Moved"), repository.findSummariesByTags(Tag.PERSONAL, NEWEST_FIRST).map(NoteDTO::getTitle).getContent());
+        assertEquals(1L, repository.findById(note.getId()).orElseThrow().getVersion());
+        assertTrue(repository.findAndUpdate(note.getId(), 0L, note).isEmpty());
+    }
+
+    @Test
+    void save_staleVersion_throwsOptimisticLockingFailure() {
+        Note note = store(1);
+        Note stale = repository.findById(note.getId()).orElseThrow();
+        repository.save(repository.findById(note.getId()).orElseThrow());
+
+        assertThrows(OptimisticLockingFailureException.class, () -> repository.save(stale));
+    }
+
+    @Test
+    void insert_existingId_throwsDuplicateKey() {
+        Note note = store(1);
+
+        assertThrows(DuplicateKeyException.class, () -> repository.insert(note));
+        assertTrue(repository.insertUnordered(List.of(note)).get(0).startsWith("E11000"));
+    }
+
+    @Test
+    void deleteById_removesFromIndexesAndReusesSlot() {
+        Note deleted = store(1, Tag.IMPORTANT);
+        store(2);
+        repository.deleteById(deleted.getId());
+        store(3, Tag.IMPORTANT);
+
+        assertEquals(List.of("Note 3", "Note 2"), repository.findSummariesBy(NEWEST_FIRST).map(NoteDTO::getTitle).getContent());
+        assertEquals(1, repository.countByTags(Tag.IMPORTANT));
+    }
+
+    @Test
+    void findSummariesAfter_startsStrictlyAfterTheCursor() {
+        for (int minute = 1; minute <= 4; minute++) {
+            store(minute, Tag.BUSINESS);
+        }
+
+        List<NoteDTO> page = repository.findSummariesAfter(Tag.BUSINESS, START.plusMinutes(3), String.format("%024d", 3), 5);
+
+        assertEquals(List.of("Note 2", "Note 1"), page.stream().map(NoteDTO::getTitle).toList());
+    }
+
+    @Test
+    void findSliceBy_reportsNextWithoutCounting() {
+        for (int minute = 1; minute <= 3; minute++) {
+            store(minute);
+        }
+
+        Slice<NoteDTO> first = repository.findSliceBy(NEWEST_FIRST);
+        Slice<NoteDTO> second = repository.findSliceBy(NEWEST_FIRST.next());
+
+        assertTrue(first.hasNext());
+        assertEquals(2, first.getNumberOfElements());
+        assertFalse(second.hasNext());
+        assertEquals(List.of("Note 1"), second.map(NoteDTO::getTitle).getContent());
+    }
+
+    @Test
+    void streamNotes_readsDateRangeOfTagIndex() {
+        for (int minute = 1; minute <= 5; minute++) {
+            store(minute, minute % 2 == 0 ? Tag.PERSONAL : Tag.BUSINESS);
+        }
+
+        List<String> titles;
+        try (Stream<Note> notes = repository.streamNotes(Tag.BUSINESS, START.plusMinutes(1), START.plusMinutes(5), 10)) {
+            titles = notes.map(Note::getTitle).toList();
+        }
+
+        assertEquals(List.of("Note 1", "Note 3"), titles);
+    }
+
+    @Test
+    void findSummariesByTagMaskIn_matchesNotesWithAllRequestedTags() {
+        store(1, Tag.BUSINESS, Tag.IMPORTANT);
+        store(2, Tag.BUSINESS);
+        store(3, Tag.IMPORTANT, Tag.BUSINESS);
+
+        Page<NoteDTO> page = repository.findSummariesByTagMaskIn(
+                List.of(Tag.mask(List.of(Tag.BUSINESS, Tag.IMPORTANT))), PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "createDate")));
+
+        assertEquals(List.of("Note 3"), page.map(NoteDTO::getTitle).getContent());
+        assertEquals(2, page.getTotalElements());
+    }
+
+    @Test
+    void findById_returnsCopyDetachedFromStore() {
+        Note note = store(1, Tag.BUSINESS);
+        repository.findById(note.getId()).orElseThrow().getTags().clear();
+
+        assertEquals(List.of(Tag.BUSINESS), repository.findById(note.getId()).orElseThrow().getTags());
+    }
+
+    @Test
+    void countTags_countsTaggedAndUntaggedNotes() {
+        store(1, Tag.BUSINESS, Tag.PERSONAL);
+        store(2);
+        store(3, Tag.BUSINESS);
+
+        TagCounts counts = repository.countTags();
+
+        assertEquals(3, counts.getTotal());
+        assertEquals(1, counts.getUntagged());
+        assertEquals(2L, counts.getTags().get("BUSINESS"));
+        assertEquals(0L, counts.getTags().get("IMPORTANT"));
+    }
+}
@@ -0,0 +1,9 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+public class InMemoryNoteServiceTest extends NoteServiceStoreTest {
+
+    @Override
+    protected InMemoryNoteRepository openRepository() {
+        return new InMemoryNoteRepository();
+    }
+}
@@ -0,0 +1,62 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import com.techtask.technical_test_task.model.NoteStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InMemoryNoteStatsRepositoryTest {
+
+    private InMemoryNoteStatsRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new InMemoryNoteStatsRepository();
+    }
+
+    private static NoteStats stats(Long noteVersion, String word) {
+        return NoteStats.builder()
+                .id("note")
+                .wordCounts(Map.of(word, 1L))
+                .noteVersion(noteVersion)
+                .updateDate(LocalDateTime.now())
+                .build();
+    }
+
+    @Test
+    void saveIfNewer_keepsStatsOfTheNewerVersion() {
+        assertTrue(repository.saveIfNewer(stats(2L, "newer")));
+
+        assertFalse(repository.saveIfNewer(stats(1L, "older")));
+        assertFalse(repository.saveIfNewer(stats(2L, "same")));
+
+        assertEquals(Map.of("newer", 1L), repository.findById("note").orElseThrow().getWordCounts());
+    }
+
+    @Test
+    void saveIfNewer_replacesUnversionedStats() {
+        repository.save(stats(null, "unversioned"));
+
+        assertTrue(repository.saveIfNewer(stats(0L, "versioned")));
+        assertFalse(repository.saveIfNewer(stats(null, "unversioned")));
+
+        assertEquals(0L, repository.findById("note").orElseThrow().getNoteVersion());
+    }
+
+    @Test
+    void saveAllIfNewer_skipsOnlyOutdatedStats() {
+        repository.saveIfNewer(stats(3L, "stored"));
+        NoteStats other = stats(1L, "other");
+        other.setId("other");
+
+        repository.saveAllIfNewer(List.of(stats(2L, "outdated"), other));
+
+        assertEquals(Map.of("stored", 1L), repository.findById("note").orElseThrow().getWordCounts());
+        assertTrue(repository.existsById("other"));
+    }
+}
@@ -0,0 +1,166 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedLogNoteRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @TempDir
+    private Path directory;
+
+    private MappedLogNoteRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    private MappedLogNoteRepository open() {
+        if (repository != null) {
+            repository.close();
+        }
+        repository = new MappedLogNoteRepository(directory, DataSize.ofKilobytes(1), false, 0.5);
+        return repository;
+    }
+
+    private Note store(int minute, Tag... tags) {
+        return repository.save(Note.builder()
+                .id(String.format("%024d", minute))
+                .title("Note " + minute)
+                .text("text of note " + minute)
+                .createDate(START.plusMinutes(minute))
+                .tags(List.of(tags))
+                .build());
+    }
+
+    private List<String> titles() {
+        return repository.findSummariesBy(PageRequest.of(0, 100, Sort.by("createDate"))).map(NoteDTO::getTitle).getContent();
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    void open_afterRestart_recoversNotesAndIndexes() {
+        open();
+        Note note = store(1, Tag.BUSINESS);
+        store(2, Tag.PERSONAL);
+        Note updated = repository.findById(note.getId()).orElseThrow();
+        updated.setText("changed");
+        repository.save(updated);
+
+        open();
+
+        Note recovered = repository.findById(note.getId()).orElseThrow();
+        assertEquals("changed", recovered.getText());
+        assertEquals(1L, recovered.getVersion());
+        assertEquals(START.plusMinutes(1), recovered.getCreateDate());
+        assertEquals(List.of("Note 1", "Note 2"), titles());
+        assertEquals(1, repository.countByTags(Tag.BUSINESS));
+    }
+
+    @Test
+    void deleteById_afterRestart_staysDeleted() {
+        open();
+        Note deleted = store(1, Tag.IMPORTANT);
+        store(2);
+        repository.deleteById(deleted.getId());
+
+        open();
+
+        assertTrue(repository.findById(deleted.getId()).isEmpty());
+        assertEquals(List.of("Note 2"), titles());
+        assertEquals(0, repository.countByTags(Tag.IMPORTANT));
+    }
+
+    @Test
+    void compactIfNeeded_mostlySuperseded_removesSealedSegmentsAndKeepsNotes() throws IOException {
+        open();
+        Note kept = store(1, Tag.BUSINESS);
+        for (int round = 0; round < 20; round++) {
+            Note note = store(2);
+            repository.deleteById(note.getId());
+        }
+        long before = segmentFiles();
+
+        repository.compactIfNeeded();
+
+        assertTrue(segmentFiles() < before);
+        assertEquals(kept.getTitle(), repository.findById(kept.getId()).orElseThrow().getTitle());
+        open();
+        assertEquals(List.of("Note 1"), titles());
+        assertEquals(1, repository.countByTags(Tag.BUSINESS));
+    }
+
+    @Test
+    void open_tornLastRecord_dropsItAndKeepsEarlierNotes() throws IOException {
+        open();
+        store(1);
+        store(2);
+        repository.close();
+        Path segment = directory.resolve("00000001.log");
+        byte[] content = Files.readAllBytes(segment);
+        // corrupt the last byte of the second record's checksum, as an interrupted write would
+        int end = 0;
+        for (int record = 0; record < 2; record++) {
+            end += ByteBuffer.wrap(content, end, Integer.BYTES).getInt();
+        }
+        content[end - 1] ^= 0x7f;
+        Files.write(segment, content, StandardOpenOption.TRUNCATE_EXISTING);
+
+        open();
+        store(3);
+        open();
+
+        assertEquals(List.of("Note 1", "Note 3"), titles());
+    }
+
+    @Test
+    void open_damagedRecordInEarlierSegment_dropsRestOfThatSegmentOnly() throws IOException {
+        open();
+        for (int minute = 1; minute <= 20; minute++) {
+            store(minute);
+        }
+        repository.close();
+        assertTrue(segmentFiles() >= 2);
+        Path segment = directory.resolve("00000001.log");
+        byte[] content = Files.readAllBytes(segment);
+        // corrupt the checksum of the second record of the first segment
+        int end = 0;
+        for (int record = 0; record < 2; record++) {
+            end += ByteBuffer.wrap(content, end, Integer.BYTES).getInt();
+        }
+        content[end - 1] ^= 0x7f;
+        Files.write(segment, content, StandardOpenOption.TRUNCATE_EXISTING);
+
+        open();
+
+        List<String> titles = titles();
+        assertTrue(titles.contains("Note 1"));
+        assertFalse(titles.contains("Note 2"));
+        assertTrue(titles.contains("Note 20"));
+    }
+}
@@ -0,0 +1,54 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedLogNoteServiceTest extends NoteServiceStoreTest {
+
+    @TempDir
+    private Path directory;
+
+    @Override
+    protected MappedLogNoteRepository openRepository() {
+        // small segments, so the scenarios write across several of them
+        return new MappedLogNoteRepository(directory, DataSize.ofKilobytes(1), false, 0.5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ((MappedLogNoteRepository) noteRepository).close();
+    }
+
+    private void restart() {
+        ((MappedLogNoteRepository) noteRepository).close();
+        noteRepository = openRepository();
+        noteService = service(noteRepository);
+    }
+
+    @Test
+    void restart_keepsLatestVersionsAndDeletions() {
+        Note updated = create("Updated", Tag.BUSINESS);
+        Note deleted = create("Deleted");
+        noteService.updateNote(updated.getId(), Note.builder().title("Updated twice").text("text").build(), 0L);
+        noteService.deleteNote(deleted.getId());
+
+        restart();
+
+        Note read = noteService.getNoteById(updated.getId());
+        assertEquals("Updated twice", read.getTitle());
+        assertEquals(1L, read.getVersion());
+        assertThrows(NoSuchElementException.class, () -> noteService.getNoteById(deleted.getId()));
+        assertEquals(List.of("Updated twice"), noteService.getNotes((Tag) null, 0, 10).map(NoteDTO::getTitle).getContent());
+    }
+}
@@ -0,0 +1,219 @@
+package com.techtask.technical_test_task.repository.inmemory;
+
+import com.techtask.technical_test_task.dto.BulkItemStatus;
+import com.techtask.technical_test_task.dto.BulkResult;
+import com.techtask.technical_test_task.dto.CursorPage;
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.service.CorpusWordStats;
+import com.techtask.technical_test_task.service.NoteCache;
+import com.techtask.technical_test_task.service.NoteCounter;
+import com.techtask.technical_test_task.service.NoteSearchIndex;
+import com.techtask.technical_test_task.service.NoteService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * {@link NoteService} scenarios against a real note store, run for every store by a subclass.
+ * {@code NoteServiceTest} covers the same service against mocks.
+ */
+public abstract class NoteServiceStoreTest {
+
+    protected InMemoryNoteRepository noteRepository;
+    protected NoteService noteService;
+
+    protected abstract InMemoryNoteRepository openRepository();
+
+    @BeforeEach
+    void setUp() {
+        noteRepository = openRepository();
+        noteService = service(noteRepository);
+    }
+
+    protected static NoteService service(InMemoryNoteRepository noteRepository) {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        NoteCache noteCache = new NoteCache(noteRepository, meterRegistry, 100, Duration.ofMinutes(1),
+                DataSize.ofKilobytes(64), DataSize.ofBytes(100));
+        NoteCounter noteCounter = new NoteCounter(new InMemoryTagCountsRepository(noteRepository), Runnable::run);
+        return new NoteService(noteRepository, new InMemoryNoteStatsRepository(), noteCache, noteCounter,
+                new NoteSearchIndex(noteRepository, 500), new CorpusWordStats(noteRepository, 10, 2, 500),
+                Validation.buildDefaultValidatorFactory().getValidator(), meterRegistry, 500, 1000);
+    }
+
+    protected Note create(String title, Tag... tags) {
+        return noteService.createNote(Note.builder()
+                .title(title)
+                .text("text of " + title.toLowerCase())
+                .tags(List.of(tags))
+                .build());
+    }
+
+    @Test
+    void createNote_isReadBackWithIdCreateDateAndFirstVersion() {
+        Note created = create("First", Tag.BUSINESS);
+
+        Note read = noteRepository.findById(created.getId()).orElseThrow();
+        assertEquals("First", read.getTitle());
+        assertEquals(List.of(Tag.BUSINESS), read.getTags());
+        assertNotNull(read.getCreateDate());
+        assertEquals(0L, read.getVersion());
+    }
+
+    @Test
+    void createNote_materializesWordStats() {
+        Note created = create("Stats");
+
+        assertEquals(Map.of("text", 1L, "of", 1L, "stats", 1L), noteService.countStat(created.getId()).orElseThrow());
+    }
+
+    @Test
+    void updateNote_movesVersionOnAndReplacesStats() {
+        Note created = create("Before");
+
+        Note updated = noteService.updateNote(created.getId(),
+                Note.builder().title("After").text("after after").tags(List.of(Tag.PERSONAL)).build(), 0L).orElseThrow();
+
+        assertEquals(1L, updated.getVersion());
+        Note read = noteRepository.findById(created.getId()).orElseThrow();
+        assertEquals("After", read.getTitle());
+        assertEquals(List.of(Tag.PERSONAL), read.getTags());
+        assertEquals(Map.of("after", 2L), noteService.countStat(created.getId()).orElseThrow());
+    }
+
+    @Test
+    void updateNote_staleVersion_throwsOptimisticLockingFailure() {
+        Note created = create("Versioned");
+        noteService.updateNote(created.getId(), Note.builder().title("Once").text("once").build(), 0L);
+
+        assertThrows(OptimisticLockingFailureException.class, () -> noteService.updateNote(created.getId(),
+                Note.builder().title("Twice").text("twice").build(), 0L));
+        assertEquals("Once", noteRepository.findById(created.getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void deleteNote_removesNoteAndStats() {
+        Note created = create("Deleted");
+
+        assertTrue(noteService.deleteNote(created.getId()));
+
+        assertFalse(noteService.deleteNote(created.getId()));
+        assertThrows(NoSuchElementException.class, () -> noteService.getNoteById(created.getId()));
+        assertTrue(noteService.countStat(created.getId()).isEmpty());
+    }
+
+    @Test
+    void createNotes_storesValidNotesAndReportsInvalidAndDuplicateOnes() {
+        Note existing = create("Existing");
+        Note invalid = Note.builder().title("").text("text").build();
+        Note duplicate = Note.builder().id(existing.getId()).title("Duplicate").text("text").build();
+        Note valid = Note.builder().title("Bulk").text("bulk text").tags(List.of(Tag.IMPORTANT)).build();
+
+        BulkResult result = noteService.createNotes(Arrays.asList(invalid, duplicate, valid));
+
+        assertEquals(BulkItemStatus.INVALID, result.getItems().get(0).getStatus());
+        assertEquals(BulkItemStatus.FAILED, result.getItems().get(1).getStatus());
+        assertEquals(BulkItemStatus.CREATED, result.getItems().get(2).getStatus());
+        assertEquals("Existing", noteRepository.findById(existing.getId()).orElseThrow().getTitle());
+        assertEquals("Bulk", noteRepository.findById(result.getItems().get(2).getId()).orElseThrow().getTitle());
+    }
+
+    @Test
+    void updateNotes_updatesExistingNotesAndReportsUnknownOnes() {
+        Note existing = create("Existing");
+        Note update = Note.builder().id(existing.getId()).title("Updated").text("updated text").build();
+        Note unknown = Note.builder().id("unknown").title("Unknown").text("text").build();
+
+        BulkResult result = noteService.updateNotes(List.of(update, unknown));
+
+        assertEquals(BulkItemStatus.UPDATED, result.getItems().get(0).getStatus());
+        assertEquals(BulkItemStatus.NOT_FOUND, result.getItems().get(1).getStatus());
+        Note read = noteRepository.findById(existing.getId()).orElseThrow();
+        assertEquals("Updated", read.getTitle());
+        assertEquals(1L, read.getVersion());
+        assertEquals(Map.of("updated", 1L, "text", 1L), noteService.countStat(existing.getId()).orElseThrow());
+    }
+
+    @Test
+    void deleteNotes_deletesExistingNotesAndReportsUnknownOnes() {
+        Note existing = create("Existing");
+
+        BulkResult result = noteService.deleteNotes(List.of(existing.getId(), "unknown"));
+
+        assertEquals(BulkItemStatus.DELETED, result.getItems().get(0).getStatus());
+        assertEquals(BulkItemStatus.NOT_FOUND, result.getItems().get(1).getStatus());
+        assertTrue(noteRepository.findById(existing.getId()).isEmpty());
+    }
+
+    @Test
+    void getNotes_byTag_listsNewestFirst() {
+        create("Business 1", Tag.BUSINESS);
+        create("Personal", Tag.PERSONAL);
+        create("Business 2", Tag.BUSINESS);
+
+        List<String> titles = noteService.getNotes(Tag.BUSINESS, 0, 10).map(NoteDTO::getTitle).getContent();
+
+        assertEquals(List.of("Business 2", "Business 1"), titles);
+    }
+
+    @Test
+    void getNotesByCursor_pagesThroughEveryNoteOnce() {
+        for (int i = 1; i <= 5; i++) {
+            create("Note " + i);
+        }
+
+        List<String> titles = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<NoteDTO> page = noteService.getNotes((Tag) null, cursor, 2);
+            page.getContent().forEach(note -> titles.add(note.getTitle()));
+            cursor = page.getNext();
+        } while (cursor != null);
+
+        assertEquals(List.of("Note 5", "Note 4", "Note 3", "Note 2", "Note 1"), titles);
+    }
+
+    @Test
+    void getNotesSlice_lastPage_hasNoNext() {
+        create("First");
+        create("Second");
+        create("Third");
+
+        assertTrue(noteService.getNotesSlice(null, 0, 2).isHasNext());
+        assertFalse(noteService.getNotesSlice(null, 1, 2).isHasNext());
+    }
+
+    @Test
+    void getNoteFields_returnsOnlyTheRequestedFields() {
+        Note created = create("Fields", Tag.PERSONAL);
+
+        Map<String, Object> fields = noteService.getNoteFields(created.getId(), Set.of("title", "tags"));
+
+        assertEquals(Map.of("title", "Fields", "tags", List.of(Tag.PERSONAL)), fields);
+    }
+
+    @Test
+    void exportNotes_streamsNotesOfTheTag() {
+        create("Important", Tag.IMPORTANT);
+        create("Other", Tag.BUSINESS);
+
+        try (Stream<Note> notes = noteService.exportNotes(Tag.IMPORTANT, null, null)) {
+            assertEquals(List.of("Important"), notes.map(Note::getTitle).toList());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.techtask.technical_test_task.repository.session;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.session.web.http.SessionRepositoryFilter;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TieredSessionConfigurationTest {
+
+    private final TieredSessionRepository repository = new TieredSessionRepository(null, new SimpleMeterRegistry(),
+            "sessions", 100, Duration.ofSeconds(60), Duration.ofMinutes(30), Clock.systemUTC());
+    private final Counter stateless = Counter.builder("notes.session.stateless").register(new SimpleMeterRegistry());
+    private final TieredSessionConfiguration.StatelessAwareSessionFilter filter = new TieredSessionConfiguration.StatelessAwareSessionFilter(
+            new SessionRepositoryFilter<>(repository), List.of("/api/**"), stateless);
+
+    @Test
+    void doFilter_statelessPath_passesRequestThroughWithoutSession() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/notes");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertSame(request, chain.getRequest());
+        assertNull(response.getHeader("Set-Cookie"));
+        assertEquals(1.0, stateless.count());
+    }
+
+    @Test
+    void doFilter_otherPath_savesSessionAndSetsCookie() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/login");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                req.getSession().setAttribute("user", "alice");
+            }
+        });
+
+        filter.doFilter(request, response, chain);
+
+        String cookie = response.getHeader("Set-Cookie");
+        assertNotNull(cookie);
+        String id = new String(Base64.getDecoder().decode(cookie.substring("SESSION=".length(), cookie.indexOf(';'))));
+        assertEquals("alice", repository.findById(id).getAttribute("user"));
+        assertEquals(0.0, stateless.count());
+    }
+}
@@ -0,0 +1,161 @@
+package com.techtask.technical_test_task.repository.session;
+
+import com.techtask.technical_test_task.repository.session.TieredSessionRepository.TieredSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TieredSessionRepositoryTest {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(30);
+
+    @Mock(answer = Answers.RETURNS_DEEP_STUBS)
+    private MongoOperations mongo;
+
+    @Mock
+    private Clock clock;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TieredSessionRepository repository;
+    private Instant now;
+
+    @BeforeEach
+    void setUp() {
+        now = Instant.now();
+        lenient().when(clock.instant()).thenAnswer(invocation -> now);
+        repository = new TieredSessionRepository(mongo, meterRegistry, "sessions", 100, Duration.ofSeconds(60), TIMEOUT, clock);
+    }
+
+    private double reads(String tier) {
+        return meterRegistry.get("notes.session.reads").tag("tier", tier).counter().count();
+    }
+
+    private double writes(String result) {
+        return meterRegistry.get("notes.session.writes").tag("result", result).counter().count();
+    }
+
+    private Document stored() {
+        ArgumentCaptor<Document> document = ArgumentCaptor.forClass(Document.class);
+        verify(mongo, atLeastOnce()).save(document.capture(), eq("sessions"));
+        return document.getValue();
+    }
+
+    @Test
+    void save_newSessionWithoutAttributes_staysInCacheOnly() {
+        TieredSession session = repository.createSession();
+
+        repository.save(session);
+
+        assertNotNull(repository.findById(session.getId()));
+        verify(mongo, never()).save(any(Document.class), anyString());
+        verify(mongo, never()).findById(any(), eq(Document.class), anyString());
+        assertEquals(1.0, writes("skipped"));
+        assertEquals(1.0, reads("cache"));
+    }
+
+    @Test
+    void findById_storedSession_servedFromCacheWithoutMongoRoundTrip() {
+        TieredSession session = repository.createSession();
+        session.setAttribute("user", "alice");
+        repository.save(session);
+
+        TieredSession found = repository.findById(session.getId());
+
+        assertEquals("alice", found.getAttribute("user"));
+        assertEquals(session.getId(), stored().get("_id"));
+        verify(mongo, never()).findById(any(), eq(Document.class), anyString());
+        assertEquals(1.0, writes("written"));
+    }
+
+    @Test
+    void save_unchangedSession_touchesMongoOnlyOnceAccessLagsHalfTheTimeout() {
+        TieredSession session = repository.createSession();
+        session.setAttribute("user", "alice");
+        repository.save(session);
+
+        TieredSession recent = repository.findById(session.getId());
+        recent.setLastAccessedTime(recent.getLastAccessedTime().plus(Duration.ofMinutes(5)));
+        repository.save(recent);
+        verify(mongo, never()).updateFirst(any(Query.class), any(Update.class), anyString());
+
+        TieredSession lagging = repository.findById(session.getId());
+        lagging.setLastAccessedTime(lagging.getLastAccessedTime().plus(Duration.ofMinutes(15)));
+        repository.save(lagging);
+
+        verify(mongo).updateFirst(any(Query.class), any(Update.class), eq("sessions"));
+        assertEquals(1.0, writes("skipped"));
+        assertEquals(2.0, writes("written"));
+    }
+
+    @Test
+    void findById_afterRevalidateWindow_rereadsStoredSessionAndKeepsLaterAccess() {
+        TieredSession session = repository.createSession();
+        session.setAttribute("user", "alice");
+        repository.save(session);
+        Document document = stored();
+        when(mongo.findById(session.getId(), Document.class, "sessions")).thenReturn(document);
+
+        TieredSession touched = repository.findById(session.getId());
+        Instant lastAccess = touched.getLastAccessedTime().plusSeconds(30);
+        touched.setLastAccessedTime(lastAccess);
+        repository.save(touched);
+        now = now.plus(Duration.ofMinutes(2));
+
+        TieredSession reloaded = repository.findById(session.getId());
+
+        assertEquals("alice", reloaded.getAttribute("user"));
+        assertEquals(lastAccess, reloaded.getLastAccessedTime());
+        assertEquals(TIMEOUT, reloaded.getMaxInactiveInterval());
+        assertEquals(1.0, reads("mongo"));
+    }
+
+    @Test
+    void save_changedSessionId_replacesStoredSession() {
+        TieredSession session = repository.createSession();
+        session.setAttribute("user", "alice");
+        repository.save(session);
+        String oldId = session.getId();
+
+        TieredSession found = repository.findById(oldId);
+        String newId = found.changeSessionId();
+        repository.save(found);
+
+        verify(mongo).remove(any(Query.class), eq("sessions"));
+        assertEquals(newId, stored().get("_id"));
+        assertNotNull(repository.findById(newId));
+        assertNull(repository.findById(oldId));
+    }
+
+    @Test
+    void findById_withoutMongo_servesSessionsFromCache() {
+        TieredSessionRepository cacheOnly = new TieredSessionRepository(null, new SimpleMeterRegistry(), "sessions", 100,
+                Duration.ofSeconds(60), TIMEOUT, clock);
+        TieredSession session = cacheOnly.createSession();
+        session.setAttribute("user", "alice");
+        cacheOnly.save(session);
+
+        assertEquals("alice", cacheOnly.findById(session.getId()).getAttribute("user"));
+        cacheOnly.deleteById(session.getId());
+        assertNull(cacheOnly.findById(session.getId()));
+    }
+}
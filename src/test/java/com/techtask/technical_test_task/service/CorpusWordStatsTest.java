@@ -0,0 +1,95 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.dto.WordCount;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.repository.NoteRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CorpusWordStatsTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    private static Note note(int day, String text, Tag... tags) {
+        return Note.builder().id("n" + day).text(text).createDate(START.plusDays(day)).tags(List.of(tags)).build();
+    }
+
+    @Test
+    void rebuild_mergesShardScansAndReplacesIncrementalState() {
+        List<Note> notes = List.of(
+                note(0, "budget budget review", Tag.BUSINESS),
+                note(10, "budget deadline", Tag.BUSINESS, Tag.IMPORTANT),
+                note(20, "holiday plans", Tag.PERSONAL),
+                note(30, "budget holiday", Tag.PERSONAL));
+        when(noteRepository.findFirstByOrderByCreateDateAsc()).thenReturn(Optional.of(notes.get(0)));
+        when(noteRepository.findFirstByOrderByCreateDateDesc()).thenReturn(Optional.of(notes.get(3)));
+        when(noteRepository.streamNotes(isNull(), any(), any(), anyInt())).thenAnswer(invocation -> {
+            LocalDateTime from = invocation.getArgument(1);
+            LocalDateTime to = invocation.getArgument(2);
+            return notes.stream().filter(note ->
+                    (from == null || !note.getCreateDate().isBefore(from)) && (to == null || note.getCreateDate().isBefore(to)));
+        });
+        CorpusWordStats stats = new CorpusWordStats(noteRepository, 10, 4, 100);
+        stats.add("stale", List.of(Tag.BUSINESS), Map.of("stale", 5L));
+
+        assertTrue(stats.rebuild());
+
+        verify(noteRepository, times(4)).streamNotes(isNull(), any(), any(), eq(100));
+        assertEquals(new WordCount("budget", 4), stats.topWords(null, 1).get(0));
+        assertEquals(List.of(new WordCount("budget", 3), new WordCount("deadline", 1), new WordCount("review", 1)),
+                stats.topWords(Tag.BUSINESS, 10));
+        assertEquals(2, stats.distinctWords(Tag.IMPORTANT));
+        assertEquals(5, stats.distinctWords(null));
+    }
+
+    @Test
+    void rebuild_appliesWritesMadeDuringTheScan() {
+        List<Note> notes = List.of(note(0, "budget review", Tag.BUSINESS), note(1, "holiday plans", Tag.PERSONAL));
+        CorpusWordStats stats = new CorpusWordStats(noteRepository, 10, 1, 100);
+        when(noteRepository.streamNotes(null, null, null, 100)).thenAnswer(invocation -> {
+            // an update, a delete and a create that land while the collection is streamed
+            stats.remove("n0", List.of(Tag.BUSINESS), Map.of("budget", 1L, "review", 1L));
+            stats.add("n0", List.of(Tag.BUSINESS), Map.of("deadline", 1L));
+            stats.remove("n1", List.of(Tag.PERSONAL), Map.of("holiday", 1L, "plans", 1L));
+            stats.add("n2", List.of(Tag.IMPORTANT), Map.of("deadline", 2L));
+            return notes.stream();
+        });
+
+        assertTrue(stats.rebuild());
+
+        assertEquals(List.of(new WordCount("deadline", 3)), stats.topWords(null, 10));
+        assertEquals(List.of(new WordCount("deadline", 1)), stats.topWords(Tag.BUSINESS, 10));
+        assertEquals(List.of(), stats.topWords(Tag.PERSONAL, 10));
+        assertEquals(1, stats.distinctWords(null));
+    }
+
+    @Test
+    void rebuild_emptyCollection_usesSingleShard() {
+        when(noteRepository.streamNotes(null, null, null, 100)).thenReturn(Stream.empty());
+        CorpusWordStats stats = new CorpusWordStats(noteRepository, 10, 4, 100);
+
+        assertTrue(stats.rebuild());
+
+        assertEquals(List.of(), stats.topWords(null, 10));
+        assertEquals(0, stats.distinctWords(null));
+    }
+}
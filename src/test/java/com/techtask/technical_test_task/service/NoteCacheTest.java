@@ -0,0 +1,58 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.repository.NoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NoteCacheTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    private NoteCache noteCache;
+
+    @BeforeEach
+    void setUp() {
+        noteCache = new NoteCache(noteRepository, new SimpleMeterRegistry(), 100, Duration.ofMinutes(1),
+                DataSize.ofMegabytes(1), DataSize.ofKilobytes(1));
+    }
+
+    @Test
+    void put_olderVersionAfterNewerOne_keepsTheNewerOne() {
+        noteCache.put(note(2L, "second"));
+        noteCache.put(note(1L, "first"));
+
+        assertEquals("second", noteCache.getIfPresent("id").orElseThrow().getTitle());
+    }
+
+    @Test
+    void put_newerVersion_replacesTheCachedOne() {
+        noteCache.put(note(1L, "first"));
+        noteCache.put(note(2L, "second"));
+
+        assertEquals("second", noteCache.getIfPresent("id").orElseThrow().getTitle());
+    }
+
+    @Test
+    void put_withoutVersion_replacesTheCachedOne() {
+        noteCache.put(note(3L, "versioned"));
+        noteCache.put(note(null, "unversioned"));
+
+        assertEquals("unversioned", noteCache.getIfPresent("id").orElseThrow().getTitle());
+    }
+
+    private static Note note(Long version, String title) {
+        return Note.builder().id("id").title(title).text("text").version(version).build();
+    }
+}
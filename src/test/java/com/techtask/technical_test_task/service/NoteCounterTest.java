@@ -0,0 +1,138 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.dto.TagFacets;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.model.TagCounts;
+import com.techtask.technical_test_task.repository.TagCountsRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NoteCounterTest {
+
+    @Mock
+    private TagCountsRepository tagCountsRepository;
+
+    private NoteCounter noteCounter;
+
+    @BeforeEach
+    void setUp() {
+        noteCounter = new NoteCounter(tagCountsRepository, Runnable::run);
+    }
+
+    @Test
+    void facets_beforeRefresh_isEmpty() {
+        assertTrue(noteCounter.facets().isEmpty());
+        assertTrue(noteCounter.count(null).isEmpty());
+    }
+
+    @Test
+    void refresh_noStoredCounts_reconcilesFromNotes() {
+        when(tagCountsRepository.findById(TagCounts.ID)).thenReturn(Optional.empty());
+        when(tagCountsRepository.countFromNotes())
+                .thenReturn(TagCounts.builder().total(4L).untagged(1L).tags(Map.of("BUSINESS", 3L)).build());
+
+        noteCounter.refresh();
+
+        ArgumentCaptor<TagCounts> saved = ArgumentCaptor.forClass(TagCounts.class);
+        verify(tagCountsRepository).save(saved.capture());
+        assertEquals(TagCounts.ID, saved.getValue().getId());
+        TagFacets facets = noteCounter.facets().orElseThrow();
+        assertEquals(4L, facets.getTotal());
+        assertEquals(1L, facets.getUntagged());
+        assertEquals(3L, facets.getTags().get(Tag.BUSINESS));
+    }
+
+    @Test
+    void apply_countsDuplicateTagsOnceAndNotesWithoutTagsAsUntagged() {
+        NoteCounter.Changes changes = new NoteCounter.Changes()
+                .created(List.of(Tag.PERSONAL, Tag.PERSONAL))
+                .created(null)
+                .updated(List.of(), List.of(Tag.IMPORTANT))
+                .deleted(Arrays.asList(Tag.BUSINESS, null));
+
+        noteCounter.apply(changes);
+
+        ArgumentCaptor<TagCounts> delta = ArgumentCaptor.forClass(TagCounts.class);
+        verify(tagCountsRepository, times(1)).increment(delta.capture());
+        assertEquals(1L, delta.getValue().getTotal());
+        assertEquals(0L, delta.getValue().getUntagged());
+        assertEquals(Map.of("PERSONAL", 1L, "IMPORTANT", 1L, "BUSINESS", -1L), delta.getValue().getTags());
+    }
+
+    @Test
+    void apply_updateKeepingTags_doesNotWrite() {
+        noteCounter.noteUpdated(List.of(Tag.BUSINESS), List.of(Tag.BUSINESS));
+
+        verify(tagCountsRepository, never()).increment(any());
+    }
+
+    @Test
+    void apply_storedIncrementFails_keepsInMemoryCounts() {
+        when(tagCountsRepository.findById(TagCounts.ID)).thenReturn(Optional.of(TagCounts.builder().build()));
+        noteCounter.refresh();
+        doThrow(new DataAccessResourceFailureException("down")).when(tagCountsRepository).increment(any());
+
+        noteCounter.noteCreated(List.of(Tag.BUSINESS));
+
+        assertEquals(1L, noteCounter.count(null).getAsLong());
+        assertEquals(1L, noteCounter.count(Tag.BUSINESS).getAsLong());
+    }
+
+    @Test
+    void refresh_keepsChangesWhoseIncrementFailedUntilReconcile() {
+        when(tagCountsRepository.findById(TagCounts.ID)).thenReturn(Optional.of(TagCounts.builder().build()));
+        noteCounter.refresh();
+        doThrow(new DataAccessResourceFailureException("down")).when(tagCountsRepository).increment(any());
+        noteCounter.noteCreated(List.of(Tag.BUSINESS));
+
+        noteCounter.refresh();
+        assertEquals(1L, noteCounter.count(Tag.BUSINESS).getAsLong());
+
+        when(tagCountsRepository.countFromNotes())
+                .thenReturn(TagCounts.builder().total(1L).tags(Map.of("BUSINESS", 1L)).build());
+        noteCounter.reconcile();
+        assertEquals(1L, noteCounter.count(Tag.BUSINESS).getAsLong());
+    }
+
+    @Test
+    void refresh_addsRunningIncrementsAndSkipsReadsThatRacedOne() {
+        List<Runnable> increments = new ArrayList<>();
+        noteCounter = new NoteCounter(tagCountsRepository, increments::add);
+        when(tagCountsRepository.findById(TagCounts.ID)).thenReturn(Optional.of(TagCounts.builder().total(2L).build()));
+        noteCounter.refresh();
+        noteCounter.noteCreated(List.of(Tag.BUSINESS));
+
+        // the increment has not reached the stored document yet
+        noteCounter.refresh();
+        assertEquals(3L, noteCounter.count(null).getAsLong());
+        assertEquals(1L, noteCounter.count(Tag.BUSINESS).getAsLong());
+
+        // the increment lands while the document is read
+        when(tagCountsRepository.findById(TagCounts.ID)).thenAnswer(invocation -> {
+            increments.remove(0).run();
+            return Optional.of(TagCounts.builder().total(3L).tags(Map.of("BUSINESS", 1L)).build());
+        });
+        noteCounter.refresh();
+        assertEquals(3L, noteCounter.count(null).getAsLong());
+
+        noteCounter.refresh();
+        assertEquals(3L, noteCounter.count(null).getAsLong());
+        assertEquals(1L, noteCounter.count(Tag.BUSINESS).getAsLong());
+    }
+}
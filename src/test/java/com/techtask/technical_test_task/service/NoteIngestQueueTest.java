@@ -0,0 +1,121 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.dto.BulkItemResult;
+import com.techtask.technical_test_task.dto.BulkItemStatus;
+import com.techtask.technical_test_task.dto.BulkResult;
+import com.techtask.technical_test_task.model.Note;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NoteIngestQueueTest {
+
+    @Mock
+    private NoteService noteService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NoteIngestQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue.isRunning()) {
+            queue.stop();
+        }
+    }
+
+    private NoteIngestQueue queue(int capacity, int batchSize, Duration flushInterval) {
+        queue = new NoteIngestQueue(noteService, meterRegistry, capacity, batchSize, flushInterval, Duration.ofMillis(10), 2);
+        return queue;
+    }
+
+    private static Note note(String title) {
+        return Note.builder().id("client-id").title(title).text("text").version(7L).build();
+    }
+
+    private static BulkResult created(List<Note> notes) {
+        return new BulkResult(notes.stream()
+                .map(note -> new BulkItemResult(0, note.getId(), BulkItemStatus.CREATED, null))
+                .toList());
+    }
+
+    @Test
+    void submit_assignsIdCreateDateAndVersion() {
+        queue(10, 10, Duration.ofMillis(10)).start();
+        Note note = note("First");
+
+        String id = queue.submit(note);
+
+        assertNotEquals("client-id", id);
+        assertEquals(id, note.getId());
+        assertNotNull(note.getCreateDate());
+        assertEquals(0L, note.getVersion());
+    }
+
+    @Test
+    void stop_drainsQueuedNotesInBatches() {
+        List<List<String>> batches = new ArrayList<>();
+        when(noteService.insertAccepted(anyList())).thenAnswer(invocation -> {
+            List<Note> notes = invocation.getArgument(0);
+            batches.add(notes.stream().map(Note::getTitle).toList());
+            return created(notes);
+        });
+        queue(10, 2, Duration.ofSeconds(1)).start();
+
+        for (int i = 1; i <= 5; i++) {
+            queue.submit(note("Note " + i));
+        }
+        queue.stop();
+
+        assertEquals(List.of("Note 1", "Note 2", "Note 3", "Note 4", "Note 5"), batches.stream().flatMap(List::stream).toList());
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2));
+        assertEquals(0.0, meterRegistry.get("notes.ingest.queue.size").gauge().value());
+    }
+
+    @Test
+    void submit_fullQueue_rejectsWithTransientFailure() throws InterruptedException {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(noteService.insertAccepted(anyList())).thenAnswer(invocation -> {
+            writing.countDown();
+            release.await();
+            return created(invocation.getArgument(0));
+        });
+        queue(1, 1, Duration.ofMillis(1)).start();
+
+        queue.submit(note("Being written"));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+        queue.submit(note("Queued"));
+
+        assertThrows(TransientDataAccessResourceException.class, () -> queue.submit(note("Rejected")));
+        assertEquals(1.0, meterRegistry.get("notes.ingest.rejected").counter().count());
+        release.countDown();
+    }
+
+    @Test
+    void write_failingBatch_isRetriedThenCountedAsFailed() {
+        when(noteService.insertAccepted(anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        queue(10, 10, Duration.ofMillis(1)).start();
+
+        queue.submit(note("Lost"));
+        queue.stop();
+
+        verify(noteService, times(2)).insertAccepted(anyList());
+        assertEquals(1.0, meterRegistry.get("notes.ingest.failed").counter().count());
+    }
+}
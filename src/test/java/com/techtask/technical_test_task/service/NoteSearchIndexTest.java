@@ -0,0 +1,124 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.exception.InvalidNoteRequestException;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.repository.NoteRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class NoteSearchIndexTest {
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    private NoteSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        searchIndex = new NoteSearchIndex(noteRepository, 2);
+    }
+
+    private static Note note(String id, String text, Tag... tags) {
+        return Note.builder().id(id).title(id).text(text).tags(List.of(tags)).build();
+    }
+
+    @Test
+    void search_andBindsTighterThanOr() {
+        searchIndex.index(note("1", "Budget review tomorrow"));
+        searchIndex.index(note("2", "budget only"));
+        searchIndex.index(note("3", "Deadline is near"));
+
+        assertEquals(List.of("1"), searchIndex.search("budget review", null));
+        assertEquals(List.of("1"), searchIndex.search("budget AND review", null));
+        assertEquals(List.of("3", "1"), searchIndex.search("budget review OR deadline", null));
+        assertEquals(List.of(), searchIndex.search("budget unknown", null));
+    }
+
+    @Test
+    void search_usesStatsTokenization() {
+        searchIndex.index(note("1", "One-two, THREE!"));
+
+        assertEquals(List.of("1"), searchIndex.search("onetwo", null));
+        assertEquals(List.of("1"), searchIndex.search("Three 42", null));
+    }
+
+    @Test
+    void search_filtersByTag() {
+        searchIndex.index(note("1", "budget", Tag.BUSINESS));
+        searchIndex.index(note("2", "budget", Tag.PERSONAL));
+
+        assertEquals(List.of("2"), searchIndex.search("budget", Tag.PERSONAL));
+    }
+
+    @Test
+    void search_noSearchableWord_throwsIllegalArgument() {
+        assertThrows(InvalidNoteRequestException.class, () -> searchIndex.search("OR 42 AND", null));
+    }
+
+    @Test
+    void index_replacesPreviousVersionAndRemoveDropsIt() {
+        searchIndex.index(note("1", "budget", Tag.BUSINESS));
+        searchIndex.index(note("1", "deadline", Tag.PERSONAL));
+
+        assertEquals(List.of(), searchIndex.search("budget", null));
+        assertEquals(List.of(), searchIndex.search("deadline", Tag.BUSINESS));
+        assertEquals(List.of("1"), searchIndex.search("deadline", Tag.PERSONAL));
+
+        searchIndex.remove("1");
+        assertEquals(List.of(), searchIndex.search("deadline", null));
+    }
+
+    @Test
+    void index_olderVersion_doesNotReplaceTheIndexedOne() {
+        Note newer = note("1", "deadline");
+        newer.setVersion(2L);
+        Note older = note("1", "budget");
+        older.setVersion(1L);
+
+        searchIndex.index(newer);
+        searchIndex.index(older);
+
+        assertEquals(List.of("1"), searchIndex.search("deadline", null));
+        assertEquals(List.of(), searchIndex.search("budget", null));
+    }
+
+    @Test
+    void index_compactsRetiredOrdinalsWithoutLosingMatches() {
+        searchIndex.index(note("keep", "budget review", Tag.IMPORTANT));
+        for (int i = 0; i < 3000; i++) {
+            searchIndex.index(note("churn", i % 2 == 0 ? "budget draft" : "review draft", Tag.BUSINESS));
+        }
+        searchIndex.index(note("late", "budget review"));
+
+        assertEquals(List.of("late", "keep"), searchIndex.search("budget review", null));
+        assertEquals(List.of("keep"), searchIndex.search("budget", Tag.IMPORTANT));
+        assertEquals(List.of("churn"), searchIndex.search("draft", Tag.BUSINESS));
+    }
+
+    @Test
+    void rebuild_skipsNotesWrittenOrDeletedSinceStartup() {
+        when(noteRepository.streamAllBy()).thenAnswer(invocation -> {
+            // writes that land while the collection is streamed
+            searchIndex.index(note("2", "updated text"));
+            searchIndex.remove("3");
+            return Stream.of(note("1", "stored text"), note("2", "stale text"), note("3", "deleted text"));
+        });
+
+        int indexed = searchIndex.rebuild();
+
+        assertEquals(1, indexed);
+        assertEquals(List.of("1", "2"), searchIndex.search("text", null));
+        assertEquals(List.of(), searchIndex.search("stale OR deleted", null));
+    }
+}
@@ -1,21 +1,42 @@
 package com.techtask.technical_test_task.service;
 
+import com.techtask.technical_test_task.dto.BulkItemStatus;
+import com.techtask.technical_test_task.dto.BulkResult;
+import com.techtask.technical_test_task.dto.CursorPage;
 import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.dto.SlicePage;
+import com.techtask.technical_test_task.dto.TagFacets;
+import com.techtask.technical_test_task.exception.InvalidNoteRequestException;
 import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.NoteStats;
 import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.model.TagCounts;
+import com.techtask.technical_test_task.model.TagMatch;
 import com.techtask.technical_test_task.repository.NoteRepository;
+import com.techtask.technical_test_task.repository.NoteStatsRepository;
+import com.techtask.technical_test_task.repository.TagCountsRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.*;
+import org.springframework.util.unit.DataSize;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,8 +47,17 @@ public class NoteServiceTest {
     @Mock
     private NoteRepository noteRepository;
 
-    @InjectMocks
+    @Mock
+    private NoteStatsRepository noteStatsRepository;
+
+    @Mock
+    private TagCountsRepository tagCountsRepository;
+
     private NoteService noteService;
+    private NoteCounter noteCounter;
+    private NoteSearchIndex searchIndex;
+    private CorpusWordStats corpusWordStats;
+    private SimpleMeterRegistry meterRegistry;
 
     private Note mockNote;
     private Note mockUpdatedNote;
@@ -35,6 +65,15 @@ public class NoteServiceTest {
 
     @BeforeEach
     void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        NoteCache noteCache = new NoteCache(noteRepository, meterRegistry, 100, Duration.ofMinutes(1),
+                DataSize.ofKilobytes(64), DataSize.ofBytes(100));
+        noteCounter = new NoteCounter(tagCountsRepository, Runnable::run);
+        searchIndex = new NoteSearchIndex(noteRepository, 500);
+        corpusWordStats = new CorpusWordStats(noteRepository, 10, 2, 500);
+        noteService = new NoteService(noteRepository, noteStatsRepository, noteCache, noteCounter, searchIndex, corpusWordStats,
+                Validation.buildDefaultValidatorFactory().getValidator(), meterRegistry, 500, 1000);
+
         mockNote = Note.builder()
                 .id(NOTE_ID)
                 .title("Initial Title")
@@ -70,30 +109,188 @@ public class NoteServiceTest {
     }
 
     @Test
-    void getAllNotes_returnsAllNotes() {
-        List<Note> expectedNotes = List.of(mockNote, Note.builder().id("2").title("Second").build());
-        when(noteRepository.findAll()).thenReturn(expectedNotes);
+    void createNote_materializesWordStats() {
+        ArgumentCaptor<NoteStats> statsCaptor = ArgumentCaptor.forClass(NoteStats.class);
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        noteService.createNote(mockNote);
+
+        verify(noteStatsRepository, times(1)).saveIfNewer(statsCaptor.capture());
+        assertEquals(NOTE_ID, statsCaptor.getValue().getId());
+        assertEquals(1L, statsCaptor.getValue().getWordCounts().get("original"));
+    }
+
+    @Test
+    void createNote_recordsTextSizeInBytes() {
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        mockNote.setText("café");
 
-        List<Note> actualNotes = noteService.getAllNotes();
+        noteService.createNote(mockNote);
 
-        assertEquals(2, actualNotes.size());
-        assertEquals(expectedNotes, actualNotes);
-        verify(noteRepository, times(1)).findAll();
+        DistributionSummary textSize = meterRegistry.get("notes.text.size").summary();
+        assertEquals(1, textSize.count());
+        assertEquals(5.0, textSize.totalAmount());
     }
 
     @Test
-    void getNotes_withNullTag_callsFindAllAndMapsToDTO() {
+    void createNotes_insertsValidNotesInOneBulkAndReportsInvalidOnes() {
+        Note invalid = Note.builder().title("").text("text").build();
+        Note valid = Note.builder().title("Bulk").text("bulk text").tags(List.of(Tag.BUSINESS)).build();
+        when(noteRepository.insertUnordered(anyList())).thenReturn(Map.of());
+
+        BulkResult result = noteService.createNotes(Arrays.asList(invalid, valid, null));
+
+        assertEquals(1, result.getSucceeded());
+        assertEquals(2, result.getFailed());
+        assertEquals(BulkItemStatus.INVALID, result.getItems().get(0).getStatus());
+        assertEquals("Title cannot be empty", result.getItems().get(0).getErrors().get("title"));
+        assertEquals(BulkItemStatus.CREATED, result.getItems().get(1).getStatus());
+        assertNotNull(result.getItems().get(1).getId());
+        assertNotNull(valid.getCreateDate());
+        assertEquals(BulkItemStatus.INVALID, result.getItems().get(2).getStatus());
+        verify(noteRepository, times(1)).insertUnordered(List.of(valid));
+        verify(noteRepository, never()).save(any(Note.class));
+    }
+
+    @Test
+    void createNotes_reportsItemsRejectedByTheDatabase() {
+        Note first = Note.builder().id("dup").title("First").text("text").build();
+        Note second = Note.builder().title("Second").text("text").build();
+        when(noteRepository.insertUnordered(anyList())).thenReturn(Map.of(0, "E11000 duplicate key"));
+
+        BulkResult result = noteService.createNotes(List.of(first, second));
+
+        assertEquals(BulkItemStatus.FAILED, result.getItems().get(0).getStatus());
+        assertEquals("E11000 duplicate key", result.getItems().get(0).getErrors().get("error"));
+        assertEquals(BulkItemStatus.CREATED, result.getItems().get(1).getStatus());
+    }
+
+    @Test
+    void insertAccepted_noteStoredByAnEarlierAttempt_isReportedCreated() {
+        Note stored = Note.builder().id("stored").title("Stored").text("text").version(0L).build();
+        Note fresh = Note.builder().id("fresh").title("Fresh").text("text").version(0L).build();
+        when(noteRepository.insertUnordered(anyList())).thenReturn(Map.of(0, "E11000 duplicate key"));
+
+        BulkResult result = noteService.insertAccepted(List.of(stored, fresh));
+
+        assertEquals(2, result.getSucceeded());
+        assertEquals(BulkItemStatus.CREATED, result.getItems().get(0).getStatus());
+        assertEquals(BulkItemStatus.CREATED, result.getItems().get(1).getStatus());
+        verify(noteStatsRepository, times(1)).saveAllIfNewer(argThat(stats -> stats.size() == 2));
+    }
+
+    @Test
+    void insertAccepted_statsNotSaved_nothingIsCounted() {
+        Note note = Note.builder().id("id").title("Title").text("text").version(0L).build();
+        when(noteRepository.insertUnordered(anyList())).thenReturn(Map.of());
+        doThrow(new DataAccessResourceFailureException("down")).when(noteStatsRepository).saveAllIfNewer(anyList());
+
+        assertThrows(DataAccessResourceFailureException.class, () -> noteService.insertAccepted(List.of(note)));
+
+        verify(tagCountsRepository, never()).increment(any());
+    }
+
+    @Test
+    void createNotes_incrementsStoredCountsOnceForTheBatch() {
+        Note first = Note.builder().title("First").text("text").tags(List.of(Tag.BUSINESS)).build();
+        Note second = Note.builder().title("Second").text("text").build();
+        when(noteRepository.insertUnordered(anyList())).thenReturn(Map.of());
+
+        noteService.createNotes(List.of(first, second));
+
+        ArgumentCaptor<TagCounts> delta = ArgumentCaptor.forClass(TagCounts.class);
+        verify(tagCountsRepository, times(1)).increment(delta.capture());
+        assertEquals(2L, delta.getValue().getTotal());
+        assertEquals(1L, delta.getValue().getUntagged());
+        assertEquals(Map.of("BUSINESS", 1L), delta.getValue().getTags());
+    }
+
+    @Test
+    void updateNotes_unknownIdsAreNotFoundAndTheRestUpdatedInOneBulk() {
+        mockUpdatedNote.setId(NOTE_ID);
+        Note unknown = Note.builder().id("unknown").title("T").text("text").build();
+        Note withoutId = Note.builder().title("T").text("text").build();
+        when(noteRepository.findTagsByIds(List.of(NOTE_ID, "unknown"))).thenReturn(List.of(mockNote));
+        when(noteRepository.updateUnordered(anyList())).thenReturn(Map.of());
+
+        BulkResult result = noteService.updateNotes(List.of(mockUpdatedNote, unknown, withoutId));
+
+        assertEquals(BulkItemStatus.UPDATED, result.getItems().get(0).getStatus());
+        assertEquals(BulkItemStatus.NOT_FOUND, result.getItems().get(1).getStatus());
+        assertEquals(BulkItemStatus.INVALID, result.getItems().get(2).getStatus());
+        verify(noteRepository, times(1)).updateUnordered(List.of(mockUpdatedNote));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updateNotes_storesStatsOfTheVersionReadBackAfterTheBulk() {
+        mockUpdatedNote.setId(NOTE_ID);
+        Note stored = Note.builder().id(NOTE_ID).text(mockUpdatedNote.getText()).version(4L).build();
+        when(noteRepository.findTagsByIds(List.of(NOTE_ID))).thenReturn(List.of(mockNote));
+        when(noteRepository.updateUnordered(anyList())).thenReturn(Map.of());
+        when(noteRepository.findAllById(Set.of(NOTE_ID))).thenReturn(List.of(stored));
+        ArgumentCaptor<List<NoteStats>> statsCaptor = ArgumentCaptor.forClass(List.class);
+
+        noteService.updateNotes(List.of(mockUpdatedNote));
+
+        verify(noteStatsRepository, times(1)).saveAllIfNewer(statsCaptor.capture());
+        assertEquals(4L, statsCaptor.getValue().get(0).getNoteVersion());
+        assertEquals(1L, statsCaptor.getValue().get(0).getWordCounts().get("updated"));
+    }
+
+    @Test
+    void deleteNotes_moreIdsThanBulkMaxSize_isRejected() {
+        NoteService limited = new NoteService(noteRepository, noteStatsRepository, null, noteCounter, searchIndex, corpusWordStats,
+                Validation.buildDefaultValidatorFactory().getValidator(), meterRegistry, 500, 2);
+
+        assertThrows(InvalidNoteRequestException.class, () -> limited.deleteNotes(List.of("a", "b", "c")));
+        verify(noteRepository, never()).deleteUnordered(anyList());
+    }
+
+    @Test
+    void deleteNotes_deletesExistingNotesInOneBulk() {
+        when(noteRepository.findTagsByIds(List.of(NOTE_ID, "unknown", NOTE_ID))).thenReturn(List.of(mockNote));
+        when(noteRepository.deleteUnordered(anyList())).thenReturn(Map.of());
+
+        BulkResult result = noteService.deleteNotes(Arrays.asList(NOTE_ID, "unknown", "", NOTE_ID));
+
+        assertEquals(BulkItemStatus.DELETED, result.getItems().get(0).getStatus());
+        assertEquals(BulkItemStatus.NOT_FOUND, result.getItems().get(1).getStatus());
+        assertEquals(BulkItemStatus.INVALID, result.getItems().get(2).getStatus());
+        assertEquals(BulkItemStatus.NOT_FOUND, result.getItems().get(3).getStatus());
+        verify(noteRepository, times(1)).deleteUnordered(List.of(NOTE_ID));
+        verify(noteStatsRepository, times(1)).deleteAllById(List.of(NOTE_ID));
+    }
+
+    @Test
+    void exportNotes_streamsFromRepositoryCursor() {
+        LocalDateTime from = LocalDateTime.of(2023, 1, 1, 0, 0);
+        when(noteRepository.streamNotes(Tag.PERSONAL, from, null, 500)).thenReturn(Stream.of(mockNote));
+
+        List<Note> exported;
+        try (Stream<Note> notes = noteService.exportNotes(Tag.PERSONAL, from, null)) {
+            exported = notes.collect(Collectors.toList());
+        }
+
+        assertEquals(List.of(mockNote), exported);
+        verify(noteRepository, never()).findAll();
+    }
+
+    @Test
+    void getNotes_withNullTag_callsProjectedFindSummaries() {
         int page = 1;
         int size = 5;
         Pageable expectedPageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createDate"));
-        Page<Note> notesPage = new PageImpl<>(List.of(mockNote), expectedPageable, 1);
+        NoteDTO dto = new NoteDTO(mockNote.getId(), mockNote.getTitle(), mockNote.getCreateDate());
+        Page<NoteDTO> notesPage = new PageImpl<>(List.of(dto), expectedPageable, 1);
 
-        when(noteRepository.findAll(eq(expectedPageable))).thenReturn(notesPage);
+        when(noteRepository.findSummariesBy(eq(expectedPageable))).thenReturn(notesPage);
 
         Page<NoteDTO> resultPage = noteService.getNotes(null, page, size);
 
-        verify(noteRepository, times(1)).findAll(eq(expectedPageable));
-        verify(noteRepository, never()).findByTags(any(Tag.class), any(Pageable.class));
+        verify(noteRepository, times(1)).findSummariesBy(eq(expectedPageable));
+        verify(noteRepository, never()).findSummariesByTags(any(Tag.class), any(Pageable.class));
+        verify(noteRepository, never()).findAll(any(Pageable.class));
 
         assertEquals(1, resultPage.getContent().size());
         NoteDTO resultDto = resultPage.getContent().get(0);
@@ -103,19 +300,194 @@ public class NoteServiceTest {
     }
 
     @Test
-    void getNotes_withNonNullTag_callsFindByTags() {
+    void getNotes_withNonNullTag_callsProjectedFindSummariesByTags() {
         Tag tag = Tag.BUSINESS;
         int page = 0;
         int size = 10;
         Pageable expectedPageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createDate"));
-        Page<Note> notesPage = new PageImpl<>(List.of(mockNote), expectedPageable, 1);
+        Page<NoteDTO> notesPage = new PageImpl<>(List.of(), expectedPageable, 0);
 
-        when(noteRepository.findByTags(eq(tag), eq(expectedPageable))).thenReturn(notesPage);
+        when(noteRepository.findSummariesByTags(eq(tag), eq(expectedPageable))).thenReturn(notesPage);
 
         noteService.getNotes(tag, page, size);
 
-        verify(noteRepository, times(1)).findByTags(eq(tag), eq(expectedPageable));
-        verify(noteRepository, never()).findAll(any(Pageable.class));
+        verify(noteRepository, times(1)).findSummariesByTags(eq(tag), eq(expectedPageable));
+        verify(noteRepository, never()).findSummariesBy(any(Pageable.class));
+    }
+
+    @Test
+    void getNotes_countsLoaded_usesSliceQueryAndCachedTotal() {
+        storedCounts(TagCounts.builder().total(40L).build());
+        noteCounter.refresh();
+        Pageable expectedPageable = PageRequest.of(0, 2, Sort.by(Sort.Direction.DESC, "createDate"));
+        List<NoteDTO> rows = List.of(new NoteDTO("1", "First", null), new NoteDTO("2", "Second", null));
+        when(noteRepository.findSliceBy(eq(expectedPageable))).thenReturn(new SliceImpl<>(rows, expectedPageable, true));
+
+        Page<NoteDTO> result = noteService.getNotes(null, 0, 2);
+
+        assertEquals(rows, result.getContent());
+        assertEquals(40L, result.getTotalElements());
+        verify(noteRepository, never()).findSummariesBy(any(Pageable.class));
+    }
+
+    @Test
+    void getNotes_countsLoaded_lastPageTotalComesFromSlice() {
+        storedCounts(TagCounts.builder().total(20L).tags(Map.of("BUSINESS", 9L)).build());
+        noteCounter.refresh();
+        Pageable expectedPageable = PageRequest.of(1, 5, Sort.by(Sort.Direction.DESC, "createDate"));
+        List<NoteDTO> rows = List.of(new NoteDTO("6", "Sixth", null));
+        when(noteRepository.findSliceByTags(eq(Tag.BUSINESS), eq(expectedPageable)))
+                .thenReturn(new SliceImpl<>(rows, expectedPageable, false));
+
+        Page<NoteDTO> result = noteService.getNotes(Tag.BUSINESS, 1, 5);
+
+        assertEquals(6L, result.getTotalElements());
+        verify(noteRepository, never()).findSummariesByTags(any(Tag.class), any(Pageable.class));
+    }
+
+    @Test
+    void createAndDeleteNote_adjustCachedTotals() {
+        storedCounts(TagCounts.builder().build());
+        noteCounter.refresh();
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(noteRepository.findAndRemoveById(NOTE_ID)).thenReturn(Optional.of(Note.builder().id(NOTE_ID).tags(List.of(Tag.PERSONAL)).build()));
+
+        noteService.createNote(mockNote);
+        assertEquals(1L, noteCounter.count(Tag.PERSONAL).getAsLong());
+
+        noteService.deleteNote(NOTE_ID);
+        assertEquals(0L, noteCounter.count(Tag.PERSONAL).getAsLong());
+        assertEquals(0L, noteCounter.count(null).getAsLong());
+    }
+
+    @Test
+    void getFacets_countsNotLoaded_loadsStoredCounts() {
+        storedCounts(TagCounts.builder().total(5L).untagged(2L).tags(Map.of("PERSONAL", 3L, "BUSINESS", 1L)).build());
+
+        TagFacets facets = noteService.getFacets();
+
+        assertEquals(5L, facets.getTotal());
+        assertEquals(2L, facets.getUntagged());
+        assertEquals(3L, facets.getTags().get(Tag.PERSONAL));
+        assertEquals(1L, facets.getTags().get(Tag.BUSINESS));
+        assertEquals(0L, facets.getTags().get(Tag.IMPORTANT));
+        verify(noteRepository, never()).count();
+    }
+
+    @Test
+    void searchNotes_readsOnlyTheRequestedPageInIndexOrder() {
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        for (String id : List.of("a", "b", "c")) {
+            noteService.createNote(Note.builder().id(id).title(id).text("budget review").build());
+        }
+        when(noteRepository.findSummariesByIdIn(List.of("c", "b")))
+                .thenReturn(List.of(new NoteDTO("b", "b", null), new NoteDTO("c", "c", null)));
+
+        Page<NoteDTO> result = noteService.searchNotes("budget", null, 0, 2);
+
+        assertEquals(List.of("c", "b"), result.getContent().stream().map(NoteDTO::getId).toList());
+        assertEquals(3, result.getTotalElements());
+    }
+
+    @Test
+    void searchNotes_deletedNoteIsNoLongerFound() {
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(noteRepository.findAndRemoveById(NOTE_ID)).thenReturn(Optional.of(mockNote));
+        noteService.createNote(mockNote);
+
+        noteService.deleteNote(NOTE_ID);
+
+        assertEquals(0, noteService.searchNotes("original", null, 0, 5).getTotalElements());
+        verify(noteRepository, never()).findSummariesByIdIn(any());
+    }
+
+    @Test
+    void updateAndDeleteNote_keepCorpusWordCountsInStep() {
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        noteService.createNote(mockNote);
+        Note stored = Note.builder().id(NOTE_ID).text(mockNote.getText()).tags(mockNote.getTags()).build();
+        when(noteRepository.findAndUpdate(NOTE_ID, null, mockUpdatedNote)).thenReturn(Optional.of(stored));
+
+        noteService.updateNote(NOTE_ID, mockUpdatedNote);
+
+        assertEquals(List.of(), noteService.getTopWords(Tag.PERSONAL, 10));
+        assertTrue(noteService.getTopWords(null, 10).stream().noneMatch(word -> word.getWord().equals("original")));
+        assertTrue(noteService.getTopWords(Tag.BUSINESS, 10).stream().anyMatch(word -> word.getWord().equals("updated")));
+
+        when(noteRepository.findAndRemoveById(NOTE_ID)).thenReturn(Optional.of(Note.builder()
+                .id(NOTE_ID).text(mockUpdatedNote.getText()).tags(mockUpdatedNote.getTags()).build()));
+        noteService.deleteNote(NOTE_ID);
+
+        assertEquals(List.of(), noteService.getTopWords(null, 10));
+    }
+
+    @Test
+    void getTopWords_kAboveSketchCapacity_throwsIllegalArgument() {
+        assertThrows(InvalidNoteRequestException.class, () -> noteService.getTopWords(null, 11));
+    }
+
+    @Test
+    void getNotes_multipleTags_queriesMatchingTagMasks() {
+        Pageable expectedPageable = PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "createDate"));
+        int requested = Tag.BUSINESS.bit() | Tag.IMPORTANT.bit();
+        when(noteRepository.findSummariesByTagMaskIn(List.of(requested, requested | Tag.PERSONAL.bit()), expectedPageable))
+                .thenReturn(Page.empty(expectedPageable));
+
+        noteService.getNotes(EnumSet.of(Tag.BUSINESS, Tag.IMPORTANT), TagMatch.ALL, 0, 5);
+
+        verify(noteRepository, never()).findSummariesByTags(any(Tag.class), any(Pageable.class));
+    }
+
+    @Test
+    void getNotes_emptyTags_throwsIllegalArgument() {
+        assertThrows(InvalidNoteRequestException.class, () -> noteService.getNotes(Set.of(), TagMatch.ANY, 0, 5));
+    }
+
+    @Test
+    void getNotesSlice_returnsHasNextWithoutCounting() {
+        Pageable expectedPageable = PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, "createDate"));
+        List<NoteDTO> rows = List.of(new NoteDTO("1", "First", null));
+        when(noteRepository.findSliceBy(eq(expectedPageable))).thenReturn(new SliceImpl<>(rows, expectedPageable, true));
+
+        SlicePage<NoteDTO> result = noteService.getNotesSlice(null, 0, 1);
+
+        assertEquals(rows, result.getContent());
+        assertTrue(result.isHasNext());
+        verify(noteRepository, never()).count();
+    }
+
+    @Test
+    void getNotesByCursor_firstPage_returnsNextTokenOfLastNote() {
+        LocalDateTime date = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<NoteDTO> rows = List.of(
+                new NoteDTO("3", "Third", date.plusDays(2)),
+                new NoteDTO("2", "Second", date.plusDays(1)),
+                new NoteDTO("1", "First", date));
+        when(noteRepository.findSummariesAfter(Tag.BUSINESS, null, null, 3)).thenReturn(rows);
+
+        CursorPage<NoteDTO> result = noteService.getNotes(Tag.BUSINESS, "", 2);
+
+        assertEquals(rows.subList(0, 2), result.getContent());
+        assertEquals(new NoteCursor(date.plusDays(1), "2"), NoteCursor.decode(result.getNext()));
+    }
+
+    @Test
+    void getNotesByCursor_lastPage_hasNoNextToken() {
+        LocalDateTime date = LocalDateTime.of(2024, 5, 1, 12, 0);
+        String cursor = new NoteCursor(date, "2").encode();
+        List<NoteDTO> rows = List.of(new NoteDTO("1", "First", date));
+        when(noteRepository.findSummariesAfter(null, date, "2", 3)).thenReturn(rows);
+
+        CursorPage<NoteDTO> result = noteService.getNotes(null, cursor, 2);
+
+        assertEquals(rows, result.getContent());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    void getNotesByCursor_malformedCursor_isRejected() {
+        assertThrows(InvalidNoteRequestException.class, () -> noteService.getNotes(null, "not a cursor", 5));
+        verify(noteRepository, never()).findSummariesAfter(any(), any(), any(), anyInt());
     }
 
     @Test
@@ -127,6 +499,99 @@ public class NoteServiceTest {
         assertEquals(mockNote, result);
     }
 
+    @Test
+    void getNoteById_repeatedCalls_areServedFromCache() {
+        when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(mockNote));
+
+        noteService.getNoteById(NOTE_ID);
+        Note result = noteService.getNoteById(NOTE_ID);
+
+        assertEquals(mockNote, result);
+        verify(noteRepository, times(1)).findById(NOTE_ID);
+    }
+
+    @Test
+    void getNoteById_afterCreate_doesNotQueryRepository() {
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        noteService.createNote(mockNote);
+        Note result = noteService.getNoteById(NOTE_ID);
+
+        assertEquals(mockNote, result);
+        verify(noteRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void getNoteById_afterDelete_queriesRepositoryAgain() {
+        when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(mockNote), Optional.empty());
+        when(noteRepository.findAndRemoveById(NOTE_ID)).thenReturn(Optional.of(Note.builder().id(NOTE_ID).tags(List.of(Tag.PERSONAL)).build()));
+
+        noteService.getNoteById(NOTE_ID);
+        noteService.deleteNote(NOTE_ID);
+
+        assertThrows(NoSuchElementException.class, () -> noteService.getNoteById(NOTE_ID));
+        verify(noteRepository, times(2)).findById(NOTE_ID);
+    }
+
+    @Test
+    void getEncodedNote_reusesBytesUntilNoteIsUpdated() {
+        mockNote.setVersion(3L);
+        when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(mockNote));
+        when(noteRepository.findAndUpdate(NOTE_ID, null, mockUpdatedNote)).thenReturn(Optional.of(mockNote));
+        List<Long> encodedVersions = new ArrayList<>();
+        Function<Note, byte[]> encoder = note -> {
+            encodedVersions.add(note.getVersion());
+            return note.getText().repeat(5).getBytes(StandardCharsets.UTF_8);
+        };
+
+        NoteCache.EncodedNote first = noteService.getEncodedNote(NOTE_ID, encoder);
+        NoteCache.EncodedNote second = noteService.getEncodedNote(NOTE_ID, encoder);
+        noteService.updateNote(NOTE_ID, mockUpdatedNote);
+        NoteCache.EncodedNote updated = noteService.getEncodedNote(NOTE_ID, encoder);
+
+        assertSame(first, second);
+        assertNotNull(first.gzip(), "bodies above the compression size are also kept gzipped");
+        assertEquals(List.of(3L, 4L), encodedVersions);
+        assertEquals(4L, updated.version());
+    }
+
+    @Test
+    void getNoteVersion_notCached_readsVersionFieldOnly() {
+        when(noteRepository.findByIdWithFields(NOTE_ID, List.of("version")))
+                .thenReturn(Optional.of(Note.builder().id(NOTE_ID).version(3L).build()));
+
+        assertEquals(Optional.of(3L), noteService.getNoteVersion(NOTE_ID));
+        verify(noteRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void getNoteFields_notCached_pushesProjectionToRepository() {
+        Note projected = Note.builder().id(NOTE_ID).title("Initial Title").build();
+        when(noteRepository.findByIdWithFields(NOTE_ID, Set.of("title"))).thenReturn(Optional.of(projected));
+
+        Map<String, Object> result = noteService.getNoteFields(NOTE_ID, Set.of("title"));
+
+        assertEquals(Map.of("title", "Initial Title"), result);
+        verify(noteRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void getNoteFields_cached_doesNotQueryRepository() {
+        when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(mockNote));
+        noteService.getNoteById(NOTE_ID);
+
+        Map<String, Object> result = noteService.getNoteFields(NOTE_ID, Set.of("tags", "id"));
+
+        assertEquals(List.of("id", "tags"), new ArrayList<>(result.keySet()));
+        assertEquals(mockNote.getTags(), result.get("tags"));
+        verify(noteRepository, never()).findByIdWithFields(anyString(), any());
+    }
+
+    @Test
+    void getNoteFields_unknownField_throwsIllegalArgument() {
+        assertThrows(InvalidNoteRequestException.class, () -> noteService.getNoteFields(NOTE_ID, Set.of("title", "body")));
+    }
+
     @Test
     void getNoteById_noteNotFound_throwsException() {
         when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.empty());
@@ -135,9 +600,9 @@ public class NoteServiceTest {
     }
 
     @Test
-    void updateNote_noteFound_updatesFieldsAndSaves() {
-        when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(mockNote));
-        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    void updateNote_noteFound_updatesInOneRoundTrip() {
+        mockNote.setVersion(3L);
+        when(noteRepository.findAndUpdate(NOTE_ID, null, mockUpdatedNote)).thenReturn(Optional.of(mockNote));
 
         Optional<Note> resultOpt = noteService.updateNote(NOTE_ID, mockUpdatedNote);
 
@@ -148,40 +613,73 @@ public class NoteServiceTest {
         assertEquals(mockUpdatedNote.getText(), result.getText());
         assertEquals(mockUpdatedNote.getTags(), result.getTags());
         assertEquals(NOTE_ID, result.getId());
-        assertNotNull(result.getCreateDate());
+        assertEquals(mockNote.getCreateDate(), result.getCreateDate());
+        assertEquals(4L, result.getVersion());
 
-        verify(noteRepository, times(1)).save(mockNote);
+        verify(noteRepository, never()).findById(anyString());
+        verify(noteRepository, never()).save(any(Note.class));
+        verify(noteStatsRepository, times(1)).saveIfNewer(any(NoteStats.class));
+    }
+
+    @Test
+    void updateNote_adjustsCachedTotalsWithPreviousTags() {
+        storedCounts(TagCounts.builder().build());
+        noteCounter.refresh();
+        noteCounter.noteCreated(mockNote.getTags());
+        when(noteRepository.findAndUpdate(NOTE_ID, null, mockUpdatedNote)).thenReturn(Optional.of(mockNote));
+
+        noteService.updateNote(NOTE_ID, mockUpdatedNote);
+
+        assertEquals(0L, noteCounter.count(Tag.PERSONAL).getAsLong());
+        assertEquals(1L, noteCounter.count(Tag.BUSINESS).getAsLong());
     }
 
     @Test
     void updateNote_noteNotFound_throwsException() {
-        when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.empty());
+        when(noteRepository.findAndUpdate(NOTE_ID, null, mockUpdatedNote)).thenReturn(Optional.empty());
 
         assertThrows(NoSuchElementException.class, () -> noteService.updateNote(NOTE_ID, mockUpdatedNote));
-        verify(noteRepository, never()).save(any(Note.class));
+        verify(noteRepository, never()).existsById(anyString());
+        verify(noteStatsRepository, never()).saveIfNewer(any(NoteStats.class));
     }
 
     @Test
-    void deleteNote_noteExists_deletesAndReturnsTrue() {
+    void updateNote_staleVersion_throwsOptimisticLockingFailure() {
+        when(noteRepository.findAndUpdate(NOTE_ID, 2L, mockUpdatedNote)).thenReturn(Optional.empty());
         when(noteRepository.existsById(NOTE_ID)).thenReturn(true);
-        doNothing().when(noteRepository).deleteById(NOTE_ID);
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> noteService.updateNote(NOTE_ID, mockUpdatedNote, 2L));
+        verify(noteStatsRepository, never()).saveIfNewer(any(NoteStats.class));
+    }
+
+    @Test
+    void updateNote_expectedVersionOfMissingNote_throwsNotFound() {
+        when(noteRepository.findAndUpdate(NOTE_ID, 2L, mockUpdatedNote)).thenReturn(Optional.empty());
+        when(noteRepository.existsById(NOTE_ID)).thenReturn(false);
+
+        assertThrows(NoSuchElementException.class, () -> noteService.updateNote(NOTE_ID, mockUpdatedNote, 2L));
+    }
+
+    @Test
+    void deleteNote_noteExists_deletesAndReturnsTrue() {
+        when(noteRepository.findAndRemoveById(NOTE_ID)).thenReturn(Optional.of(Note.builder().id(NOTE_ID).tags(List.of(Tag.PERSONAL)).build()));
 
         boolean result = noteService.deleteNote(NOTE_ID);
 
         assertTrue(result);
-        verify(noteRepository, times(1)).existsById(NOTE_ID);
-        verify(noteRepository, times(1)).deleteById(NOTE_ID);
+        verify(noteRepository, never()).existsById(anyString());
+        verify(noteStatsRepository, times(1)).deleteById(NOTE_ID);
     }
 
     @Test
     void deleteNote_noteDoesNotExist_returnsFalseAndDoesNotDelete() {
-        when(noteRepository.existsById(NOTE_ID)).thenReturn(false);
+        when(noteRepository.findAndRemoveById(NOTE_ID)).thenReturn(Optional.empty());
 
         boolean result = noteService.deleteNote(NOTE_ID);
 
         assertFalse(result);
-        verify(noteRepository, times(1)).existsById(NOTE_ID);
-        verify(noteRepository, never()).deleteById(anyString());
+        verify(noteStatsRepository, never()).deleteById(anyString());
     }
 
     @Test
@@ -193,11 +691,49 @@ public class NoteServiceTest {
         assertTrue(result.isEmpty());
     }
 
+    @Test
+    void countStat_statsMaterialized_returnsStoredCountsWithoutLoadingNote() {
+        Map<String, Long> wordCounts = new LinkedHashMap<>(Map.of("word", 2L));
+        when(noteStatsRepository.findById(NOTE_ID))
+                .thenReturn(Optional.of(NoteStats.builder().id(NOTE_ID).wordCounts(wordCounts).build()));
+
+        Optional<Map<String, Long>> result = noteService.countStat(NOTE_ID);
+
+        assertEquals(Optional.of(wordCounts), result);
+        verify(noteRepository, never()).findById(anyString());
+    }
+
+    @Test
+    void countStat_statsMissing_computesAndStoresThem() {
+        when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(mockNote));
+        when(noteRepository.existsById(NOTE_ID)).thenReturn(true);
+
+        Optional<Map<String, Long>> result = noteService.countStat(NOTE_ID);
+
+        assertTrue(result.isPresent());
+        assertEquals(1L, result.get().get("content"));
+        verify(noteStatsRepository, times(1)).saveIfNewer(any(NoteStats.class));
+    }
+
+    @Test
+    void countStat_noteDeletedBeforeStatsWereWritten_removesThemAgain() {
+        when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(mockNote));
+        when(noteRepository.existsById(NOTE_ID)).thenReturn(false);
+
+        Optional<Map<String, Long>> result = noteService.countStat(NOTE_ID);
+
+        assertTrue(result.isEmpty());
+        InOrder inOrder = inOrder(noteStatsRepository);
+        inOrder.verify(noteStatsRepository).saveIfNewer(any(NoteStats.class));
+        inOrder.verify(noteStatsRepository).deleteById(NOTE_ID);
+    }
+
     @Test
     void countStat_calculatesWordFrequency_correctlyAndSortsByCount() {
         String text = "Hello world, this is a test. WORLD! TEST, hello? One-two three.";
         mockNote.setText(text);
         when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(mockNote));
+        when(noteRepository.existsById(NOTE_ID)).thenReturn(true);
 
         Optional<Map<String, Long>> resultOpt = noteService.countStat(NOTE_ID);
 
@@ -232,10 +768,15 @@ public class NoteServiceTest {
     void countStat_handlesEmptyText() {
         mockNote.setText("");
         when(noteRepository.findById(NOTE_ID)).thenReturn(Optional.of(mockNote));
+        when(noteRepository.existsById(NOTE_ID)).thenReturn(true);
 
         Optional<Map<String, Long>> resultOpt = noteService.countStat(NOTE_ID);
 
         assertTrue(resultOpt.isPresent());
         assertTrue(resultOpt.get().isEmpty(), "Word count map should be empty for empty text.");
     }
-}
\ No newline at end of file
+
+    private void storedCounts(TagCounts counts) {
+        when(tagCountsRepository.findById(TagCounts.ID)).thenReturn(Optional.of(counts));
+    }
+}
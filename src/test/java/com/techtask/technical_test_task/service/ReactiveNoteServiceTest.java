@@ -0,0 +1,254 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.dto.BulkItemStatus;
+import com.techtask.technical_test_task.dto.NoteDTO;
+import com.techtask.technical_test_task.model.Note;
+import com.techtask.technical_test_task.model.NoteStats;
+import com.techtask.technical_test_task.model.Tag;
+import com.techtask.technical_test_task.repository.ReactiveNoteRepository;
+import com.techtask.technical_test_task.repository.ReactiveNoteStatsRepository;
+import com.techtask.technical_test_task.repository.TagCountsRepository;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveNoteServiceTest {
+
+    @Mock
+    private ReactiveNoteRepository noteRepository;
+
+    @Mock
+    private ReactiveNoteStatsRepository noteStatsRepository;
+
+    @Mock
+    private TagCountsRepository tagCountsRepository;
+
+    private ReactiveNoteService noteService;
+
+    private Note mockNote;
+    private final String NOTE_ID = "note-id-1";
+
+    @BeforeEach
+    void setUp() {
+        noteService = new ReactiveNoteService(noteRepository, noteStatsRepository, new NoteCounter(tagCountsRepository, Runnable::run),
+                Validation.buildDefaultValidatorFactory().getValidator(), 500, 1000);
+
+        mockNote = Note.builder()
+                .id(NOTE_ID)
+                .title("Initial Title")
+                .text("note is just a note")
+                .createDate(LocalDateTime.of(2023, 1, 1, 10, 0))
+                .tags(List.of(Tag.PERSONAL))
+                .build();
+    }
+
+    @Test
+    void createNote_setsCreateDateAndSavesStats() {
+        Note newNote = Note.builder().title("New").text("note is just a note").build();
+        when(noteRepository.save(any(Note.class))).thenAnswer(invocation -> {
+            Note note = invocation.getArgument(0);
+            note.setId(NOTE_ID);
+            return Mono.just(note);
+        });
+        when(noteStatsRepository.saveIfNewer(any(NoteStats.class))).thenReturn(Mono.just(true));
+
+        StepVerifier.create(noteService.createNote(newNote))
+                .assertNext(created -> assertNotNull(created.getCreateDate()))
+                .verifyComplete();
+
+        verify(noteStatsRepository).saveIfNewer(argThat(stats ->
+                NOTE_ID.equals(stats.getId()) && stats.getWordCounts().get("note") == 2L));
+    }
+
+    @Test
+    void getNotes_withoutCounter_usesRepositoryCount() {
+        NoteDTO summary = new NoteDTO(NOTE_ID, mockNote.getTitle(), mockNote.getCreateDate());
+        when(noteRepository.findSummariesByTags(eq(Tag.PERSONAL), any(Pageable.class))).thenReturn(Flux.just(summary));
+        when(noteRepository.countByTags(Tag.PERSONAL)).thenReturn(Mono.just(1L));
+
+        StepVerifier.create(noteService.getNotes(Tag.PERSONAL, 0, 5))
+                .assertNext(page -> {
+                    assertEquals(List.of(summary), page.getContent());
+                    assertEquals(1L, page.getTotalElements());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getNoteById_notFound_signalsNoSuchElement() {
+        when(noteRepository.findById(NOTE_ID)).thenReturn(Mono.empty());
+
+        StepVerifier.create(noteService.getNoteById(NOTE_ID))
+                .expectError(NoSuchElementException.class)
+                .verify();
+    }
+
+    @Test
+    void deleteNote_notFound_returnsFalse() {
+        when(noteRepository.findAndRemoveById(NOTE_ID)).thenReturn(Mono.empty());
+
+        StepVerifier.create(noteService.deleteNote(NOTE_ID))
+                .expectNext(false)
+                .verifyComplete();
+
+        verify(noteStatsRepository, never()).deleteById(anyString());
+    }
+
+    @Test
+    void updateNote_staleVersion_failsWithOptimisticLocking() {
+        Note update = Note.builder().title("Updated").text("updated text").build();
+        when(noteRepository.findAndUpdate(NOTE_ID, 2L, update)).thenReturn(Mono.empty());
+        when(noteRepository.existsById(NOTE_ID)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(noteService.updateNote(NOTE_ID, update, 2L))
+                .verifyError(OptimisticLockingFailureException.class);
+
+        verify(noteStatsRepository, never()).saveIfNewer(any(NoteStats.class));
+    }
+
+    @Test
+    void updateNote_missingNote_failsWithNoSuchElement() {
+        Note update = Note.builder().title("Updated").text("updated text").build();
+        when(noteRepository.findAndUpdate(NOTE_ID, 2L, update)).thenReturn(Mono.empty());
+        when(noteRepository.existsById(NOTE_ID)).thenReturn(Mono.just(false));
+
+        StepVerifier.create(noteService.updateNote(NOTE_ID, update, 2L))
+                .verifyError(NoSuchElementException.class);
+    }
+
+    @Test
+    void countStat_missingStats_computesAndSaves() {
+        when(noteStatsRepository.findById(NOTE_ID)).thenReturn(Mono.empty());
+        when(noteRepository.findById(NOTE_ID)).thenReturn(Mono.just(mockNote));
+        when(noteStatsRepository.saveIfNewer(any(NoteStats.class))).thenReturn(Mono.just(true));
+        when(noteRepository.existsById(NOTE_ID)).thenReturn(Mono.just(true));
+
+        StepVerifier.create(noteService.countStat(NOTE_ID))
+                .assertNext(counts -> assertEquals(Map.of("note", 2L, "is", 1L, "just", 1L, "a", 1L), counts))
+                .verifyComplete();
+    }
+
+    @Test
+    void countStat_noteDeletedBeforeStatsWereWritten_removesThemAgain() {
+        when(noteStatsRepository.findById(NOTE_ID)).thenReturn(Mono.empty());
+        when(noteRepository.findById(NOTE_ID)).thenReturn(Mono.just(mockNote));
+        when(noteStatsRepository.saveIfNewer(any(NoteStats.class))).thenReturn(Mono.just(true));
+        when(noteRepository.existsById(NOTE_ID)).thenReturn(Mono.just(false));
+        when(noteStatsRepository.deleteById(NOTE_ID)).thenReturn(Mono.empty());
+
+        StepVerifier.create(noteService.countStat(NOTE_ID))
+                .verifyComplete();
+        verify(noteStatsRepository).deleteById(NOTE_ID);
+    }
+
+    @Test
+    void createNotes_reportsInvalidAndFailedItemsAndStoresStatsOfTheRest() {
+        Note valid = Note.builder().title("T").text("one two two").build();
+        Note duplicate = Note.builder().id(NOTE_ID).title("T").text("text").build();
+        Note invalid = Note.builder().text("no title").build();
+        when(noteRepository.insertUnordered(anyList())).thenReturn(Mono.just(Map.of(1, "E11000 duplicate key")));
+        when(noteStatsRepository.saveAllIfNewer(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(noteService.createNotes(List.of(valid, invalid, duplicate)))
+                .assertNext(result -> {
+                    assertEquals(BulkItemStatus.CREATED, result.getItems().get(0).getStatus());
+                    assertEquals(BulkItemStatus.INVALID, result.getItems().get(1).getStatus());
+                    assertEquals(BulkItemStatus.FAILED, result.getItems().get(2).getStatus());
+                })
+                .verifyComplete();
+
+        verify(noteStatsRepository).saveAllIfNewer(argThat(stats ->
+                stats.size() == 1 && stats.get(0).getId().equals(valid.getId()) && stats.get(0).getWordCounts().get("two") == 2L));
+    }
+
+    @Test
+    void updateNotes_storesStatsOfTheVersionReadBackAfterTheBulk() {
+        Note update = Note.builder().id(NOTE_ID).title("T").text("updated text").build();
+        Note stored = Note.builder().id(NOTE_ID).text("updated text").version(3L).build();
+        when(noteRepository.findTagsByIds(List.of(NOTE_ID, "unknown"))).thenReturn(Flux.just(mockNote));
+        when(noteRepository.updateUnordered(List.of(update))).thenReturn(Mono.just(Map.of()));
+        when(noteRepository.findAllById(Set.of(NOTE_ID))).thenReturn(Flux.just(stored));
+        when(noteStatsRepository.saveAllIfNewer(anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(noteService.updateNotes(List.of(update, Note.builder().id("unknown").title("T").text("t").build())))
+                .assertNext(result -> {
+                    assertEquals(BulkItemStatus.UPDATED, result.getItems().get(0).getStatus());
+                    assertEquals(BulkItemStatus.NOT_FOUND, result.getItems().get(1).getStatus());
+                })
+                .verifyComplete();
+
+        verify(noteStatsRepository).saveAllIfNewer(argThat(stats -> stats.get(0).getNoteVersion() == 3L));
+    }
+
+    @Test
+    void deleteNotes_deletesExistingNotesAndTheirStats() {
+        when(noteRepository.findTagsByIds(List.of(NOTE_ID, "unknown"))).thenReturn(Flux.just(mockNote));
+        when(noteRepository.deleteUnordered(List.of(NOTE_ID))).thenReturn(Mono.just(Map.of()));
+        when(noteStatsRepository.deleteAllById(List.of(NOTE_ID))).thenReturn(Mono.empty());
+
+        StepVerifier.create(noteService.deleteNotes(List.of(NOTE_ID, "unknown", "")))
+                .assertNext(result -> {
+                    assertEquals(BulkItemStatus.DELETED, result.getItems().get(0).getStatus());
+                    assertEquals(BulkItemStatus.NOT_FOUND, result.getItems().get(1).getStatus());
+                    assertEquals(BulkItemStatus.INVALID, result.getItems().get(2).getStatus());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getNotesByCursor_extraRowYieldsNextCursor() {
+        NoteDTO first = new NoteDTO("a", "A", LocalDateTime.of(2024, 1, 2, 0, 0));
+        NoteDTO second = new NoteDTO("b", "B", LocalDateTime.of(2024, 1, 1, 0, 0));
+        when(noteRepository.findSummariesAfter(null, null, null, 2)).thenReturn(Flux.just(first, second));
+
+        StepVerifier.create(noteService.getNotes(null, "", 1))
+                .assertNext(page -> {
+                    assertEquals(List.of(first), page.getContent());
+                    assertEquals(new NoteCursor(first.getCreateDate(), "a").encode(), page.getNext());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getNotesSlice_readsOneExtraRowInsteadOfCounting() {
+        NoteDTO summary = new NoteDTO(NOTE_ID, mockNote.getTitle(), mockNote.getCreateDate());
+        when(noteRepository.findSummaries(Tag.PERSONAL, 5L, 6)).thenReturn(Flux.just(summary));
+
+        StepVerifier.create(noteService.getNotesSlice(Tag.PERSONAL, 1, 5))
+                .assertNext(slice -> {
+                    assertEquals(List.of(summary), slice.getContent());
+                    assertFalse(slice.isHasNext());
+                })
+                .verifyComplete();
+        verify(noteRepository, never()).countByTags(any());
+    }
+
+    @Test
+    void getNoteFields_pushesProjectionDown() {
+        when(noteRepository.findByIdWithFields(NOTE_ID, Set.of("title"))).thenReturn(Mono.just(Note.builder().id(NOTE_ID).title("T").build()));
+
+        StepVerifier.create(noteService.getNoteFields(NOTE_ID, Set.of("title")))
+                .expectNext(Map.of("title", "T"))
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,100 @@
+package com.techtask.technical_test_task.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WordFrequencyCounterTest {
+
+    private static void assertSameAsHashMapPipeline(String text) {
+        Map<String, Long> expected = WordFrequencyCounter.countWithHashMap(text);
+        Map<String, Long> actual = WordFrequencyCounter.count(text);
+
+        assertEquals(new ArrayList<>(expected.entrySet()), new ArrayList<>(actual.entrySet()),
+                "Counts and their order must match the stream pipeline for: " + text);
+    }
+
+    @Test
+    void count_stripsPunctuationAndFoldsCase() {
+        Map<String, Long> result = WordFrequencyCounter.count("note is just a note, NOTE! One-two 42");
+
+        assertEquals(3L, result.get("note"));
+        assertEquals(1L, result.get("onetwo"));
+        assertFalse(result.containsKey("42"));
+        assertEquals("note", result.keySet().iterator().next());
+    }
+
+    @Test
+    void count_emptyAndBlankText_returnsEmptyMap() {
+        assertTrue(WordFrequencyCounter.count("").isEmpty());
+        assertTrue(WordFrequencyCounter.count(" \t\n 123 ,. ").isEmpty());
+    }
+
+    @Test
+    void count_matchesHashMapPipeline_forFixedTexts() {
+        assertSameAsHashMapPipeline("Hello world, this is a test. WORLD! TEST, hello? One-two three.");
+        assertSameAsHashMapPipeline("  leading and trailing whitespace\r\n\u000B\f ");
+        assertSameAsHashMapPipeline("İstanbul Kelvin café naïve журнал word");
+    }
+
+    @Test
+    void count_matchesHashMapPipeline_forRandomTexts() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            assertSameAsHashMapPipeline(randomText(random, 1 + random.nextInt(5000)));
+        }
+    }
+
+    @Test
+    void count_matchesHashMapPipeline_whenBinsWouldBeTreeified() {
+        // nine distinct words sharing the low hash bits force HashMap to resize and then treeify
+        Map<Integer, List<String>> byBin = new HashMap<>();
+        Random random = new Random(7);
+        List<String> colliding = null;
+        while (colliding == null) {
+            String word = randomWord(random);
+            int hash = word.hashCode();
+            List<String> bin = byBin.computeIfAbsent((hash ^ (hash >>> 16)) & 63, b -> new ArrayList<>());
+            if (!bin.contains(word)) {
+                bin.add(word);
+            }
+            if (bin.size() == 9) {
+                colliding = bin;
+            }
+        }
+
+        assertSameAsHashMapPipeline(String.join(" ", colliding) + " " + colliding.get(3));
+    }
+
+    @Test
+    void count_matchesHashMapPipeline_underTurkishLocale() {
+        Locale original = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr"));
+            assertSameAsHashMapPipeline("ISTANBUL İstanbul İ Istanbul istanbul");
+        } finally {
+            Locale.setDefault(original);
+        }
+    }
+
+    private static String randomText(Random random, int length) {
+        String separators = "  \t\n,.!?-'1";
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append(random.nextInt(4) == 0 ? randomWord(random).toUpperCase() : randomWord(random));
+            text.append(separators.charAt(random.nextInt(separators.length())));
+        }
+        return text.substring(0, length);
+    }
+
+    private static String randomWord(Random random) {
+        // small alphabet keeps plenty of repeated words and equal counts
+        char[] word = new char[1 + random.nextInt(4)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(6));
+        }
+        return new String(word);
+    }
+}
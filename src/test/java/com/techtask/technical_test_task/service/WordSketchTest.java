@@ -0,0 +1,88 @@
+package com.techtask.technical_test_task.service;
+
+import com.techtask.technical_test_task.dto.WordCount;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WordSketchTest {
+
+    // word i occurs roughly 1 / (i + 1) as often as word 0
+    private static void addZipf(WordSketch sketch, Random random, int vocabulary, int occurrences) {
+        for (int n = 0; n < occurrences; n++) {
+            int word = (int) Math.floor(Math.pow(vocabulary + 1, random.nextDouble())) - 1;
+            sketch.add("w" + word, 1);
+        }
+    }
+
+    @Test
+    void top_findsHeavyHittersOfSkewedStream() {
+        WordSketch sketch = new WordSketch(50);
+        addZipf(sketch, new Random(1), 20_000, 200_000);
+
+        List<String> top = sketch.top(5).stream().map(WordCount::getWord).toList();
+
+        assertEquals(List.of("w0", "w1", "w2", "w3", "w4"), top);
+    }
+
+    @Test
+    void estimate_neverUndercountsAndStaysWithinBound() {
+        WordSketch sketch = new WordSketch(10);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("word" + i, 1 + i % 3);
+        }
+        long total = 20_000;
+
+        for (int i = 0; i < 10_000; i += 97) {
+            long estimate = sketch.estimate("word" + i);
+            assertTrue(estimate >= 1 + i % 3);
+            assertTrue(estimate <= 1 + i % 3 + Math.E * total / WordSketch.WIDTH * 2);
+        }
+    }
+
+    @Test
+    void distinct_isWithinFewPercent() {
+        WordSketch sketch = new WordSketch(10);
+        for (int i = 0; i < 100_000; i++) {
+            sketch.add("word" + i, 1);
+            sketch.add("word" + (i / 2), 1);
+        }
+
+        assertEquals(100_000, sketch.distinct(), 100_000 * 0.05);
+    }
+
+    @Test
+    void remove_undoesAdd() {
+        WordSketch sketch = new WordSketch(10);
+        sketch.add("budget", 3);
+        sketch.add("review", 1);
+
+        sketch.add("budget", -3);
+
+        assertEquals(List.of(new WordCount("review", 1)), sketch.top(10));
+    }
+
+    @Test
+    void merge_equalsSketchOfUnion() {
+        WordSketch left = new WordSketch(20);
+        WordSketch right = new WordSketch(20);
+        WordSketch union = new WordSketch(20);
+        Random random = new Random(3);
+        for (int i = 0; i < 5_000; i++) {
+            String word = "w" + random.nextInt(300);
+            (i % 2 == 0 ? left : right).add(word, 1);
+            union.add(word, 1);
+        }
+
+        left.merge(right);
+
+        assertEquals(union.distinct(), left.distinct());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(union.estimate("w" + i), left.estimate("w" + i));
+        }
+        assertEquals(union.top(5), left.top(5));
+    }
+}